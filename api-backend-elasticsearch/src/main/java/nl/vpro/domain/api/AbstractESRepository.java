@@ -1,13 +1,20 @@
  package nl.vpro.domain.api;
 
+ import io.micrometer.core.instrument.MeterRegistry;
+ import io.micrometer.core.instrument.Metrics;
  import lombok.Getter;
  import lombok.Setter;
 
  import java.io.IOException;
+ import java.io.UncheckedIOException;
+ import java.nio.charset.StandardCharsets;
  import java.time.Duration;
  import java.util.*;
- import java.util.concurrent.CompletableFuture;
+ import java.util.concurrent.*;
+ import java.util.concurrent.atomic.LongAdder;
  import java.util.function.Consumer;
+ import java.util.function.Function;
+ import java.util.function.Supplier;
  import java.util.stream.Collectors;
 
  import jakarta.validation.constraints.NotNull;
@@ -17,33 +24,50 @@
  import org.apache.logging.log4j.LogManager;
  import org.apache.logging.log4j.Logger;
  import org.apache.lucene.search.TotalHits;
+ import org.apache.lucene.util.BytesRef;
  import org.checkerframework.checker.nullness.qual.NonNull;
  import org.checkerframework.checker.nullness.qual.Nullable;
  import org.elasticsearch.action.get.*;
- import org.elasticsearch.action.search.SearchRequest;
- import org.elasticsearch.action.search.SearchResponse;
+ import org.elasticsearch.ElasticsearchException;
+ import org.elasticsearch.ElasticsearchStatusException;
+ import org.elasticsearch.action.search.*;
  import org.elasticsearch.client.*;
+ import org.elasticsearch.common.bytes.BytesReference;
  import org.elasticsearch.common.text.Text;
+ import org.elasticsearch.core.TimeValue;
  import org.elasticsearch.index.IndexNotFoundException;
  import org.elasticsearch.index.query.QueryBuilder;
+ import org.elasticsearch.rest.RestStatus;
  import org.elasticsearch.search.SearchHit;
  import org.elasticsearch.search.SearchHits;
  import org.elasticsearch.search.aggregations.AggregationBuilders;
  import org.elasticsearch.search.aggregations.BucketOrder;
  import org.elasticsearch.search.aggregations.bucket.terms.Terms;
  import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+ import org.elasticsearch.search.builder.PointInTimeBuilder;
  import org.elasticsearch.search.builder.SearchSourceBuilder;
+ import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
  import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
  import org.elasticsearch.search.fetch.subphase.highlight.HighlightField;
+ import org.elasticsearch.search.internal.SearchContext;
+ import org.elasticsearch.search.sort.SortOrder;
+ import org.springframework.beans.factory.annotation.Autowired;
  import org.springframework.beans.factory.annotation.Value;
  import org.springframework.jmx.export.annotation.ManagedAttribute;
+ import org.springframework.jmx.export.annotation.ManagedOperation;
 
- import com.fasterxml.jackson.core.JsonProcessingException;
  import com.fasterxml.jackson.databind.JsonNode;
+ import com.fasterxml.jackson.databind.ObjectReader;
+ import com.google.common.cache.Cache;
+ import com.google.common.cache.CacheBuilder;
+ import com.google.common.hash.Hashing;
 
  import nl.vpro.elasticsearch.ElasticSearchIndex;
  import nl.vpro.elasticsearch.highlevel.HighLevelClientFactory;
  import nl.vpro.jackson2.Jackson2Mapper;
+ import nl.vpro.poms.shared.ExtraHeaders;
+ import nl.vpro.util.BasicWrappedIterator;
+ import nl.vpro.util.CloseableIterator;
  import nl.vpro.util.ThreadPools;
  import nl.vpro.util.TimeUtils;
 
@@ -64,6 +88,8 @@ public abstract class AbstractESRepository<T> {
     protected static final Jackson2Mapper MAPPER = Jackson2Mapper.getInstance();
     protected static final Jackson2Mapper LENIENT = Jackson2Mapper.getLenientInstance();
 
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
 
     @Getter
     @Setter
@@ -85,6 +111,116 @@ public abstract class AbstractESRepository<T> {
     @Value("${elasticSearch.warnSortNotOnDoc:false}")
     protected boolean warnSortNotOnDoc;
 
+    /**
+     * Cache for {@link #load(String, Class)} and {@link #loadAll(Class, String, String...)}. {@code null} if disabled.
+     * @since 8.14
+     */
+    @Getter
+    protected NearCache<T> nearCache = null;
+
+    @Getter
+    protected long nearCacheSize = 0;
+
+    @Getter
+    protected Duration nearCacheExpiry = Duration.ofMinutes(10);
+
+    /**
+     * How long a point in time used for cursor based paging (see {@link SearchCursor}) is kept alive between two pages
+     * @since 8.14
+     */
+    @Getter
+    @Setter
+    protected Duration pointInTimeKeepAlive = Duration.ofMinutes(1);
+
+    /**
+     * The 'index.max_result_window' of the indices. This is the size used if everything is requested.
+     * @since 8.14
+     */
+    @Getter
+    protected int maxResultWindow = 10_000;
+
+    protected static final String DEFAULT_ENDPOINT = "*";
+
+    /**
+     * The executor on which the results of asynchronous calls (like {@link #searchAsync(SearchRequest)}) are processed, so that the IO threads of the client are not used for that.
+     * @since 8.14
+     */
+    @Getter
+    @Setter
+    protected Executor asyncExecutor = ThreadPools.backgroundExecutor;
+
+    /**
+     * Where the timings of the phases of repository calls are recorded (see {@link RepositoryTimer})
+     * @since 8.14
+     */
+    @Getter
+    protected MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    /**
+     * Whether the timings are also added as {@value RepositoryTimer#SERVER_TIMING} headers to the response
+     * @since 8.14
+     */
+    @Getter
+    protected boolean serverTiming = true;
+
+    /**
+     * The {@link RepositoryTimer}s per method and indices, so their micrometer timers are registered only once
+     */
+    private final Map<String, RepositoryTimer> timers = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    public void setMeterRegistry(@NonNull MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.timers.clear();
+    }
+
+    public void setServerTiming(boolean serverTiming) {
+        this.serverTiming = serverTiming;
+        this.timers.clear();
+    }
+
+    /**
+     * @since 8.14
+     */
+    @Getter
+    protected final SlowQueryLog slowQueryLog = new SlowQueryLog(getClass().getSimpleName());
+
+    /**
+     * @since 8.14
+     */
+    @Getter
+    protected final Hedger hedger = new Hedger();
+
+    /**
+     * @since 8.14
+     */
+    @Getter
+    protected final Bulkheads bulkheads = new Bulkheads();
+
+    /**
+     * @since 8.14
+     */
+    @Getter
+    protected final CircuitBreaker circuitBreaker = new CircuitBreaker(getClass().getSimpleName());
+
+    /**
+     * The last successful responses of elasticsearch, which are served while the circuit breaker is open (see {@link #guarded(String, Supplier, Class, ElasticsearchCall)}). Keyed by a hash of the request. {@code null} if disabled.
+     * @since 8.14
+     */
+    protected Cache<String, Object> lastKnownGoodCache = null;
+
+    @Getter
+    protected long lastKnownGoodCacheSize = 0;
+
+    private final LongAdder lastKnownGoodServed = new LongAdder();
+
+    /**
+     * Per endpoint, up to how many hits the total must be exact (see {@link #trackTotalHits(SearchSourceBuilder, String)}). A negative value means 'always exact'.
+     * @since 8.14
+     */
+    @Getter
+    protected final Map<String, Integer> trackTotalHitsUpTo = new ConcurrentHashMap<>();
+
 
 
     protected AbstractESRepository(
@@ -154,6 +290,37 @@ public abstract class AbstractESRepository<T> {
         this.timeOut = TimeUtils.parseDuration(timeOut).orElse(this.timeOut);
     }
 
+    @ManagedAttribute
+    @Value("${elasticSearch.maxResultWindow:10000}")
+    public void setMaxResultWindow(int maxResultWindow) {
+        this.maxResultWindow = maxResultWindow;
+    }
+
+    /**
+     * @return The {@link #getTrackTotalHitsUpTo() accuracy budgets for totals} as a string like {@code find=1000,findRelated=100,*=-1}
+     */
+    @ManagedAttribute
+    public String getTrackTotalHitsUpToAsString() {
+        return trackTotalHitsUpTo.entrySet().stream()
+            .map(e -> e.getKey() + "=" + e.getValue())
+            .collect(Collectors.joining(","));
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.trackTotalHitsUpTo:}")
+    public void setTrackTotalHitsUpToAsString(String trackTotalHitsUpTo) {
+        final Map<String, Integer> parsed = new HashMap<>();
+        for (String entry : StringUtils.split(trackTotalHitsUpTo == null ? "" : trackTotalHitsUpTo, ",")) {
+            String[] keyValue = entry.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Could not parse " + entry + " (expected <endpoint>=<number>)");
+            }
+            parsed.put(keyValue[0].trim(), Integer.parseInt(keyValue[1].trim()));
+        }
+        this.trackTotalHitsUpTo.clear();
+        this.trackTotalHitsUpTo.putAll(parsed);
+    }
+
     @ManagedAttribute
     public String getCommitDelayAsString() {
         return String.valueOf(commitDelay);
@@ -166,6 +333,238 @@ public abstract class AbstractESRepository<T> {
     }
 
 
+    /**
+     * Sets the maximal number of entries in the {@link #getNearCache() near cache}. {@code 0} disables it.
+     * @since 8.14
+     */
+    @ManagedAttribute
+    public void setNearCacheSize(long nearCacheSize) {
+        this.nearCacheSize = nearCacheSize;
+        rebuildNearCache();
+    }
+
+    @ManagedAttribute
+    public String getNearCacheExpiryAsString() {
+        return String.valueOf(nearCacheExpiry);
+    }
+
+    @ManagedAttribute
+    public void setNearCacheExpiryAsString(String nearCacheExpiry) {
+        this.nearCacheExpiry = TimeUtils.parseDuration(nearCacheExpiry).orElse(this.nearCacheExpiry);
+        rebuildNearCache();
+    }
+
+    @ManagedAttribute
+    public long getNearCacheHitCount() {
+        return nearCache == null ? 0 : nearCache.stats().hitCount();
+    }
+
+    @ManagedAttribute
+    public long getNearCacheMissCount() {
+        return nearCache == null ? 0 : nearCache.stats().missCount();
+    }
+
+    @ManagedAttribute
+    public long getNearCacheEvictionCount() {
+        return nearCache == null ? 0 : nearCache.stats().evictionCount();
+    }
+
+    @ManagedAttribute
+    public long getNearCacheCurrentSize() {
+        return nearCache == null ? 0 : nearCache.size();
+    }
+
+    @ManagedAttribute(description = "Searches taking longer than this are logged (0 disables)")
+    public String getSlowQueryThresholdAsString() {
+        return String.valueOf(slowQueryLog.getThreshold());
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.slowQuery.threshold:2s}")
+    public void setSlowQueryThresholdAsString(String threshold) {
+        slowQueryLog.setThreshold(TimeUtils.parseDuration(threshold).orElse(Duration.ZERO));
+    }
+
+    @ManagedAttribute(description = "The fraction of the slow queries that is executed again with profiling (0, the default, disables)")
+    public double getSlowQuerySampleRate() {
+        return slowQueryLog.getSampleRate();
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.slowQuery.sampleRate:0}")
+    public void setSlowQuerySampleRate(double sampleRate) {
+        slowQueryLog.setSampleRate(sampleRate);
+    }
+
+    @ManagedAttribute
+    public int getSlowQueryCapacity() {
+        return slowQueryLog.getCapacity();
+    }
+
+    @ManagedAttribute
+    public void setSlowQueryCapacity(int capacity) {
+        slowQueryLog.setCapacity(capacity);
+    }
+
+    @ManagedAttribute(description = "The most recent slow queries, with their profile if they were sampled")
+    public List<String> getSlowQueries() {
+        return slowQueryLog.getSlowQueries().stream()
+            .map(SlowQueryLog.SlowQuery::toString)
+            .collect(Collectors.toList());
+    }
+
+    @ManagedOperation
+    public void clearSlowQueries() {
+        slowQueryLog.clear();
+    }
+
+    @ManagedAttribute(description = "Whether slow searches and multi gets are duplicated to other shard copies")
+    public boolean isHedging() {
+        return hedger.isEnabled();
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.hedge.enabled:false}")
+    public void setHedging(boolean hedging) {
+        hedger.setEnabled(hedging);
+    }
+
+    @ManagedAttribute(description = "The maximal fraction of requests that may be hedged")
+    public double getHedgeBudget() {
+        return hedger.getBudget();
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.hedge.budget:0.05}")
+    public void setHedgeBudget(double budget) {
+        hedger.setBudget(budget);
+    }
+
+    @ManagedAttribute
+    public long getHedgedCount() {
+        return hedger.getHedgedCount();
+    }
+
+    @ManagedAttribute(description = "How often the hedged request answered first")
+    public long getHedgeWinCount() {
+        return hedger.getHedgeWinCount();
+    }
+
+    @ManagedAttribute(description = "The rolling 95th percentiles of the latencies, after which is hedged")
+    public String getHedgeDelays() {
+        return hedger.getP95s().toString();
+    }
+
+    @ManagedAttribute(description = "Per repository method, the maximal number of concurrent calls to elasticsearch. E.g. 'iterate=4,*=100'. Empty (the default) limits nothing")
+    public String getBulkheadLimits() {
+        return bulkheads.getLimits();
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.bulkheads:}")
+    public void setBulkheadLimits(String limits) {
+        bulkheads.setLimits(limits);
+    }
+
+    @ManagedAttribute(description = "How long a call waits for a free slot in its bulkhead before it is rejected")
+    public String getBulkheadMaxWaitAsString() {
+        return bulkheads.getMaxWait().toString();
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.bulkheads.maxWait:100ms}")
+    public void setBulkheadMaxWaitAsString(String maxWait) {
+        bulkheads.setMaxWait(TimeUtils.parseDuration(maxWait).orElse(bulkheads.getMaxWait()));
+    }
+
+    @ManagedAttribute
+    public String getBulkheadsInUse() {
+        return bulkheads.getInUse().toString();
+    }
+
+    @ManagedAttribute
+    public String getBulkheadsRejected() {
+        return bulkheads.getRejected().toString();
+    }
+
+    @ManagedAttribute
+    public String getCircuitBreakerState() {
+        return circuitBreaker.getState().name();
+    }
+
+    @ManagedAttribute(description = "This many timeouts or 429/503 responses within the failure window open the circuit breaker")
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreaker.getFailureThreshold();
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.circuitBreaker.failureThreshold:5}")
+    public void setCircuitBreakerFailureThreshold(int failureThreshold) {
+        circuitBreaker.setFailureThreshold(failureThreshold);
+    }
+
+    @ManagedAttribute
+    public String getCircuitBreakerFailureWindowAsString() {
+        return circuitBreaker.getFailureWindow().toString();
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.circuitBreaker.failureWindow:10s}")
+    public void setCircuitBreakerFailureWindowAsString(String failureWindow) {
+        circuitBreaker.setFailureWindow(TimeUtils.parseDuration(failureWindow).orElse(circuitBreaker.getFailureWindow()));
+    }
+
+    @ManagedAttribute(description = "How long the circuit breaker stays open, before a trial call is done")
+    public String getCircuitBreakerOpenDurationAsString() {
+        return circuitBreaker.getOpenDuration().toString();
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.circuitBreaker.openDuration:30s}")
+    public void setCircuitBreakerOpenDurationAsString(String openDuration) {
+        circuitBreaker.setOpenDuration(TimeUtils.parseDuration(openDuration).orElse(circuitBreaker.getOpenDuration()));
+    }
+
+    @ManagedAttribute
+    public long getCircuitBreakerTripCount() {
+        return circuitBreaker.getTripCount();
+    }
+
+    @ManagedAttribute
+    public long getCircuitBreakerRefusedCount() {
+        return circuitBreaker.getRefusedCount();
+    }
+
+    /**
+     * Sets the maximal number of last known good responses that are kept. {@code 0} (the default) disables it.
+     * @since 8.14
+     */
+    @ManagedAttribute
+    @Value("${elasticSearch.lastKnownGood.size:0}")
+    public void setLastKnownGoodCacheSize(long lastKnownGoodCacheSize) {
+        this.lastKnownGoodCacheSize = lastKnownGoodCacheSize;
+        this.lastKnownGoodCache = lastKnownGoodCacheSize > 0 ?
+            CacheBuilder.newBuilder()
+                .maximumSize(lastKnownGoodCacheSize)
+                .softValues()
+                .build() : null;
+    }
+
+    @ManagedAttribute(description = "How often a last known good result was served because elasticsearch was not available")
+    public long getLastKnownGoodServedCount() {
+        return lastKnownGoodServed.sum();
+    }
+
+    protected void rebuildNearCache() {
+        if (nearCacheSize > 0) {
+            nearCache = new NearCache<>(nearCacheSize, nearCacheExpiry);
+            log.info("Using {} for {}", nearCache, this);
+        } else {
+            nearCache = null;
+        }
+    }
+
+
     protected final RestHighLevelClient client() {
         return factory.highLevelClient(getClass().getName());
     }
@@ -177,20 +576,50 @@ public abstract class AbstractESRepository<T> {
         return indexNames.get(index);
     }
 
+    /**
+     * Which part of the source must be fetched for the current call. Objects that are loaded with a filtered source are not put in the {@link #getNearCache() near cache}.
+     * @return {@code null} if the complete source is needed (this default)
+     * @since 8.14
+     */
+    @Nullable
+    protected FetchSourceContext fetchSource() {
+        return null;
+    }
+
     protected T load(
         @NonNull String id,
         @NonNull Class<T> clazz) throws IOException {
+        final String indexName = getIndexName(id, clazz);
+        final NearCache<T> nearCache = this.nearCache;
+        if (nearCache != null) {
+            Optional<T> cached = nearCache.getIfPresent(indexName, id);
+            if (cached != null) {
+                return cached.filter(clazz::isInstance).orElse(null);
+            }
+        }
+        final FetchSourceContext fetchSource = fetchSource();
+        final NearCache<T> cache = fetchSource == null ? nearCache : null;
         try {
 
             MultiGetRequest getRequest =
                 new MultiGetRequest();
-            getRequest.add(getIndexName(id, clazz), id);
-            MultiGetResponse response = client().mget(getRequest, requestOptions());
+            getRequest.add(new MultiGetRequest.Item(indexName, id).fetchSourceContext(fetchSource));
+            MultiGetResponse response = hedgedMget("load", getRequest);
+            boolean failed = false;
             for (MultiGetItemResponse r : response.getResponses()) {
-                if (! r.isFailed() && r.getResponse().isExists()) {
-                    return transformResponse(r.getResponse(), clazz);
+                if (r.isFailed()) {
+                    failed = true;
+                } else if (r.getResponse().isExists()) {
+                    T result = transformResponse(r.getResponse(), clazz);
+                    if (cache != null) {
+                        cache.put(indexName, id, result);
+                    }
+                    return result;
                 }
             }
+            if (cache != null && ! failed) {
+                cache.put(indexName, id, null);
+            }
             return null;
         } catch(IndexNotFoundException ime) {
             log.warn("For {}:{} {}", id, clazz, ime.getMessage());
@@ -205,7 +634,7 @@ public abstract class AbstractESRepository<T> {
             return null;
         }
         try {
-            return LENIENT.readValue(response.getSourceAsString(), clazz);
+            return readSource(response.getSourceAsBytesRef(), clazz);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -223,6 +652,304 @@ public abstract class AbstractESRepository<T> {
     }
 
 
+    /**
+     * A timer for the phases of one call to elasticsearch.
+     * @param method The repository method (e.g. {@code find}) on which behalf the call is done
+     * @since 8.14
+     */
+    protected RepositoryTimer timer(@NonNull String method, @NonNull String... indexNames) {
+        final String index = String.join(",", indexNames);
+        return timers.computeIfAbsent(method + " " + index, k ->
+            new RepositoryTimer(meterRegistry, getClass().getSimpleName(), method, index, serverTiming)
+        );
+    }
+
+    /**
+     * Executes the search request synchronously, recording its round trip with the given timer.
+     * @since 8.14
+     */
+    protected SearchResponse search(@NonNull SearchRequest request, @NonNull RepositoryTimer timer) throws IOException {
+        return search(request, timer, () -> "");
+    }
+
+    /**
+     * Executes the search request synchronously, recording its round trip with the given timer, and checking whether it was a {@link SlowQueryLog slow query}.
+     * @param context A description of the circumstances of the call (like the form and profile), for the slow query log
+     * @since 8.14
+     */
+    protected SearchResponse search(@NonNull SearchRequest request, @NonNull RepositoryTimer timer, @NonNull Supplier<String> context) throws IOException {
+        final long start = System.nanoTime();
+        final SearchResponse response = hedgedSearch(timer.getMethod(), request);
+        final Duration roundTrip = Duration.ofNanos(System.nanoTime() - start);
+        timer.recordRoundTrip(roundTrip, Duration.ofMillis(response.getTook().getMillis()));
+        slowQueryLog.check(timer.getMethod(), request, roundTrip, context, this::searchAsync);
+        return response;
+    }
+
+    /**
+     * Executes the search, and if {@link #getHedger() hedging} is enabled, and it takes longer than usual, a duplicate is sent with a different preference.
+     * <p>
+     * Searches in a point in time (elasticsearch doesn't accept a preference for those) and searches that start a scroll (the duplicate would leave a scroll context behind) are never hedged.
+     * @param method Latencies are tracked per method and index
+     * @since 8.14
+     */
+    protected SearchResponse hedgedSearch(@NonNull String method, @NonNull SearchRequest request) throws IOException {
+        final boolean pointInTime = request.source() != null && request.source().pointInTimeBuilder() != null;
+        final Supplier<String> lastKnownGoodKey = () -> request.source() == null || pointInTime ? null :
+            hedgeKey(method, request.indices()) + ":" + request.source();
+        return guarded(method, lastKnownGoodKey, SearchResponse.class, () -> {
+            if (! hedger.isEnabled() || pointInTime || request.scroll() != null) {
+                final long start = System.nanoTime();
+                final SearchResponse response = client().search(request, requestOptions());
+                hedger.record(hedgeKey(method, request.indices()), Duration.ofNanos(System.nanoTime() - start));
+                return response;
+            }
+            return await(hedger.execute(hedgeKey(method, request.indices()), preference ->
+                searchAsync(preference == null ? request : withPreference(request, preference))
+            ));
+        });
+    }
+
+    /**
+     * Like {@link #hedgedSearch(String, SearchRequest)}, but for a multi get.
+     * @since 8.14
+     */
+    protected MultiGetResponse hedgedMget(@NonNull String method, @NonNull MultiGetRequest request) throws IOException {
+        final String[] indices = request.getItems().stream().map(MultiGetRequest.Item::index).distinct().toArray(String[]::new);
+        final Supplier<String> lastKnownGoodKey = () -> method + ":" + request.getItems().stream()
+            .map(i -> i.index() + "/" + i.id() + (i.fetchSourceContext() == null ? "" : "-" + String.join("-", i.fetchSourceContext().excludes())))
+            .collect(Collectors.joining(","));
+        return guarded(method, lastKnownGoodKey, MultiGetResponse.class, () -> {
+            if (! hedger.isEnabled()) {
+                final long start = System.nanoTime();
+                final MultiGetResponse response = client().mget(request, requestOptions());
+                hedger.record(hedgeKey(method, indices), Duration.ofNanos(System.nanoTime() - start));
+                return response;
+            }
+            return await(hedger.execute(hedgeKey(method, indices), preference ->
+                mgetAsync(preference == null ? request : withPreference(request, preference))
+            ));
+        });
+    }
+
+    /**
+     * Executes a call to elasticsearch within the {@link #getBulkheads() bulkhead} of the given method, and only if the {@link #getCircuitBreaker() circuit breaker} is closed.
+     * <p>
+     * If the bulkhead is full, an {@link ElasticsearchStatusException} with status {@link RestStatus#TOO_MANY_REQUESTS 429} is thrown. If the breaker is open, the last known good result for the same call is returned if there is one, and otherwise an {@link ElasticsearchStatusException} with status {@link RestStatus#SERVICE_UNAVAILABLE 503} is thrown.
+     *
+     * @param lastKnownGoodKey Identifies the call for the last known good result. Only evaluated if that is {@link #setLastKnownGoodCacheSize(long) enabled}, and may return {@code null} if there should not be one.
+     * @since 8.14
+     */
+    protected <R> R guarded(
+        @NonNull String method,
+        @NonNull Supplier<@Nullable String> lastKnownGoodKey,
+        @NonNull Class<R> resultClass,
+        @NonNull ElasticsearchCall<R> call) throws IOException {
+        final Bulkheads.Permit permit;
+        try {
+            permit = bulkheads.tryAcquire(method);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        if (permit == null) {
+            throw tooManyCalls(method);
+        }
+        final CircuitBreaker.Permit breakerPermit = circuitBreaker.tryAcquire();
+        if (breakerPermit == null) {
+            permit.close();
+            return lastKnownGood(lastKnownGoodKey, resultClass);
+        }
+        try (permit) {
+            final R result = call.call();
+            breakerPermit.onSuccess();
+            final Cache<String, Object> cache = lastKnownGoodCache;
+            if (cache != null) {
+                final String key = hash(lastKnownGoodKey.get());
+                if (key != null) {
+                    cache.put(key, result);
+                }
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            breakerPermit.onFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Like {@link #guarded(String, Supplier, Class, ElasticsearchCall)} for an asynchronous call. The permit of the bulkhead is held until the call completes. There is no last known good result to fall back to, if the call is refused the future fails.
+     * @since 8.14
+     */
+    protected <R> CompletableFuture<R> guardedAsync(
+        @NonNull String method,
+        @NonNull Supplier<CompletableFuture<R>> call) {
+        final Bulkheads.Permit permit;
+        try {
+            permit = bulkheads.tryAcquire(method);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new IOException(e));
+        }
+        if (permit == null) {
+            return CompletableFuture.failedFuture(tooManyCalls(method));
+        }
+        final CircuitBreaker.Permit breakerPermit = circuitBreaker.tryAcquire();
+        if (breakerPermit == null) {
+            permit.close();
+            return CompletableFuture.failedFuture(circuitBreakerOpen());
+        }
+        final CompletableFuture<R> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            permit.close();
+            breakerPermit.onFailure(e);
+            return CompletableFuture.failedFuture(e);
+        }
+        // not returning the dependent stage, so cancelling the result still cancels the call
+        future.whenComplete((r, t) -> {
+            permit.close();
+            if (t == null) {
+                breakerPermit.onSuccess();
+            } else {
+                breakerPermit.onFailure(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            }
+        });
+        return future;
+    }
+
+    private ElasticsearchStatusException tooManyCalls(String method) {
+        return new ElasticsearchStatusException("Too many concurrent " + method + " calls on " + getClass().getSimpleName(), RestStatus.TOO_MANY_REQUESTS);
+    }
+
+    private ElasticsearchStatusException circuitBreakerOpen() {
+        return new ElasticsearchStatusException("Circuit breaker of " + getClass().getSimpleName() + " is open", RestStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Holds a permit of the {@link #getBulkheads() bulkhead} of the given method until the iterator is exhausted or closed. This is for long-running scrolls, which are not executed via {@link #guarded(String, Supplier, Class, ElasticsearchCall)}.
+     * @since 8.14
+     */
+    protected <E> CloseableIterator<E> withinBulkhead(@NonNull String method, @NonNull CloseableIterator<E> iterator) {
+        Bulkheads.Permit acquired;
+        try {
+            acquired = bulkheads.tryAcquire(method);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = null;
+        }
+        final Bulkheads.Permit permit = acquired;
+        if (permit == null) {
+            CloseableIterator.closeQuietly(iterator);
+            throw tooManyCalls(method);
+        }
+        return new BasicWrappedIterator<>(iterator) {
+            private boolean released = false;
+
+            @Override
+            public boolean hasNext() {
+                final boolean hasNext = super.hasNext();
+                if (! hasNext) {
+                    release();
+                }
+                return hasNext;
+            }
+
+            @Override
+            public void close() throws Exception {
+                try {
+                    super.close();
+                } finally {
+                    release();
+                }
+            }
+
+            private synchronized void release() {
+                if (! released) {
+                    released = true;
+                    permit.close();
+                }
+            }
+        };
+    }
+
+    private <R> R lastKnownGood(
+        @NonNull Supplier<@Nullable String> lastKnownGoodKey,
+        @NonNull Class<R> resultClass) {
+        final Cache<String, Object> cache = lastKnownGoodCache;
+        final String key = cache == null ? null : hash(lastKnownGoodKey.get());
+        final Object lastKnownGood = key == null ? null : cache.getIfPresent(key);
+        if (resultClass.isInstance(lastKnownGood)) {
+            lastKnownGoodServed.increment();
+            ExtraHeaders.warn("Elasticsearch is not available, the result may be out of date");
+            return resultClass.cast(lastKnownGood);
+        }
+        throw circuitBreakerOpen();
+    }
+
+    /**
+     * The keys of the last known good cache can be large (they contain the complete query), so only a hash of them is kept
+     */
+    @Nullable
+    private static String hash(@Nullable String key) {
+        return key == null ? null : Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString();
+    }
+
+    @FunctionalInterface
+    protected interface ElasticsearchCall<R> {
+        R call() throws IOException;
+    }
+
+    private static String hedgeKey(String method, String[] indices) {
+        return method + ":" + String.join(",", indices);
+    }
+
+    /**
+     * @return A copy of the request (with all its settings), with the given preference
+     */
+    static SearchRequest withPreference(SearchRequest request, String preference) {
+        return new SearchRequest(request)
+            .preference(preference);
+    }
+
+    static MultiGetRequest withPreference(MultiGetRequest request, String preference) {
+        final MultiGetRequest copy = new MultiGetRequest()
+            .realtime(request.realtime())
+            .refresh(request.refresh())
+            .preference(preference);
+        for (MultiGetRequest.Item item : request.getItems()) {
+            copy.add(item);
+        }
+        return copy;
+    }
+
+    /**
+     * Waits for the result of a future, unwrapping exceptions. It waits at most twice the {@link #getTimeOut() time out} (the request itself, and possibly a {@link Hedger hedge} of it), so the caller never blocks forever while holding its {@link #getBulkheads() bulkhead} permit.
+     * @since 8.14
+     */
+    protected <R> R await(@NonNull CompletableFuture<R> future) throws IOException {
+        final Duration timeout = timeOut.multipliedBy(2);
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IOException("No response within " + timeout, e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
     /**
      * Returns a list with ${ids.length} entries. Empty optionals if not found.
      */
@@ -234,51 +961,109 @@ public abstract class AbstractESRepository<T> {
         if (ids.length == 0) {
             return new ArrayList<>();
         }
-        MultiGetRequest request = new MultiGetRequest();
+        final Map<String, S> answerMap = new HashMap<>(ids.length);
+        final FetchSourceContext fetchSource = fetchSource();
+        final MultiGetRequest request = loadAllRequest(clazz, indexName, answerMap, fetchSource, ids);
+        if (! request.getItems().isEmpty()) {
+            MultiGetResponse responses = hedgedMget("loadAll", request);
+            loadAllResponses(responses, clazz, indexName, answerMap, fetchSource == null);
+        }
+        return loadAllAnswer(answerMap, ids);
+    }
+
+    /**
+     * Asynchronous version of {@link #loadAll(Class, String, String...)}. The request thread is not blocked. Decoding happens on {@link #getAsyncExecutor()}. Like the synchronous version, it is {@link #guardedAsync(String, Supplier) guarded} as {@code load}.
+     * @since 8.14
+     */
+    @NonNull
+    protected <S extends T> CompletableFuture<List<Optional<S>>> loadAllAsync(
+        @NonNull Class<S> clazz,
+        @NonNull String indexName,
+        @NonNull String... ids) {
+        if (ids.length == 0) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        final Map<String, S> answerMap = new HashMap<>(ids.length);
+        final FetchSourceContext fetchSource = fetchSource();
+        final MultiGetRequest request = loadAllRequest(clazz, indexName, answerMap, fetchSource, ids);
+        if (request.getItems().isEmpty()) {
+            return CompletableFuture.completedFuture(loadAllAnswer(answerMap, ids));
+        }
+        return guardedAsync("load", () -> mgetAsync(request))
+            .thenApplyAsync(responses -> {
+                loadAllResponses(responses, clazz, indexName, answerMap, fetchSource == null);
+                return loadAllAnswer(answerMap, ids);
+            }, asyncExecutor);
+    }
+
+    /**
+     * Builds the mget request for all ids which are not in the {@link #getNearCache() near cache}. Those which are, are added to the answer map directly (even if only part of the source is needed).
+     */
+    private <S extends T> MultiGetRequest loadAllRequest(
+        @NonNull Class<S> clazz,
+        @NonNull String indexName,
+        @NonNull Map<String, S> answerMap,
+        @Nullable FetchSourceContext fetchSource,
+        @NonNull String... ids) {
+        final NearCache<T> cache = nearCache;
+        final Set<String> cached = new HashSet<>();
+        final MultiGetRequest request = new MultiGetRequest();
         for (String id : ids) {
             if (StringUtils.isNotBlank(id)) {
-                request.add(indexName, id);
+                Optional<T> fromCache = cache == null ? null : cache.getIfPresent(indexName, id);
+                if (fromCache != null) {
+                    cached.add(id);
+                    fromCache.filter(clazz::isInstance).map(clazz::cast).ifPresent(o -> answerMap.put(id, o));
+                } else if (! cached.contains(id)) {
+                    request.add(new MultiGetRequest.Item(indexName, id).fetchSourceContext(fetchSource));
+                }
             } else {
                 log.debug("Ignoring empty id in list");
             }
         }
+        return request;
+    }
 
-        MultiGetResponse responses = null;
-        if (! request.getItems().isEmpty()) {
-            responses =
-                client().mget(request, requestOptions());
-        }
-
-        final Map<String, S> answerMap;
-        if (responses != null && responses.iterator().hasNext()) {
-            //List<T> answer = new ArrayList<>(responses.getResponses().length); // ES v > 0.20
-            answerMap = new HashMap<>(responses.getResponses().length);
-            for (MultiGetItemResponse response : responses) {
-                if (response.isFailed()) {
-                    if (response.getFailure() != null) {
-                        log.error("{}", response.getFailure().getMessage(), response.getFailure().getFailure());
-                    } else {
-                        log.error("{}", response);
-                    }
+    private <S extends T> void loadAllResponses(
+        @NonNull MultiGetResponse responses,
+        @NonNull Class<S> clazz,
+        @NonNull String indexName,
+        @NonNull Map<String, S> answerMap,
+        boolean cacheable) {
+        final NearCache<T> cache = cacheable ? nearCache : null;
+        for (MultiGetItemResponse response : responses) {
+            if (response.isFailed()) {
+                if (response.getFailure() != null) {
+                    log.error("{}", response.getFailure().getMessage(), response.getFailure().getFailure());
                 } else {
-                    if (response.getResponse().isExists()) {
-                        try {
-                            S item = LENIENT.readValue(response.getResponse().getSourceAsString(), clazz);
-                            answerMap.put(response.getId(), item);
-                        } catch (IllegalArgumentException iae) {
-                            log.warn(iae.getMessage());
-                        } catch (JsonProcessingException e) {
-                            log.error(e.getMessage(), e);
+                    log.error("{}", response);
+                }
+            } else {
+                if (response.getResponse().isExists()) {
+                    try {
+                        S item = readSource(response.getResponse().getSourceAsBytesRef(), clazz);
+                        answerMap.put(response.getId(), item);
+                        if (cache != null) {
+                            cache.put(indexName, response.getId(), item);
                         }
-                    } else {
-                        log.debug("{}", response);
+                    } catch (IllegalArgumentException iae) {
+                        log.warn(iae.getMessage());
+                    } catch (IOException e) {
+                        log.error(e.getMessage(), e);
+                    }
+                } else {
+                    log.debug("{}", response);
+                    if (cache != null) {
+                        cache.put(indexName, response.getId(), null);
                     }
                 }
             }
-        } else {
-            // no requests done
-            answerMap = new HashMap<>();
         }
+    }
+
+    private static <S> List<Optional<S>> loadAllAnswer(
+        @NonNull Map<String, S> answerMap,
+        @NonNull String... ids) {
         List<Optional<S>> answer = new ArrayList<>(ids.length);
         for (String id : ids) {
             S object = answerMap.get(id);
@@ -287,22 +1072,294 @@ public abstract class AbstractESRepository<T> {
         return answer;
     }
 
+    /**
+     * Like {@link #searchAsync(SearchRequest)}, recording the round trip with the given timer.
+     * @since 8.14
+     */
+    protected CompletableFuture<SearchResponse> searchAsync(@NonNull SearchRequest request, @NonNull RepositoryTimer timer) {
+        return searchAsync(request, timer, () -> "");
+    }
+
+    /**
+     * Like {@link #searchAsync(SearchRequest)}, {@link #guardedAsync(String, Supplier) guarded} for the method of the timer, recording the round trip with the given timer, and checking whether it was a {@link SlowQueryLog slow query}.
+     * @since 8.14
+     */
+    protected CompletableFuture<SearchResponse> searchAsync(@NonNull SearchRequest request, @NonNull RepositoryTimer timer, @NonNull Supplier<String> context) {
+        final RepositoryTimer offThread = timer.withoutServerTiming();
+        final long start = System.nanoTime();
+        return guardedAsync(timer.getMethod(), () -> searchAsync(request))
+            .whenComplete((response, t) -> {
+                if (response != null) {
+                    final Duration roundTrip = Duration.ofNanos(System.nanoTime() - start);
+                    offThread.recordRoundTrip(roundTrip, Duration.ofMillis(response.getTook().getMillis()));
+                    slowQueryLog.check(offThread.getMethod(), request, roundTrip, context, this::searchAsync);
+                }
+            });
+    }
+
+    /**
+     * Executes a search without blocking the calling thread. Cancelling the resulting future cancels the request.
+     * @since 8.14
+     */
+    protected CompletableFuture<SearchResponse> searchAsync(@NonNull SearchRequest request) {
+        final CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        final Cancellable cancellable = client().searchAsync(request, requestOptions(), ESUtils.actionListener(future));
+        future.whenComplete((r, t) -> {
+            if (future.isCancelled()) {
+                cancellable.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Executes a multi get without blocking the calling thread. Cancelling the resulting future cancels the request.
+     * @since 8.14
+     */
+    protected CompletableFuture<MultiGetResponse> mgetAsync(@NonNull MultiGetRequest request) {
+        final CompletableFuture<MultiGetResponse> future = new CompletableFuture<>();
+        final Cancellable cancellable = client().mgetAsync(request, requestOptions(), ESUtils.actionListener(future));
+        future.whenComplete((r, t) -> {
+            if (future.isCancelled()) {
+                cancellable.cancel();
+            }
+        });
+        return future;
+    }
+
+
+    /**
+     * Prepares a {@link SearchRequest} for cursor based paging. This uses {@code search_after} on a point in time, so the costs of a page does not depend on its depth.
+     * <p>
+     * If the cursor is {@code null} a new point in time is opened on the given indices.
+     *
+     * @param tieBreaker A unique field that is added as last sort, to make the sort order total. May be {@code null} if the sort already is.
+     * @since 8.14
+     */
+    protected SearchRequest cursorSearchRequest(
+        @NonNull SearchSourceBuilder source,
+        @Nullable SearchCursor cursor,
+        @Nullable String tieBreaker,
+        @NonNull String... indexNames) throws IOException {
+        final String pointInTimeId;
+        if (cursor == null) {
+            OpenPointInTimeRequest open = new OpenPointInTimeRequest(indexNames)
+                .keepAlive(TimeValue.timeValueMillis(pointInTimeKeepAlive.toMillis()));
+            pointInTimeId = client().openPointInTime(open, requestOptions()).getPointInTimeId();
+        } else {
+            pointInTimeId = cursor.getPointInTimeId();
+            source.searchAfter(cursor.getSearchAfter());
+        }
+        source.pointInTimeBuilder(
+            new PointInTimeBuilder(pointInTimeId)
+                .setKeepAlive(TimeValue.timeValueMillis(pointInTimeKeepAlive.toMillis()))
+        );
+        if (tieBreaker != null) {
+            source.sort(tieBreaker, SortOrder.ASC);
+        }
+        // indices are implicit in the point in time
+        return new SearchRequest().source(source);
+    }
+
+    /**
+     * Determines the cursor for the next page after a search created with {@link #cursorSearchRequest(SearchSourceBuilder, SearchCursor, String, String...)}. If there is no next page, the point in time is closed.
+     * @param search Identifies the search (see {@link SearchCursor#search(String...)})
+     * @return The cursor for the next page, or {@code null} if there are no more results
+     * @since 8.14
+     */
+    @Nullable
+    protected SearchCursor nextCursor(@NonNull SearchResponse response, int size, @NonNull String search) {
+        final SearchHit[] hits = response.getHits().getHits();
+        final String pointInTimeId = response.pointInTimeId();
+        if (hits.length == 0 || hits.length < size) {
+            closePointInTime(pointInTimeId);
+            return null;
+        }
+        return new SearchCursor(pointInTimeId, hits[hits.length - 1].getSortValues(), search);
+    }
+
+    protected void closePointInTime(@Nullable String pointInTimeId) {
+        if (pointInTimeId == null) {
+            return;
+        }
+        try {
+            client().closePointInTime(new ClosePointInTimeRequest(pointInTimeId), requestOptions());
+        } catch (IOException | ElasticsearchException e) {
+            log.warn("Could not close point in time {}: {}", pointInTimeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Iterates all results of a search, page by page, with {@code search_after} on a point in time. Unlike a scroll, this keeps no state on the cluster but the point in time, which is closed when the iterator is exhausted or closed. If the point in time expires between two pages, a new one is opened, and iteration continues after the last hit.
+     *
+     * @param source The search, which must have a total sort order, and a size (the page size)
+     * @param searchAfter The sort values after which to start, or {@code null} to start at the beginning
+     * @param adapter Converts every hit
+     * @since 8.14
+     */
+    protected <E> CloseableIterator<E> pointInTimeIterator(
+        @NonNull String method,
+        @NonNull SearchSourceBuilder source,
+        Object @Nullable[] searchAfter,
+        @NonNull Function<SearchHit, E> adapter,
+        @NonNull String... indexNames) {
+        return new PointInTimeIterator<>(method, source, searchAfter, adapter, indexNames);
+    }
+
+    private class PointInTimeIterator<E> implements CloseableIterator<E> {
+        private final String method;
+        private final SearchSourceBuilder source;
+        private final Function<SearchHit, E> adapter;
+        private final String[] indexNames;
+
+        private Object[] searchAfter;
+        private String pointInTimeId;
+        private Iterator<SearchHit> page = Collections.emptyIterator();
+        private boolean lastPage = false;
+
+        PointInTimeIterator(String method, SearchSourceBuilder source, Object[] searchAfter, Function<SearchHit, E> adapter, String[] indexNames) {
+            this.method = method;
+            this.source = source;
+            this.searchAfter = searchAfter;
+            this.adapter = adapter;
+            this.indexNames = indexNames;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (! page.hasNext() && ! lastPage) {
+                try {
+                    nextPage();
+                } catch (IOException e) {
+                    close();
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if (! hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return adapter.apply(page.next());
+        }
 
+        private void nextPage() throws IOException {
+            final TimeValue keepAlive = TimeValue.timeValueMillis(pointInTimeKeepAlive.toMillis());
+            if (pointInTimeId == null) {
+                pointInTimeId = client().openPointInTime(new OpenPointInTimeRequest(indexNames).keepAlive(keepAlive), requestOptions()).getPointInTimeId();
+            }
+            source.pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId).setKeepAlive(keepAlive));
+            if (searchAfter != null) {
+                source.searchAfter(searchAfter);
+            }
+            SearchResponse response;
+            try {
+                response = search(new SearchRequest().source(source), timer(method, indexNames));
+            } catch (ElasticsearchStatusException e) {
+                if (e.status() != RestStatus.NOT_FOUND) {
+                    throw e;
+                }
+                // The point in time expired (e.g. the consumer was slower than the keep alive). The sort order is total, so we can just continue after the last hit on a new one.
+                log.warn("{}: {}. Continuing on a new point in time", this, e.getMessage());
+                pointInTimeId = client().openPointInTime(new OpenPointInTimeRequest(indexNames).keepAlive(keepAlive), requestOptions()).getPointInTimeId();
+                source.pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId).setKeepAlive(keepAlive));
+                response = search(new SearchRequest().source(source), timer(method, indexNames));
+            }
+            if (response.pointInTimeId() != null) {
+                // the id may change between requests
+                pointInTimeId = response.pointInTimeId();
+            }
+            final SearchHit[] hits = response.getHits().getHits();
+            if (hits.length < Math.max(source.size(), 1)) {
+                close();
+            }
+            if (hits.length > 0) {
+                searchAfter = hits[hits.length - 1].getSortValues();
+            }
+            page = Arrays.asList(hits).iterator();
+        }
+
+        @Override
+        public void close() {
+            lastPage = true;
+            page = Collections.emptyIterator();
+            final String id = pointInTimeId;
+            pointInTimeId = null;
+            closePointInTime(id);
+        }
+
+        @Override
+        public String toString() {
+            return "PointInTimeIterator{" + method + ", after=" + Arrays.toString(searchAfter) + "}";
+        }
+    }
+
+
+    /**
+     * Sets {@code from} and {@code size} on the search.
+     * <p>
+     * If {@code max} is {@code null}, everything is requested. This used to be implemented by first counting (with a separate search), but the main search can just be done with a size of {@link #getMaxResultWindow()}
+     * and obtain the exact total from the same search by tracking all total hits. Like before, this fails if not everything fits in the result window, see {@link #checkResultWindow(long, Integer, SearchHits)}.
+     * @throws IllegalArgumentException If {@code max} is {@code null} and {@code offset} is not smaller than the {@link #getMaxResultWindow() max result window}
+     */
     protected boolean handlePaging(
         long offset,
         @Nullable Integer max,
-        @NonNull SearchSourceBuilder searchBuilder,
-        @NonNull QueryBuilder queryBuilder,
-        @NonNull String... indexNames) throws IOException {
+        @NonNull SearchSourceBuilder searchBuilder) {
         if (offset != 0) {
             searchBuilder.from((int) offset);
         }
         if (max == null) {
-            max = (int) executeCount(queryBuilder, indexNames).value;
+            if (offset >= maxResultWindow) {
+                throw resultWindowTooLarge(offset);
+            }
+            max = maxResultWindow - (int) offset;
+            searchBuilder.trackTotalHits(true);
         }
         return handleMaxZero(max, searchBuilder::size);
     }
 
+    /**
+     * If everything was requested (see {@link #handlePaging(long, Integer, SearchSourceBuilder)}), checks whether everything was returned too. Hits beyond the {@link #getMaxResultWindow() max result window} are not silently dropped.
+     * @throws IllegalArgumentException If {@code max} is {@code null} and there are more hits than fitted in the max result window, or if that can't be determined because the total is only a lower bound
+     * @since 8.14
+     */
+    protected void checkResultWindow(long offset, @Nullable Integer max, @NonNull SearchHits hits) {
+        final TotalHits total = hits.getTotalHits();
+        if (max == null && total != null && (offset + hits.getHits().length < total.value || total.relation == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO)) {
+            throw resultWindowTooLarge(offset + total.value);
+        }
+    }
+
+    private IllegalArgumentException resultWindowTooLarge(long required) {
+        return new IllegalArgumentException("Result window is too large, offset + max must be less than or equal to " + maxResultWindow + " but was " + required + ". Use a max, or cursor based paging");
+    }
+
+    /**
+     * Applies the configured {@link #getTrackTotalHitsUpTo() accuracy budget} for the total of the given endpoint. If the total is larger, elasticsearch can stop counting early,
+     * and the resulting {@link Result.Total} will be {@link Result.TotalQualifier#GREATER_THAN_OR_EQUAL_TO}.
+     * <p>
+     * If nothing is configured for the endpoint (nor a default with key {@code *}), elasticsearch defaults are used. If the total must be exact already (because everything was requested, see {@link #handlePaging(long, Integer, SearchSourceBuilder)}), nothing is changed.
+     * @param endpoint Normally the name of the repository method, e.g. {@code find}.
+     * @since 8.14
+     */
+    protected void trackTotalHits(@NonNull SearchSourceBuilder searchBuilder, @NonNull String endpoint) {
+        if (Objects.equals(searchBuilder.trackTotalHitsUpTo(), SearchContext.TRACK_TOTAL_HITS_ACCURATE)) {
+            return;
+        }
+        Integer upTo = trackTotalHitsUpTo.getOrDefault(endpoint, trackTotalHitsUpTo.get(DEFAULT_ENDPOINT));
+        if (upTo != null) {
+            if (upTo < 0) {
+                searchBuilder.trackTotalHits(true);
+            } else {
+                searchBuilder.trackTotalHitsUpTo(upTo);
+            }
+        }
+    }
+
     protected boolean handleMaxZero(Integer max,  Consumer<Integer> setSize) {
          boolean maxIsZero = false;
         if (max != null) {
@@ -366,16 +1423,36 @@ public abstract class AbstractESRepository<T> {
         }
     }
 
+    /**
+     * Binds the source of the hit directly to an object of the given class. No intermediate copy or {@link JsonNode} tree is made.
+     */
     protected final <S extends T> S getObject(@NonNull SearchHit hit, @NonNull Class<S> clazz) throws IOException {
-        return getObject(LENIENT.readTree(hit.getSourceRef().toBytesRef().bytes), clazz);
+        return readSource(hit.getSourceRef(), clazz);
     }
 
     protected final <S extends T> S getObject(@NonNull JsonNode source, @NonNull Class<S> clazz) throws IOException {
-        return LENIENT
-            .readerFor(clazz)
+        return readerFor(clazz)
             .readValue(source);
     }
 
+    /**
+     * The (lenient) {@link ObjectReader} for the given class. These are cached, since creating them is relatively expensive.
+     * @since 8.14
+     */
+    protected static ObjectReader readerFor(@NonNull Class<?> clazz) {
+        return READERS.computeIfAbsent(clazz, c -> LENIENT.readerFor(c));
+    }
+
+    /**
+     * Reads an elasticsearch source (of a search hit or a get response) in one pass.
+     * @since 8.14
+     */
+    public static <S> S readSource(@NonNull BytesReference source, @NonNull Class<S> clazz) throws IOException {
+        final BytesRef bytesRef = source.toBytesRef();
+        return readerFor(clazz)
+            .readValue(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+    }
+
     protected static <S> String[] filterFields(
         @NonNull S mo,
         @NonNull String[] fields,
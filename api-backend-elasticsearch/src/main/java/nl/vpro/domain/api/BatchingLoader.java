@@ -0,0 +1,182 @@
+package nl.vpro.domain.api;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Collects individual load requests, and executes them together. A batch is executed when the first request of it is {@link #getWindow() window} old, or when it reached {@link #getMaxBatchSize() the maximal size}, whatever comes first.
+ * <p>
+ * This makes sure that many concurrent loads of single objects (from different request threads) result in only a few multi get requests to elasticsearch.
+ * <p>
+ * The timed flushes of all instances are scheduled on one shared daemon thread, which only starts the batches on the {@code executor}.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@Log4j2
+public class BatchingLoader<V> implements AutoCloseable {
+
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Function<List<String>, Map<String, V>> batchLoader;
+    private final Executor executor;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "BatchingLoader-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private List<Pending<V>> pending = new ArrayList<>();
+
+    /**
+     * Incremented every time the pending requests are taken as a batch, so a timed flush can recognize that its batch was already sent
+     */
+    private long generation = 0;
+
+    private ScheduledFuture<?> scheduledFlush = null;
+
+    /**
+     * @param batchLoader Loads a list of (distinct) ids at once. The resulting map need not contain ids that were not found.
+     * @param executor The executor on which the batches are executed
+     */
+    public BatchingLoader(
+        @NonNull Duration window,
+        int maxBatchSize,
+        @NonNull Function<List<String>, Map<String, V>> batchLoader,
+        @NonNull Executor executor) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive (" + maxBatchSize + ")");
+        }
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchLoader = batchLoader;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<V> load(@NonNull String id) {
+        loads.increment();
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final List<Pending<V>> full;
+        synchronized (this) {
+            pending.add(new Pending<>(id, future));
+            if (pending.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else {
+                full = null;
+                if (pending.size() == 1) {
+                    final long scheduledGeneration = generation;
+                    scheduledFlush = SCHEDULER.schedule(() -> flush(scheduledGeneration), window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (full != null) {
+            executor.execute(() -> execute(full));
+        }
+        return future;
+    }
+
+    /**
+     * Executes the currently pending requests now.
+     */
+    public void flush() {
+        final List<Pending<V>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = takeBatch();
+        }
+        executor.execute(() -> execute(batch));
+    }
+
+    /**
+     * The timed flush. Does nothing if the batch it was scheduled for was already sent (because it got full).
+     */
+    private void flush(long scheduledGeneration) {
+        final List<Pending<V>> batch;
+        synchronized (this) {
+            if (generation != scheduledGeneration || pending.isEmpty()) {
+                return;
+            }
+            batch = takeBatch();
+        }
+        executor.execute(() -> execute(batch));
+    }
+
+    /**
+     * Must be called while holding the lock
+     */
+    private List<Pending<V>> takeBatch() {
+        final List<Pending<V>> batch = pending;
+        pending = new ArrayList<>();
+        generation++;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    synchronized boolean isFlushScheduled() {
+        return scheduledFlush != null;
+    }
+
+    private void execute(List<Pending<V>> batch) {
+        batches.increment();
+        final Set<String> ids = new LinkedHashSet<>();
+        for (Pending<V> p : batch) {
+            ids.add(p.id());
+        }
+        try {
+            final Map<String, V> result = batchLoader.apply(new ArrayList<>(ids));
+            log.debug("Loaded {} ids for {} requests", ids.size(), batch.size());
+            for (Pending<V> p : batch) {
+                p.future().complete(result.get(p.id()));
+            }
+        } catch (Throwable t) {
+            for (Pending<V> p : batch) {
+                p.future().completeExceptionally(t);
+            }
+        }
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchingLoader{window=" + window + ", maxBatchSize=" + maxBatchSize + ", loads=" + getLoadCount() + ", batches=" + getBatchCount() + "}";
+    }
+
+    private record Pending<V>(String id, CompletableFuture<V> future) {
+    }
+}
@@ -0,0 +1,132 @@
+package nl.vpro.domain.api;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Limits the number of concurrent calls to elasticsearch per repository method, so that one kind of expensive call (e.g. iterating) cannot use up all threads and connections.
+ * <p>
+ * The limits are configured like {@code iterate=4,find=50,*=100}, where {@code *} is the limit for every method not mentioned explicitly. Each method gets its own bulkhead, so also methods without an explicit limit cannot starve each other. A call that cannot get a permit within {@link #getMaxWait()} is rejected.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class Bulkheads {
+
+    private static final String DEFAULT = "*";
+
+    private final Map<String, Integer> limits = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * How long a call may wait for a permit
+     */
+    @Getter
+    @Setter
+    private Duration maxWait = Duration.ofMillis(100);
+
+    /**
+     * @return A permit, which must be closed after the call, or {@code null} if no permit could be obtained in time.
+     */
+    @Nullable
+    public Permit tryAcquire(@NonNull String method) throws InterruptedException {
+        final Bulkhead bulkhead = bulkhead(method);
+        if (bulkhead == null) {
+            return Permit.NONE;
+        }
+        if (! bulkhead.semaphore.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+            bulkhead.rejected.increment();
+            return null;
+        }
+        return bulkhead.semaphore::release;
+    }
+
+    @Nullable
+    private Bulkhead bulkhead(String method) {
+        final Integer limit = limits.getOrDefault(method, limits.get(DEFAULT));
+        if (limit == null || limit <= 0) {
+            return null;
+        }
+        return bulkheads.computeIfAbsent(method, k -> new Bulkhead(limit));
+    }
+
+    /**
+     * @param limits E.g. {@code iterate=4,*=100}. Methods without limit (if there is no {@code *}) are not limited.
+     */
+    public void setLimits(@Nullable String limits) {
+        final Map<String, Integer> parsed = new HashMap<>();
+        for (String entry : StringUtils.split(limits == null ? "" : limits, ",")) {
+            String[] keyValue = entry.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Could not parse " + entry + " (expected <method>=<limit>)");
+            }
+            parsed.put(keyValue[0].trim(), Integer.parseInt(keyValue[1].trim()));
+        }
+        this.limits.clear();
+        this.limits.putAll(parsed);
+        // in flight calls still release their permits to the old semaphores
+        this.bulkheads.clear();
+    }
+
+    public String getLimits() {
+        return limits.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(e -> e.getKey() + "=" + e.getValue())
+            .collect(Collectors.joining(","));
+    }
+
+    /**
+     * @return Per method, the number of calls that are currently executing
+     */
+    public Map<String, Integer> getInUse() {
+        final Map<String, Integer> result = new TreeMap<>();
+        bulkheads.forEach((k, b) -> result.put(k, b.limit - b.semaphore.availablePermits()));
+        return result;
+    }
+
+    /**
+     * @return Per method, the number of calls that were rejected
+     */
+    public Map<String, Long> getRejected() {
+        final Map<String, Long> result = new TreeMap<>();
+        bulkheads.forEach((k, b) -> result.put(k, b.rejected.sum()));
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        Permit NONE = () -> {};
+
+        @Override
+        void close();
+    }
+
+    private static class Bulkhead {
+        final int limit;
+        final Semaphore semaphore;
+        final LongAdder rejected = new LongAdder();
+
+        Bulkhead(int limit) {
+            this.limit = limit;
+            this.semaphore = new Semaphore(limit);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkheads{" + getLimits() + "}";
+    }
+}
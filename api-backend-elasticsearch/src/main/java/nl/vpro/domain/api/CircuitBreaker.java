@@ -0,0 +1,199 @@
+package nl.vpro.domain.api;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+
+/**
+ * A circuit breaker for calls to elasticsearch. If too many of them {@link #isTripping(Throwable) fail because of overload} within a certain period, the breaker opens, and calls are refused (without bothering elasticsearch) for a while.
+ * <p>
+ * After that period, one trial call is allowed (the breaker is 'half open'). If that one succeeds the breaker closes again, otherwise it stays open for another period. Only the outcome of that trial call counts then; calls that were started before the breaker opened can't close it.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@Log4j2
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final Clock clock;
+
+    /**
+     * This many failures within {@link #getFailureWindow()} trip the breaker
+     */
+    @Getter
+    @Setter
+    private int failureThreshold = 5;
+
+    @Getter
+    @Setter
+    private Duration failureWindow = Duration.ofSeconds(10);
+
+    /**
+     * How long the breaker stays open before a trial call is allowed
+     */
+    @Getter
+    @Setter
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    @Getter
+    private State state = State.CLOSED;
+
+    private final Deque<Instant> failures = new ArrayDeque<>();
+    private Instant openedAt = null;
+    private Permit trial = null;
+
+    private final LongAdder trips = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+
+    public CircuitBreaker(@NonNull String name) {
+        this(name, Clock.systemUTC());
+    }
+
+    CircuitBreaker(@NonNull String name, @NonNull Clock clock) {
+        this.name = name;
+        this.clock = clock;
+    }
+
+    /**
+     * Whether a call may be done now.
+     * @return {@code null} if the call is refused. Otherwise, a permit on which one of {@link Permit#onSuccess()}, {@link Permit#onFailure(Throwable)} must be called afterward.
+     */
+    @Nullable
+    public synchronized Permit tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return new Permit();
+            case OPEN:
+                if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                    refused.increment();
+                    return null;
+                }
+                log.info("{}: half open, allowing a trial request", name);
+                state = State.HALF_OPEN;
+                trial = new Permit();
+                return trial;
+            case HALF_OPEN:
+            default:
+                refused.increment();
+                return null;
+        }
+    }
+
+    private synchronized void onSuccess(Permit permit) {
+        if (permit == trial) {
+            log.info("{}: closed again", name);
+            state = State.CLOSED;
+            failures.clear();
+            trial = null;
+        }
+        // a success of a call that was started before the breaker opened doesn't prove anything
+    }
+
+    /**
+     * Registers a failed call. Only failures which are {@link #isTripping(Throwable) caused by overload} count. Others count as a success; elasticsearch did answer after all.
+     */
+    private synchronized void onFailure(Permit permit, Throwable throwable) {
+        if (! isTripping(throwable)) {
+            onSuccess(permit);
+            return;
+        }
+        final Instant now = clock.instant();
+        if (permit == trial) {
+            trial = null;
+            open(now);
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+        failures.addLast(now);
+        while (! failures.isEmpty() && failures.peekFirst().isBefore(now.minus(failureWindow))) {
+            failures.removeFirst();
+        }
+        if (failures.size() >= failureThreshold) {
+            open(now);
+        }
+    }
+
+    private void open(Instant now) {
+        log.warn("{}: open for {} ({} failures within {})", name, openDuration, failures.size(), failureWindow);
+        state = State.OPEN;
+        openedAt = now;
+        failures.clear();
+        trips.increment();
+    }
+
+    public long getTripCount() {
+        return trips.sum();
+    }
+
+    /**
+     * @return The number of calls that were refused because the breaker was open
+     */
+    public long getRefusedCount() {
+        return refused.sum();
+    }
+
+    /**
+     * Timeouts, and {@link RestStatus#TOO_MANY_REQUESTS 429} or {@link RestStatus#SERVICE_UNAVAILABLE 503} responses of elasticsearch indicate that it is overloaded
+     */
+    public static boolean isTripping(Throwable throwable) {
+        Throwable t = throwable;
+        while (t != null) {
+            if (t instanceof ElasticsearchStatusException statusException) {
+                RestStatus status = statusException.status();
+                if (status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE) {
+                    return true;
+                }
+            }
+            if (t instanceof InterruptedIOException || t instanceof TimeoutException) {
+                return true;
+            }
+            t = t.getCause() == t ? null : t.getCause();
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{" + name + " " + state + "}";
+    }
+
+    /**
+     * The permission to do one call, as given by {@link #tryAcquire()}. Its outcome must be reported exactly once.
+     */
+    public final class Permit {
+
+        private Permit() {
+        }
+
+        public void onSuccess() {
+            CircuitBreaker.this.onSuccess(this);
+        }
+
+        public void onFailure(@NonNull Throwable throwable) {
+            CircuitBreaker.this.onFailure(this, throwable);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package nl.vpro.domain.api;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A result of a cursor based search (see {@link SearchCursor}), together with the cursor to obtain the next page.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@Getter
+@ToString
+public class CursoredResult<R> {
+
+    private final R result;
+
+    /**
+     * The (opaque) cursor to get the next page with, or {@code null} if this was the last page.
+     */
+    @Nullable
+    private final String nextCursor;
+
+    public CursoredResult(@NonNull R result, @Nullable String nextCursor) {
+        this.result = result;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,260 @@
+package nl.vpro.domain.api;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Hedges requests: if a request did not answer within the (rolling) 95th percentile of the latency of similar requests, a duplicate is sent (with a different {@code preference}, so normally to other shard copies). The first response wins, the other request is cancelled.
+ * <p>
+ * Hedging is limited by a {@link #getBudget() budget}: only that fraction of the requests may be duplicated, so a slow cluster cannot be loaded much more because of it.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@Log4j2
+public class Hedger implements AutoCloseable {
+
+    /**
+     * Prefix of the {@code preference} of the duplicate request. Preferences starting with an underscore are reserved by elasticsearch, so this is a custom string.
+     */
+    static final String HEDGE_PREFERENCE = "hedge-";
+
+    private static final int WINDOW_SIZE = 200;
+
+    /**
+     * Maximal number of hedges that can be saved up
+     */
+    private static final double MAX_TOKENS = 10;
+
+    @Getter
+    @Setter
+    private boolean enabled = false;
+
+    /**
+     * The fraction of requests that may be hedged
+     */
+    @Getter
+    @Setter
+    private double budget = 0.05;
+
+    /**
+     * Before this many latencies were recorded for a certain key, it is not hedged
+     */
+    @Getter
+    @Setter
+    private int minSamples = 20;
+
+    /**
+     * Never hedge earlier than this
+     */
+    @Getter
+    @Setter
+    private Duration minDelay = Duration.ofMillis(10);
+
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Hedger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private double tokens = 0;
+
+    /**
+     * Executes a request, and hedges it if it takes too long.
+     * @param key Latencies are tracked per key (e.g. repository method and index)
+     * @param call Executes the request. The argument is the preference to use ({@code null} for the primary request)
+     */
+    public <R> CompletableFuture<R> execute(@NonNull String key, @NonNull Function<@Nullable String, CompletableFuture<R>> call) {
+        final long start = System.nanoTime();
+        earn();
+        final CompletableFuture<R> primary = call.apply(null);
+        final Duration delay = enabled ? delay(key) : null;
+        if (delay == null) {
+            return primary.whenComplete((r, t) -> {
+                if (t == null) {
+                    record(key, Duration.ofNanos(System.nanoTime() - start));
+                }
+            });
+        }
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        final AtomicReference<CompletableFuture<R>> hedge = new AtomicReference<>();
+        final AtomicInteger outstanding = new AtomicInteger(1);
+        // the first failure, to fail with if no request is outstanding anymore
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        final BiConsumer<R, Throwable> onPrimary = (r, t) -> {
+            if (t == null) {
+                if (result.complete(r)) {
+                    record(key, Duration.ofNanos(System.nanoTime() - start));
+                    cancel(hedge.get());
+                }
+            } else {
+                failure.compareAndSet(null, t);
+                if (outstanding.decrementAndGet() == 0) {
+                    result.completeExceptionally(failure.get());
+                }
+            }
+        };
+        primary.whenComplete(onPrimary);
+
+        final ScheduledFuture<?> scheduled = scheduler.schedule(() -> {
+            outstanding.incrementAndGet();
+            if (result.isDone() || ! spend()) {
+                // if the primary failed meanwhile, it left completing the result to us
+                if (outstanding.decrementAndGet() == 0) {
+                    result.completeExceptionally(failure.get());
+                }
+                return;
+            }
+            hedged.increment();
+            log.debug("Hedging {} after {}", key, delay);
+            final CompletableFuture<R> duplicate = call.apply(HEDGE_PREFERENCE + ThreadLocalRandom.current().nextInt(1000));
+            hedge.set(duplicate);
+            duplicate.whenComplete((r, t) -> {
+                if (t == null) {
+                    if (result.complete(r)) {
+                        hedgeWins.increment();
+                        record(key, Duration.ofNanos(System.nanoTime() - start));
+                        cancel(primary);
+                    }
+                } else {
+                    failure.compareAndSet(null, t);
+                    if (outstanding.decrementAndGet() == 0) {
+                        result.completeExceptionally(failure.get());
+                    }
+                }
+            });
+            if (result.isDone()) {
+                cancel(duplicate);
+            }
+        }, delay.toNanos(), TimeUnit.NANOSECONDS);
+        result.whenComplete((r, t) -> scheduled.cancel(false));
+        return result;
+    }
+
+    /**
+     * Records a latency for the given key, for requests that were not done via {@link #execute(String, Function)}
+     */
+    public void record(@NonNull String key, @NonNull Duration duration) {
+        windows.computeIfAbsent(key, k -> new LatencyWindow(WINDOW_SIZE)).add(duration.toNanos());
+    }
+
+    /**
+     * @return The current 95th percentile for the given key, or {@code null} if not enough latencies were recorded yet
+     */
+    @Nullable
+    public Duration p95(@NonNull String key) {
+        final LatencyWindow window = windows.get(key);
+        if (window == null || window.count() < minSamples) {
+            return null;
+        }
+        return Duration.ofNanos(window.percentile(0.95));
+    }
+
+    public Map<String, Duration> getP95s() {
+        final Map<String, Duration> result = new TreeMap<>();
+        for (String key : windows.keySet()) {
+            Duration p95 = p95(key);
+            if (p95 != null) {
+                result.put(key, p95);
+            }
+        }
+        return result;
+    }
+
+    public long getHedgedCount() {
+        return hedged.sum();
+    }
+
+    /**
+     * @return How often the duplicate request answered first
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    @Nullable
+    private Duration delay(String key) {
+        final Duration p95 = p95(key);
+        if (p95 == null) {
+            return null;
+        }
+        return p95.compareTo(minDelay) < 0 ? minDelay : p95;
+    }
+
+    private synchronized void earn() {
+        tokens = Math.min(MAX_TOKENS, tokens + budget);
+    }
+
+    private synchronized boolean spend() {
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    private static void cancel(@Nullable CompletableFuture<?> future) {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * The last {@code size} latencies
+     */
+    static class LatencyWindow {
+        private final long[] samples;
+        private int position = 0;
+        private int count = 0;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void add(long nanos) {
+            samples[position] = nanos;
+            position = (position + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized long percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            final long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(p * count) - 1)];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Hedger{enabled=" + enabled + ", budget=" + budget + ", hedged=" + getHedgedCount() + ", wins=" + getHedgeWinCount() + "}";
+    }
+}
@@ -0,0 +1,68 @@
+package nl.vpro.domain.api;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.google.common.cache.*;
+
+/**
+ * A size bounded, in-process cache for objects loaded by id from elasticsearch (see {@link AbstractESRepository#load(String, Class)}).
+ * <p>
+ * Absence is cached too (as {@link Optional#empty()}), so ids that don't exist don't hit ES either. Entries are invalidated explicitly
+ * (e.g. by tailing the publish dates of the index), and expire after a configured duration anyway.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class NearCache<T> {
+
+    private final Cache<String, Optional<T>> cache;
+
+    public NearCache(long maximumSize, @NonNull Duration expireAfterWrite) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * @return {@code null} if nothing is cached for the given id. An empty optional if it was cached that it does not exist.
+     */
+    @Nullable
+    public Optional<T> getIfPresent(@NonNull String indexName, @NonNull String id) {
+        return cache.getIfPresent(key(indexName, id));
+    }
+
+    public void put(@NonNull String indexName, @NonNull String id, @Nullable T value) {
+        cache.put(key(indexName, id), Optional.ofNullable(value));
+    }
+
+    public void invalidate(@NonNull String indexName, @NonNull String id) {
+        cache.invalidate(key(indexName, id));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static String key(String indexName, String id) {
+        return indexName + "/" + id;
+    }
+
+    @Override
+    public String toString() {
+        return "NearCache{size=" + size() + ", " + stats() + "}";
+    }
+}
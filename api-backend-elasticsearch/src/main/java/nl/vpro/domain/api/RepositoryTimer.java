@@ -0,0 +1,144 @@
+package nl.vpro.domain.api;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import nl.vpro.poms.shared.ExtraHeaders;
+
+/**
+ * Records how long the several phases of one repository call took. Every phase is recorded to a micrometer {@link Timer} (tagged with repository, method, index and phase), and optionally also as a {@value #SERVER_TIMING} response header.
+ * <p>
+ * The phases are:
+ * <dl>
+ *     <dt>{@value #ES}</dt><dd>Execution time in elasticsearch itself (as reported by {@code took})</dd>
+ *     <dt>{@value #NETWORK}</dt><dd>The rest of the round trip to elasticsearch</dd>
+ *     <dt>{@value #DECODE}</dt><dd>Binding the json of the hits to objects</dd>
+ *     <dt>{@value #FACETS}</dt><dd>Extracting the facet results from the aggregations</dd>
+ *     <dt>{@value #POSTFILTER}</dt><dd>Scrolling and filtering results which could not be filtered by elasticsearch itself</dd>
+ * </dl>
+ * <p>
+ * It holds no state of one call, so it can be reused for all calls of the same method on the same index. The micrometer timers are registered only once per phase.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class RepositoryTimer {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    public static final String METER = "api.repository";
+
+    public static final String ES = "es";
+    public static final String NETWORK = "network";
+    public static final String DECODE = "decode";
+    public static final String FACETS = "facets";
+    public static final String POSTFILTER = "postfilter";
+
+    private static final RepositoryTimer DISABLED = new RepositoryTimer(null, "", "", "", false);
+
+    private final MeterRegistry registry;
+    private final String repository;
+    private final String method;
+    private final String index;
+    private final boolean serverTiming;
+    private final Map<String, Timer> timers;
+    private final RepositoryTimer withoutServerTiming;
+
+    RepositoryTimer(
+        @Nullable MeterRegistry registry,
+        @NonNull String repository,
+        @NonNull String method,
+        @NonNull String index,
+        boolean serverTiming) {
+        this(registry, repository, method, index, serverTiming, new ConcurrentHashMap<>());
+    }
+
+    private RepositoryTimer(
+        @Nullable MeterRegistry registry,
+        @NonNull String repository,
+        @NonNull String method,
+        @NonNull String index,
+        boolean serverTiming,
+        @NonNull Map<String, Timer> timers) {
+        this.registry = registry;
+        this.repository = repository;
+        this.method = method;
+        this.index = index;
+        this.serverTiming = serverTiming;
+        this.timers = timers;
+        this.withoutServerTiming = serverTiming ? new RepositoryTimer(registry, repository, method, index, false, timers) : this;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * A timer that records nothing
+     */
+    public static RepositoryTimer disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * A copy of this timer which doesn't produce {@value #SERVER_TIMING} headers. Needed if it is used on other threads than the request thread.
+     */
+    public RepositoryTimer withoutServerTiming() {
+        return withoutServerTiming;
+    }
+
+    public void record(@NonNull String phase, @NonNull Duration duration) {
+        if (registry == null) {
+            return;
+        }
+        timers.computeIfAbsent(phase, p -> Timer.builder(METER)
+            .tag("repository", repository)
+            .tag("method", method)
+            .tag("index", index)
+            .tag("phase", p)
+            .publishPercentileHistogram()
+            .register(registry)
+        ).record(duration);
+        if (serverTiming) {
+            ExtraHeaders.add(SERVER_TIMING, serverTimingValue(method, phase, duration));
+        }
+    }
+
+    /**
+     * Records the round trip to elasticsearch, split up in {@value #ES} and {@value #NETWORK}
+     * @param roundTrip The total time the request took, as measured by the client
+     * @param took The time elasticsearch reported it needed
+     */
+    public void recordRoundTrip(@NonNull Duration roundTrip, @NonNull Duration took) {
+        record(ES, took);
+        final Duration network = roundTrip.minus(took);
+        record(NETWORK, network.isNegative() ? Duration.ZERO : network);
+    }
+
+    public <R> R time(@NonNull String phase, @NonNull Supplier<R> supplier) {
+        final long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(phase, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    static String serverTimingValue(String method, String phase, Duration duration) {
+        return String.format(Locale.US, "%s;desc=\"%s\";dur=%.1f", phase, method, duration.toNanos() / 1_000_000d);
+    }
+
+    @Override
+    public String toString() {
+        return "RepositoryTimer{" + repository + "." + method + " " + index + "}";
+    }
+}
@@ -0,0 +1,108 @@
+package nl.vpro.domain.api;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import nl.vpro.jackson2.Jackson2Mapper;
+
+/**
+ * The state needed to fetch the next page of a search with {@code search_after} over a point in time.
+ * <p>
+ * Clients only see this as an opaque string (see {@link #encode()} and {@link #decode(String, String)}). It is not secret or signed, but it remembers {@link #search(String...) which search} it belongs to, so it can't be used to continue another one.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@Getter
+@EqualsAndHashCode
+public class SearchCursor {
+
+    private static final Jackson2Mapper MAPPER = Jackson2Mapper.getLenientInstance();
+
+    /**
+     * The id of the point in time (PIT) the search is running on
+     */
+    @JsonProperty("pit")
+    private final String pointInTimeId;
+
+    /**
+     * The sort values of the last hit of the previous page
+     */
+    @JsonProperty("after")
+    private final Object[] searchAfter;
+
+    /**
+     * Identifies the search (see {@link #search(String...)})
+     */
+    @JsonProperty("search")
+    private final String search;
+
+    @JsonCreator
+    public SearchCursor(
+        @JsonProperty("pit") @NonNull String pointInTimeId,
+        @JsonProperty("after") @NonNull Object[] searchAfter,
+        @JsonProperty("search") @NonNull String search) {
+        this.pointInTimeId = pointInTimeId;
+        this.searchAfter = searchAfter;
+        this.search = search;
+    }
+
+    /**
+     * @param parts Whatever determines the search and its sort order (e.g. the method, the profile and the form), but not the page
+     * @return A short hash of the parts, to identify a search by
+     */
+    public static String search(@Nullable String... parts) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        for (String part : parts) {
+            hasher.putString(part == null ? "" : part, StandardCharsets.UTF_8);
+            hasher.putByte((byte) 0);
+        }
+        return hasher.hash().toString().substring(0, 16);
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param search The search the cursor must belong to (see {@link #search(String...)})
+     * @throws IllegalArgumentException if the given string is not a valid cursor, or it is one of another search
+     */
+    public static SearchCursor decode(@NonNull String cursor, @NonNull String search) {
+        final SearchCursor result;
+        try {
+            result = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), SearchCursor.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Not a valid cursor " + cursor + ": " + e.getMessage(), e);
+        }
+        if (result == null || result.pointInTimeId == null || result.searchAfter == null || result.search == null) {
+            throw new IllegalArgumentException("Incomplete cursor " + cursor);
+        }
+        if (! result.search.equals(search)) {
+            throw new IllegalArgumentException("The cursor " + cursor + " is not for this search");
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCursor{pit=" + pointInTimeId + ", after=" + Arrays.toString(searchAfter) + ", search=" + search + "}";
+    }
+}
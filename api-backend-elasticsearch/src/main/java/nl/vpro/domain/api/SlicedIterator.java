@@ -0,0 +1,247 @@
+package nl.vpro.domain.api;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import nl.vpro.util.CloseableIterator;
+
+/**
+ * Reads a number of iterators (normally the slices of a sliced scroll) in parallel, every one in its own thread, and with its own bounded buffer.
+ * <p>
+ * Without a comparator the results of the slices are just interleaved, in the order they arrive. With a comparator, every slice is supposed to be sorted by it, and the slices are k-way merged, so that the result is sorted too.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@Log4j2
+public class SlicedIterator<T> implements CloseableIterator<T> {
+
+    private static final Object END = new Object();
+
+    private final List<Slice> slices = new ArrayList<>();
+    private final @Nullable Comparator<? super T> comparator;
+
+    /**
+     * Without comparator all slices write to this one queue
+     */
+    private final @Nullable BlockingQueue<Object> interleaved;
+    private int ended = 0;
+
+    /**
+     * With comparator, the next item of every slice that is not ended
+     */
+    private final @Nullable PriorityQueue<Head> heads;
+    private boolean started = false;
+
+    private volatile boolean closed = false;
+
+    private T next;
+    private Boolean hasNext = null;
+
+    /**
+     * @param slices The number of slices
+     * @param slice Creates the iterator for the slice with the given number (0 to {@code slices - 1})
+     * @param bufferSize The number of items that may be read ahead per slice
+     * @param executor Every slice is read by a task on this executor, so it must not be limited to less than {@code slices} threads.
+     * @param comparator If not {@code null}, the order of all slices, which are then merged
+     */
+    @lombok.Builder
+    private SlicedIterator(
+        int slices,
+        @NonNull IntFunction<CloseableIterator<T>> slice,
+        int bufferSize,
+        @NonNull Executor executor,
+        @Nullable Comparator<? super T> comparator) {
+        if (slices < 1) {
+            throw new IllegalArgumentException("The number of slices must be positive");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer size must be positive");
+        }
+        this.comparator = comparator == null ? null : Comparator.nullsFirst(comparator);
+        this.interleaved = comparator == null ? new ArrayBlockingQueue<>(slices * bufferSize) : null;
+        this.heads = comparator == null ? null : new PriorityQueue<>(slices);
+        for (int i = 0; i < slices; i++) {
+            this.slices.add(new Slice(i, slice, interleaved == null ? new ArrayBlockingQueue<>(bufferSize) : interleaved));
+        }
+        for (Slice s : this.slices) {
+            executor.execute(s);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hasNext == null) {
+            try {
+                findNext();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (! hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = null;
+        return next;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Slice slice : slices) {
+            slice.buffer.clear();
+        }
+    }
+
+    private void findNext() throws InterruptedException {
+        if (closed) {
+            hasNext = false;
+            return;
+        }
+        if (heads == null) {
+            while (ended < slices.size()) {
+                final Object o = unwrap(interleaved.take());
+                if (o == END) {
+                    ended++;
+                } else {
+                    next = cast(o);
+                    hasNext = true;
+                    return;
+                }
+            }
+        } else {
+            if (! started) {
+                for (Slice slice : slices) {
+                    pushHead(slice);
+                }
+                started = true;
+            }
+            final Head head = heads.poll();
+            if (head != null) {
+                next = head.item;
+                hasNext = true;
+                pushHead(head.slice);
+                return;
+            }
+        }
+        hasNext = false;
+    }
+
+    private void pushHead(Slice slice) throws InterruptedException {
+        final Object o = unwrap(slice.buffer.take());
+        if (o != END) {
+            heads.add(new Head(cast(o), slice));
+        }
+    }
+
+    private Object unwrap(Object o) {
+        if (o instanceof Failure failure) {
+            close();
+            if (failure.exception instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(failure.exception.getMessage(), failure.exception);
+        }
+        return o;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T cast(Object o) {
+        return ((Item<T>) o).value;
+    }
+
+    @Override
+    public String toString() {
+        return "SlicedIterator{slices=" + slices.size() + (comparator == null ? "" : ", merging") + "}";
+    }
+
+    /**
+     * Wraps the items in the buffers, since they may be {@code null}
+     */
+    private record Item<T>(T value) {
+    }
+
+    private record Failure(Exception exception) {
+    }
+
+    private class Head implements Comparable<Head> {
+        final T item;
+        final Slice slice;
+
+        Head(T item, Slice slice) {
+            this.item = item;
+            this.slice = slice;
+        }
+
+        @Override
+        public int compareTo(Head o) {
+            final int result = comparator.compare(item, o.item);
+            // stable, for equal items
+            return result != 0 ? result : Integer.compare(slice.id, o.slice.id);
+        }
+    }
+
+    private class Slice implements Runnable {
+        final int id;
+        final IntFunction<CloseableIterator<T>> factory;
+        final BlockingQueue<Object> buffer;
+
+        Slice(int id, IntFunction<CloseableIterator<T>> factory, BlockingQueue<Object> buffer) {
+            this.id = id;
+            this.factory = factory;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void run() {
+            final String threadName = Thread.currentThread().getName();
+            Thread.currentThread().setName(threadName + " slice " + id + "/" + slices.size());
+            try (CloseableIterator<T> iterator = factory.apply(id)) {
+                while (! closed && iterator.hasNext()) {
+                    if (! put(new Item<>(iterator.next()))) {
+                        break;
+                    }
+                }
+                put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // best effort, the consumer should not wait for ever
+                buffer.offer(new Failure(e));
+            } catch (Exception e) {
+                log.warn("Slice {}: {} {}", id, e.getClass().getName(), e.getMessage());
+                try {
+                    put(new Failure(e));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            } finally {
+                Thread.currentThread().setName(threadName);
+            }
+        }
+
+        /**
+         * Blocks until there is room in the buffer, or the iterator is closed
+         * @return whether the object was added
+         */
+        private boolean put(Object o) throws InterruptedException {
+            while (! closed) {
+                if (buffer.offer(o, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
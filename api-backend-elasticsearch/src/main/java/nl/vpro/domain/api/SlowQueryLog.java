@@ -0,0 +1,185 @@
+package nl.vpro.domain.api;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.profile.ProfileResult;
+import org.elasticsearch.search.profile.ProfileShardResult;
+import org.elasticsearch.search.profile.query.CollectorResult;
+import org.elasticsearch.search.profile.query.QueryProfileShardResult;
+
+/**
+ * Logs searches which took longer than {@link #getThreshold() a threshold}, with the complete query and some context (like form and profile).
+ * <p>
+ * A {@link #getSampleRate() fraction} (by default none) of those is executed once more with {@code profile=true}. The per shard breakdown of that is kept in a ring buffer of the last {@link #getCapacity()} slow queries, which can be inspected via JMX.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class SlowQueryLog {
+
+    private final Logger log;
+
+    @Getter
+    @Setter
+    private Duration threshold = Duration.ofSeconds(2);
+
+    @Getter
+    @Setter
+    private double sampleRate = 0;
+
+    @Getter
+    private int capacity = 50;
+
+    private final Deque<SlowQuery> buffer = new ArrayDeque<>();
+
+    public SlowQueryLog(@NonNull String name) {
+        this.log = LogManager.getLogger(SlowQueryLog.class.getName() + "." + name);
+    }
+
+    /**
+     * Checks whether the given search was slow, and if so logs it.
+     * @param reRunner Used to execute the search again with profiling enabled (asynchronously).
+     * @return whether the query was considered slow
+     */
+    public boolean check(
+        @NonNull String method,
+        @NonNull SearchRequest request,
+        @NonNull Duration took,
+        @NonNull Supplier<String> context,
+        @NonNull Function<SearchRequest, CompletableFuture<SearchResponse>> reRunner) {
+        if (threshold.isZero() || threshold.isNegative() || took.compareTo(threshold) < 0) {
+            return false;
+        }
+        final SearchSourceBuilder source = request.source();
+        final String contextString = context.get();
+        log.warn("Slow query ({}) for {} {} on {}: {}", took, method, contextString, Arrays.toString(request.indices()), source);
+        final SlowQuery slowQuery = new SlowQuery(Instant.now(), method, took, String.valueOf(source), contextString);
+        add(slowQuery);
+        if (source != null && sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            final SearchRequest profileRequest = new SearchRequest(request.indices())
+                .routing(request.routing())
+                .source(source.shallowCopy().profile(true));
+            reRunner.apply(profileRequest).whenComplete((response, exception) -> {
+                if (response != null) {
+                    slowQuery.profile = profile(response);
+                    log.info("Profile of slow query for {}: {}", method, slowQuery.profile);
+                } else {
+                    log.warn("Could not profile slow query for {}: {}", method, exception == null ? null : exception.getMessage());
+                }
+            });
+        }
+        return true;
+    }
+
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+        trim();
+    }
+
+    /**
+     * @return The recorded slow queries, the most recent one first
+     */
+    public synchronized List<SlowQuery> getSlowQueries() {
+        return new ArrayList<>(buffer);
+    }
+
+    public synchronized void clear() {
+        buffer.clear();
+    }
+
+    private synchronized void add(SlowQuery slowQuery) {
+        buffer.addFirst(slowQuery);
+        trim();
+    }
+
+    private void trim() {
+        while (buffer.size() > Math.max(0, capacity)) {
+            buffer.removeLast();
+        }
+    }
+
+    /**
+     * Summarizes the profile results of the response: per shard the queries and the collectors, with their times.
+     */
+    static String profile(@NonNull SearchResponse response) {
+        final StringBuilder builder = new StringBuilder();
+        final Map<String, ProfileShardResult> results = response.getProfileResults();
+        if (results == null) {
+            return "";
+        }
+        for (Map.Entry<String, ProfileShardResult> shard : results.entrySet()) {
+            builder.append(shard.getKey()).append(":\n");
+            for (QueryProfileShardResult queryProfile : shard.getValue().getQueryProfileResults()) {
+                for (ProfileResult query : queryProfile.getQueryResults()) {
+                    appendQuery(builder, query, 1);
+                }
+                appendCollector(builder, queryProfile.getCollectorResult(), 1);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void appendQuery(StringBuilder builder, ProfileResult result, int depth) {
+        builder.append("  ".repeat(depth))
+            .append(result.getQueryName()).append(' ')
+            .append(result.getLuceneDescription()).append(' ')
+            .append(Duration.ofNanos(result.getTime()))
+            .append('\n');
+        for (ProfileResult child : result.getProfiledChildren()) {
+            appendQuery(builder, child, depth + 1);
+        }
+    }
+
+    private static void appendCollector(StringBuilder builder, @Nullable CollectorResult result, int depth) {
+        if (result == null) {
+            return;
+        }
+        builder.append("  ".repeat(depth))
+            .append("collector ").append(result.getName()).append(' ')
+            .append(result.getReason()).append(' ')
+            .append(Duration.ofNanos(result.getTime()))
+            .append('\n');
+        for (CollectorResult child : result.getProfiledChildren()) {
+            appendCollector(builder, child, depth + 1);
+        }
+    }
+
+    @Getter
+    public static class SlowQuery {
+        private final Instant timestamp;
+        private final String method;
+        private final Duration took;
+        private final String query;
+        private final String context;
+        private volatile String profile;
+
+        SlowQuery(Instant timestamp, String method, Duration took, String query, String context) {
+            this.timestamp = timestamp;
+            this.method = method;
+            this.took = took;
+            this.query = query;
+            this.context = context;
+        }
+
+        @Override
+        public String toString() {
+            return timestamp + " " + method + " (" + took + ") " + context + "\n" + query + (profile == null ? "" : "\n" + profile);
+        }
+    }
+}
@@ -4,7 +4,9 @@ import lombok.*;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 import jakarta.annotation.PostConstruct;
@@ -17,29 +19,41 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.functionscore.FunctionScoreQueryBuilder;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.transport.TransportSerializationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import nl.vpro.domain.api.*;
 import nl.vpro.domain.api.profile.ProfileDefinition;
 import nl.vpro.domain.media.MediaLoader;
 import nl.vpro.domain.media.MediaObject;
 import nl.vpro.domain.media.support.Workflow;
+import nl.vpro.elasticsearch.Constants;
 import nl.vpro.elasticsearch.Distribution;
 import nl.vpro.elasticsearch.ElasticSearchIndex;
+import nl.vpro.elasticsearch.highlevel.ExtendedElasticSearchIterator;
 import nl.vpro.elasticsearch.highlevel.HighLevelClientFactory;
 import nl.vpro.elasticsearchclient.IndexHelper;
 import nl.vpro.media.domain.es.ApiRefsIndex;
+import nl.vpro.media.domain.es.ApiScheduleEventsIndex;
 import nl.vpro.media.domain.es.Common;
 import nl.vpro.util.CloseableIterator;
 import nl.vpro.util.TimeUtils;
 
 import static nl.vpro.media.domain.es.ApiMediaIndex.APIMEDIA;
+import static nl.vpro.media.domain.es.ApiScheduleEventsIndex.APISCHEDULEEVENTS;
+import static nl.vpro.media.domain.es.Common.ES_PUBLISH_DATE;
 
 /**
  * @author Michiel Meeuwissen
@@ -56,6 +70,45 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
 
     private final Distribution distribution = Distribution.ELASTICSEARCH;
 
+    /**
+     * How often the {@link #getNearCache() near cache} is invalidated by tailing {@link Common#ES_PUBLISH_DATE}
+     * @since 8.14
+     */
+    @Getter
+    private Duration nearCacheInvalidationInterval = Duration.ofSeconds(5);
+
+    /**
+     * Only running if the {@link #getNearCache() near cache} is enabled
+     */
+    private ScheduledExecutorService nearCacheInvalidator;
+
+    private volatile boolean initialized = false;
+
+    private Instant nearCacheWatermark = null;
+
+    /**
+     * If positive, concurrent {@link #load(boolean, String)} calls arriving within this window are merged into one multi get.
+     * @since 8.14
+     */
+    @Getter
+    private Duration loadBatchWindow = Duration.ZERO;
+
+    /**
+     * The maximal number of ids in such a merged multi get
+     * @since 8.14
+     */
+    private int loadBatchSize = 50;
+
+    private volatile BatchingLoader<MediaObject> batchingLoader;
+
+    /**
+     * The maximal number of {@link CompiledMediaQuery compiled queries} that are cached by {@link #mediaSearchRequest(ProfileDefinition, AbstractMediaForm, MediaObject, BoolQueryBuilder, Map, long, Integer)}. {@code 0} disables it.
+     * @since 8.14
+     */
+    @Getter
+    private long queryCacheSize = 0;
+
+    private Cache<CompiledMediaQuery.Key, CompiledMediaQuery> queryCache = null;
 
 
     protected AbstractESMediaRepository(HighLevelClientFactory client) {
@@ -79,11 +132,45 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
     public void init() {
         helper.setIndexName(getIndexName());
         refsHelper.setIndexName(getRefsIndexName());
+        initialized = true;
+        startNearCacheInvalidator();
+        rebuildBatchingLoader();
+    }
+
+    /**
+     * Starts {@link #invalidateNearCache()} if the near cache is enabled, and it is not yet running.
+     * @since 8.14
+     */
+    protected synchronized void startNearCacheInvalidator() {
+        if (nearCacheSize <= 0 || nearCacheInvalidator != null) {
+            return;
+        }
+        nearCacheInvalidator = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, getClass().getSimpleName() + "-nearCacheInvalidator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        nearCacheInvalidator.scheduleWithFixedDelay(
+            this::invalidateNearCache,
+            nearCacheInvalidationInterval.toMillis(),
+            nearCacheInvalidationInterval.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
     }
 
     @PreDestroy
     public void close() {
         CloseableIterator.closeQuietly(helper, refsHelper);
+        synchronized (this) {
+            if (nearCacheInvalidator != null) {
+                nearCacheInvalidator.shutdownNow();
+                nearCacheInvalidator = null;
+            }
+        }
+        if (batchingLoader != null) {
+            batchingLoader.close();
+        }
+        hedger.close();
     }
 
     public String getRefsIndexName() {
@@ -97,6 +184,19 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
         super.setIndexName(APIMEDIA, indexName);
     }
 
+    /**
+     * The index with the schedule events as separate documents
+     * @since 8.14
+     */
+    @Value("${elasticSearch.scheduleevents.index:" + ApiScheduleEventsIndex.NAME + "}")
+    public void setScheduleEventsIndexName(@NonNull String indexName) {
+        super.setIndexName(APISCHEDULEEVENTS, indexName);
+    }
+
+    public String getScheduleEventsIndexName() {
+        return indexNames.getOrDefault(APISCHEDULEEVENTS, ApiScheduleEventsIndex.NAME);
+    }
+
     @Override
     @Value("${elasticSearch.media.facetLimit}")
     public void setFacetLimit(Integer facetLimit) {
@@ -109,6 +209,145 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
         super.setTimeOut(TimeUtils.parseDuration(timeout).orElse(Duration.ofSeconds(15)));
     }
 
+    @Override
+    @Value("${elasticSearch.media.nearCache.size:0}")
+    public void setNearCacheSize(long nearCacheSize) {
+        super.setNearCacheSize(nearCacheSize);
+        if (initialized) {
+            // enabled after init (e.g. via JMX)
+            startNearCacheInvalidator();
+        }
+    }
+
+    /**
+     * Takes effect on the next start of the invalidator (so normally at {@link #init()})
+     * @since 8.14
+     */
+    @Value("${elasticSearch.media.nearCache.invalidationInterval:PT5S}")
+    public void setNearCacheInvalidationIntervalAsString(String interval) {
+        this.nearCacheInvalidationInterval = TimeUtils.parseDuration(interval).orElse(Duration.ofSeconds(5));
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.media.queryCache.size:0}")
+    public void setQueryCacheSize(long queryCacheSize) {
+        this.queryCacheSize = queryCacheSize;
+        if (queryCacheSize > 0) {
+            queryCache = CacheBuilder.newBuilder()
+                .maximumSize(queryCacheSize)
+                .recordStats()
+                .build();
+        } else {
+            queryCache = null;
+        }
+    }
+
+    @ManagedAttribute
+    public long getQueryCacheHitCount() {
+        return queryCache == null ? 0 : queryCache.stats().hitCount();
+    }
+
+    @ManagedAttribute
+    public long getQueryCacheMissCount() {
+        return queryCache == null ? 0 : queryCache.stats().missCount();
+    }
+
+    @ManagedAttribute
+    public String getLoadBatchWindowAsString() {
+        return loadBatchWindow.toString();
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.media.loadBatch.window:0}")
+    public void setLoadBatchWindowAsString(String loadBatchWindow) {
+        this.loadBatchWindow = TimeUtils.parseDuration(loadBatchWindow).orElse(Duration.ZERO);
+        if (initialized) {
+            rebuildBatchingLoader();
+        }
+    }
+
+    @ManagedAttribute
+    public int getLoadBatchSize() {
+        return loadBatchSize;
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.media.loadBatch.size:50}")
+    public void setLoadBatchSize(int loadBatchSize) {
+        this.loadBatchSize = loadBatchSize;
+        if (initialized) {
+            rebuildBatchingLoader();
+        }
+    }
+
+    @ManagedAttribute
+    public long getLoadBatchCount() {
+        return batchingLoader == null ? 0 : batchingLoader.getBatchCount();
+    }
+
+    @ManagedAttribute
+    public long getLoadBatchedCount() {
+        return batchingLoader == null ? 0 : batchingLoader.getLoadCount();
+    }
+
+    /**
+     * Builds the {@link BatchingLoader} on {@link #init()}, and again if its settings are changed (over JMX) afterwards
+     */
+    private synchronized void rebuildBatchingLoader() {
+        final BatchingLoader<MediaObject> previous = batchingLoader;
+        if (loadBatchWindow.isZero() || loadBatchWindow.isNegative()) {
+            batchingLoader = null;
+        } else {
+            batchingLoader = new BatchingLoader<>(loadBatchWindow, loadBatchSize, this::loadBatch, asyncExecutor);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Tails {@link Common#ES_PUBLISH_DATE} the same way {@code changes} does, and invalidates every mid in the {@link #getNearCache() near cache} that was published since the previous run.
+     * <p>
+     * Since ES takes some time to make indexed objects findable, the window is widened with {@link #getCommitDelay()}, so that objects
+     * become stale no later than the commit delay (plus {@link #getNearCacheInvalidationInterval()}).
+     * @since 8.14
+     */
+    protected void invalidateNearCache() {
+        final NearCache<MediaObject> cache = nearCache;
+        if (cache == null) {
+            nearCacheWatermark = null;
+            return;
+        }
+        final Instant start = Common.CLOCK.instant();
+        if (nearCacheWatermark == null) {
+            nearCacheWatermark = start;
+        }
+        final String indexName = getIndexName();
+        final Instant from = nearCacheWatermark.minus(commitDelay);
+        long count = 0;
+        try (ExtendedElasticSearchIterator<String> i = ExtendedElasticSearchIterator.<String>extendedBuilder()
+            .client(factory.highLevelClient())
+            .adapt(h -> h.get(Constants.Fields.SOURCE).get("mid").textValue())
+            .build()) {
+            i.prepareSearchSource(indexName)
+                .query(QueryBuilders.rangeQuery(ES_PUBLISH_DATE).gte(from.toEpochMilli()))
+                .fetchSource("mid", null)
+                .size(1000);
+            while (i.hasNext()) {
+                String mid = i.next();
+                if (mid != null) {
+                    cache.invalidate(indexName, mid);
+                    count++;
+                }
+            }
+            nearCacheWatermark = start;
+            log.debug("Invalidated {} mids published since {} in {}", count, from, cache);
+        } catch (Exception e) {
+            log.warn("Could not tail {} ({}: {}). Invalidating complete near cache", indexName, e.getClass().getName(), e.getMessage());
+            cache.invalidateAll();
+        }
+    }
+
     @Override
     protected ElasticSearchIndex getIndex(String id, Class<?> clazz) {
         if (MediaObject.class.isAssignableFrom(clazz)) {
@@ -120,11 +359,28 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
 
 
 
+    /**
+     * Only fetches the part of the source needed for the {@link MediaSourceFilter properties that will be rendered}
+     * @since 8.14
+     */
+    @Override
+    @Nullable
+    protected FetchSourceContext fetchSource() {
+        return MediaSourceFilter.fetchSource(requiredSourceProperties());
+    }
+
+    /**
+     * The properties which this repository needs itself, so which must be fetched, whatever the {@link MediaSourceFilter} says.
+     * @since 8.14
+     */
+    protected Set<String> requiredSourceProperties() {
+        return Set.of();
+    }
+
     @SneakyThrows(IOException.class)
     @Override
     public MediaObject load(boolean loadDeleted, String mid) {
-        mid = redirect(mid).orElse(mid);
-        MediaObject mediaObject = load(mid, MediaObject.class);
+        MediaObject mediaObject = loadRedirected(mid);
         if (mediaObject == null || loadDeleted ||  Workflow.PUBLICATIONS.contains(mediaObject.getWorkflow())) {
             return mediaObject;
         } else {
@@ -132,6 +388,57 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
         }
     }
 
+    /**
+     * Loads a media object, following redirects. If {@link #getLoadBatchWindow()} is set, this is done together with other concurrent loads.
+     * @since 8.14
+     */
+    protected MediaObject loadRedirected(@NonNull String mid) throws IOException {
+        final BatchingLoader<MediaObject> loader = batchingLoader;
+        if (loader != null) {
+            try {
+                return loader.load(mid).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioe) {
+                    throw ioe;
+                }
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+        return load(redirect(mid).orElse(mid), MediaObject.class);
+    }
+
+    /**
+     * Loads a batch of mids for the {@link BatchingLoader}. Redirects are resolved once for the batch, and the redirect targets are loaded in one multi get.
+     */
+    @SneakyThrows(IOException.class)
+    private Map<String, MediaObject> loadBatch(List<String> mids) {
+        final Map<String, String> redirected = new HashMap<>(mids.size());
+        for (String mid : mids) {
+            redirected.put(mid, redirect(mid).orElse(mid));
+        }
+        final String[] targets = redirected.values().stream().distinct().toArray(String[]::new);
+        final List<Optional<MediaObject>> loaded = loadAll(MediaObject.class, getIndexName(targets[0], MediaObject.class), targets);
+        final Map<String, MediaObject> byTarget = new HashMap<>(targets.length);
+        for (int i = 0; i < targets.length; i++) {
+            final String target = targets[i];
+            loaded.get(i).ifPresent(o -> byTarget.put(target, o));
+        }
+        final Map<String, MediaObject> result = new HashMap<>(mids.size());
+        redirected.forEach((mid, target) -> {
+            MediaObject o = byTarget.get(target);
+            if (o != null) {
+                result.put(mid, o);
+            }
+        });
+        return result;
+    }
+
     @SneakyThrows(IOException.class)
     @Override
     @NonNull
@@ -144,6 +451,26 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
     }
 
 
+    /**
+     * Asynchronous version of {@link #loadAll(boolean, List)}
+     * @since 8.14
+     */
+    @NonNull
+    public CompletableFuture<List<MediaObject>> loadAllAsync(boolean loadDeleted, List<String> ids) {
+        final List<String> redirected = ids.stream()
+            .map(id -> redirect(id).orElse(id))
+            .collect(Collectors.toList());
+        if (redirected.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return loadAllAsync(MediaObject.class, getIndexName(redirected.get(0), MediaObject.class), redirected.toArray(new String[0]))
+            .thenApply(list -> list.stream()
+                .map(o -> o.orElse(null))
+                .map(o -> o == null || loadDeleted || Workflow.PUBLICATIONS.contains(o.getWorkflow()) ? o : null)
+                .collect(Collectors.toList())
+            );
+    }
+
     @NonNull
     protected <S extends MediaObject> List<Optional<S>> loadAll(Class<S> clazz, List<String> ids) throws IOException {
         ids = ids.stream()
@@ -191,14 +518,38 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
         @NonNull BoolQueryBuilder rootQuery,
         long offset,
         Integer max) throws IOException {
+        return mediaSearchRequest(profile, form, mediaObject, rootQuery, Map.of(), offset, max);
+    }
+
+    /**
+     * @param resolvedScheduleEvents See {@link ESMediaQueryBuilder#query(String, MediaSearch, Map)}
+     * @param rootQuery If the {@link #getQueryCacheSize() query cache} is enabled, this may not be the root query of the resulting request, so it must not be changed afterward.
+     * @since 8.14
+     */
+    final protected SearchRequestWrapper mediaSearchRequest(
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable AbstractMediaForm form,
+        @Nullable MediaObject mediaObject,
+        @NonNull BoolQueryBuilder rootQuery,
+        @NonNull Map<ScheduleEventSearch, QueryBuilder> resolvedScheduleEvents,
+        long offset,
+        Integer max) throws IOException {
         SearchRequest request = new SearchRequest(getIndexName());
-        SearchSourceBuilder searchSourceBuilder = mediaSearchBuilder(profile, form, mediaObject, rootQuery, offset, max);
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        cachedCompile(profile, form, mediaObject, rootQuery, resolvedScheduleEvents)
+            .applyTo(searchSourceBuilder, isScore() ? Common.CLOCK.instant() : null);
+        handlePaging(offset, max, searchSourceBuilder);
+        log.debug("ES query: {}", searchSourceBuilder);
         boolean maxWasZero = handleMaxZero(max, searchSourceBuilder::size);
+        final FetchSourceContext fetchSource = fetchSource();
+        if (fetchSource != null) {
+            searchSourceBuilder.fetchSource(fetchSource);
+        }
 
         request.source(
             searchSourceBuilder
         );
-        return new SearchRequestWrapper(request, maxWasZero);
+        return new SearchRequestWrapper(request, maxWasZero, profile, form);
     }
 
     final protected SearchSourceBuilder mediaSearchBuilder(
@@ -231,9 +582,24 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
         @NonNull BoolQueryBuilder rootQuery,
         long offset,
         @Nullable Integer max) throws IOException {
+        return mediaSearchBuilder(profile, form, mediaObject, rootQuery, Map.of(), offset, max);
+    }
+
+    /**
+     * @param resolvedScheduleEvents See {@link ESMediaQueryBuilder#query(String, MediaSearch, Map)}
+     * @since 8.14
+     */
+    final protected SearchSourceBuilder mediaSearchBuilder(
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable AbstractMediaForm form,
+        @Nullable MediaObject mediaObject,
+        @NonNull BoolQueryBuilder rootQuery,
+        @NonNull Map<ScheduleEventSearch, QueryBuilder> resolvedScheduleEvents,
+        long offset,
+        @Nullable Integer max) throws IOException {
 
         SearchSourceBuilder searchBuilder = new SearchSourceBuilder();
-        mediaSearchBuild(searchBuilder, profile, form, mediaObject, rootQuery, offset, max);
+        mediaSearchBuild(searchBuilder, profile, form, mediaObject, rootQuery, resolvedScheduleEvents, offset, max);
         return searchBuilder;
     }
     final protected void mediaSearchBuild(
@@ -244,7 +610,67 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
         @NonNull BoolQueryBuilder rootQuery,
         long offset,
         @Nullable Integer max) throws IOException {
+        mediaSearchBuild(searchBuilder, profile, form, mediaObject, rootQuery, Map.of(), offset, max);
+    }
+
+    final protected void mediaSearchBuild(
+        SearchSourceBuilder searchBuilder,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable AbstractMediaForm form,
+        @Nullable MediaObject mediaObject,
+        @NonNull BoolQueryBuilder rootQuery,
+        @NonNull Map<ScheduleEventSearch, QueryBuilder> resolvedScheduleEvents,
+        long offset,
+        @Nullable Integer max) throws IOException {
 
+        compile(profile, form, mediaObject, rootQuery, resolvedScheduleEvents)
+            .applyTo(searchBuilder, isScore() ? Common.CLOCK.instant() : null);
+
+        handlePaging(offset, max, searchBuilder);
+
+        log.debug("ES query: {}", searchBuilder);
+    }
+
+    /**
+     * Like {@link #compile(ProfileDefinition, AbstractMediaForm, MediaObject, BoolQueryBuilder, Map)}, but if the {@link #getQueryCacheSize() query cache} is enabled, the result is shared between all calls with the same profile (name and version), form, root query and media object (as long as the boosts don't change).
+     * <p>
+     * Queries with resolved schedule events are never cached, since those are the result of other searches.
+     * @since 8.14
+     */
+    private CompiledMediaQuery cachedCompile(
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable AbstractMediaForm form,
+        @Nullable MediaObject mediaObject,
+        @NonNull BoolQueryBuilder rootQuery,
+        @NonNull Map<ScheduleEventSearch, QueryBuilder> resolvedScheduleEvents) {
+        final Cache<CompiledMediaQuery.Key, CompiledMediaQuery> cache = queryCache;
+        if (cache == null || ! resolvedScheduleEvents.isEmpty()) {
+            return compile(profile, form, mediaObject, rootQuery, resolvedScheduleEvents);
+        }
+        final CompiledMediaQuery.Key key = CompiledMediaQuery.Key.of(form, profile, rootQuery, mediaObject, ESMediaQueryBuilder.getBoostVersion());
+        try {
+            return cache.get(key, () -> compile(profile, form, mediaObject, rootQuery, resolvedScheduleEvents));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            // e.g. an IllegalArgumentException for an invalid form must arrive as such
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Here is where the actual search query gets built, except for the score and paging.
+     * @param rootQuery The profile filter and the query of the form are added to this
+     * @since 8.14
+     */
+    private CompiledMediaQuery compile(
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable AbstractMediaForm form,
+        @Nullable MediaObject mediaObject,
+        @NonNull BoolQueryBuilder rootQuery,
+        @NonNull Map<ScheduleEventSearch, QueryBuilder> resolvedScheduleEvents) {
+        final SearchSourceBuilder searchBuilder = new SearchSourceBuilder();
 
         // Handle profile and workflow filtering
         ESMediaFilterBuilder.filter(profile, rootQuery);
@@ -256,17 +682,9 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
         }*/
 
         QueryBuilder queryBuilder = ESMediaQueryBuilder
-            .query("", form != null ? form.getSearches() : null);
+            .query("", form != null ? form.getSearches() : null, resolvedScheduleEvents);
         rootQuery.must(queryBuilder);
 
-        if (isScore()) {
-            searchBuilder.query(
-                ESMediaScoreBuilder.score(rootQuery, Common.CLOCK.instant())
-            );
-        } else {
-            searchBuilder.query(rootQuery);
-        }
-
         if (form instanceof MediaForm mediaForm) {
             ESMediaFacetsBuilder.buildMediaFacets("", searchBuilder, mediaForm, rootQuery);
 
@@ -275,9 +693,7 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
 
         buildHighlights(searchBuilder, form, ESMediaQueryBuilder.SEARCH_FIELDS);
 
-        handlePaging(offset, max, searchBuilder, queryBuilder, indexNames.get(APIMEDIA));
-
-        log.debug("ES query: {}", searchBuilder);
+        return new CompiledMediaQuery(rootQuery, searchBuilder);
     }
 
     /**
@@ -291,24 +707,25 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
         long offset,
         @Nullable Integer max,
         @NonNull Class<S> clazz) throws IOException {
+        return executeSearchRequest("search", request, facets, offset, max, clazz);
+    }
+
+    /**
+     * @param method The name of the calling repository method, used to tag the recorded timings (see {@link RepositoryTimer})
+     * @since 8.14
+     */
+    protected <S extends MediaObject> GenericMediaSearchResult<S> executeSearchRequest(
+        @NonNull String method,
+        @NonNull SearchRequestWrapper request,
+        @Nullable MediaFacets facets,
+        long offset,
+        @Nullable Integer max,
+        @NonNull Class<S> clazz) throws IOException {
 
         try {
-            SearchResponse response  = client().search(request.getRequest(),requestOptions());
-            SearchHits hits = response.getHits();
-
-            Duration took = Duration.ofMillis(response.getTook().getMillis());
-            List<SearchResultItem<? extends S>> adapted = request.maxWasZero ? Collections.emptyList() : adapt(hits, clazz);
-
-            MediaFacetsResult facetsResult =
-                ESMediaFacetsHandler.extractMediaFacets(response, facets, this);
-            GenericMediaSearchResult<S> result =  new GenericMediaSearchResult<>(adapted,
-                facetsResult,
-                offset,
-                max,
-                getTotal(hits)
-            );
-            result.setTook(took);
-            return result;
+            final RepositoryTimer timer = timer(method, request.getRequest().indices());
+            SearchResponse response  = search(request.getRequest(), timer, request::context);
+            return adaptSearchResponse(response, request.maxWasZero, facets, offset, max, clazz, timer);
         } catch (TransportSerializationException e) {
             String detail = e.getDetailedMessage();
             log.warn(e.getMessage() + ":" + detail);
@@ -316,6 +733,69 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
         }
     }
 
+    /**
+     * Asynchronous version of {@link #executeSearchRequest(String, SearchRequestWrapper, MediaFacets, long, Integer, Class)}
+     * @since 8.14
+     */
+    protected <S extends MediaObject> CompletableFuture<GenericMediaSearchResult<S>> executeSearchRequestAsync(
+        @NonNull String method,
+        @NonNull SearchRequestWrapper request,
+        @Nullable MediaFacets facets,
+        long offset,
+        @Nullable Integer max,
+        @NonNull Class<S> clazz) {
+        final RepositoryTimer timer = timer(method, request.getRequest().indices()).withoutServerTiming();
+        return searchAsync(request.getRequest(), timer, request::context)
+            .thenApplyAsync(response -> adaptSearchResponse(response, request.maxWasZero, facets, offset, max, clazz, timer), asyncExecutor);
+    }
+
+    /**
+     * Converts a {@link SearchResponse} to an API search result
+     * @since 8.14
+     */
+    protected <S extends MediaObject> GenericMediaSearchResult<S> adaptSearchResponse(
+        @NonNull SearchResponse response,
+        boolean maxWasZero,
+        @Nullable MediaFacets facets,
+        long offset,
+        @Nullable Integer max,
+        @NonNull Class<S> clazz) {
+        return adaptSearchResponse(response, maxWasZero, facets, offset, max, clazz, RepositoryTimer.disabled());
+    }
+
+    /**
+     * Converts a {@link SearchResponse} to an API search result, recording the time needed for decoding the hits and extracting the facets.
+     * <p>
+     * The hits are decoded eagerly here (in stead of lazily while serializing the result), so that the time spent on that can be attributed.
+     * @since 8.14
+     */
+    protected <S extends MediaObject> GenericMediaSearchResult<S> adaptSearchResponse(
+        @NonNull SearchResponse response,
+        boolean maxWasZero,
+        @Nullable MediaFacets facets,
+        long offset,
+        @Nullable Integer max,
+        @NonNull Class<S> clazz,
+        @NonNull RepositoryTimer timer) {
+        SearchHits hits = response.getHits();
+        checkResultWindow(offset, max, hits);
+
+        Duration took = Duration.ofMillis(response.getTook().getMillis());
+        List<SearchResultItem<? extends S>> adapted = maxWasZero ? Collections.emptyList() :
+            timer.time(RepositoryTimer.DECODE, () -> new ArrayList<>(adapt(hits, clazz)));
+
+        MediaFacetsResult facetsResult = timer.time(RepositoryTimer.FACETS, () ->
+            ESMediaFacetsHandler.extractMediaFacets(response, facets, this));
+        GenericMediaSearchResult<S> result =  new GenericMediaSearchResult<>(adapted,
+            facetsResult,
+            offset,
+            max,
+            getTotal(hits)
+        );
+        result.setTook(took);
+        return result;
+    }
+
 
     /**
      * Changes the form to 'redirect' all occurances of mids in it.
@@ -354,10 +834,39 @@ public abstract class AbstractESMediaRepository extends AbstractESRepository<Med
     public static class SearchRequestWrapper {
         final SearchRequest request;
         final boolean maxWasZero;
+        /**
+         * The profile and form the request was built for. Only used for logging.
+         */
+        final ProfileDefinition<MediaObject> profile;
+        final AbstractMediaForm form;
 
         SearchRequestWrapper(SearchRequest request, boolean maxWasZero) {
+            this(request, maxWasZero, null, null);
+        }
+
+        SearchRequestWrapper(
+            SearchRequest request,
+            boolean maxWasZero,
+            @Nullable ProfileDefinition<MediaObject> profile,
+            @Nullable AbstractMediaForm form) {
             this.request = request;
             this.maxWasZero = maxWasZero;
+            this.profile = profile;
+            this.form = form;
+        }
+
+        /**
+         * A description of the profile and form, for the {@link SlowQueryLog}
+         * @since 8.14
+         */
+        String context() {
+            String formJson;
+            try {
+                formJson = form == null ? null : LENIENT.writeValueAsString(form);
+            } catch (IOException e) {
+                formJson = String.valueOf(form);
+            }
+            return "profile: " + (profile == null ? null : profile.getName()) + ", form: " + formJson;
         }
 
     }
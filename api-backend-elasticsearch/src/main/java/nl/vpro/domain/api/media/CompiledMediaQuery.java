@@ -0,0 +1,165 @@
+package nl.vpro.domain.api.media;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.elasticsearch.common.xcontent.*;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.PipelineAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.*;
+
+import nl.vpro.domain.api.profile.ProfileDefinition;
+import nl.vpro.domain.media.MediaObject;
+import nl.vpro.jackson2.Jackson2Mapper;
+
+/**
+ * The part of a media search which is built from a profile and a form: the (unscored) query, the facet aggregations, the sorts and the highlights. These don't change for the same profile, form and {@link ESMediaQueryBuilder#getBoostVersion() boosts}, so they can be cached (see {@link AbstractESMediaRepository#getQueryCacheSize()}).
+ * <p>
+ * The score (which depends on the current time) and paging are not part of it, but are added to every request.
+ * <p>
+ * A cached instance is {@link #applyTo(SearchSourceBuilder, Instant) applied} to many requests. Only the outer {@link SearchSourceBuilder} is new for every request, the query, aggregation, sort and highlight builders are shared. Those are only serialized when the request is sent, so this is safe as long as nobody changes them after compilation.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+final class CompiledMediaQuery {
+
+    private static final HashFunction HASH = Hashing.sha256();
+
+    /**
+     * The form is serialized with sorted map entries, so equal forms give equal hashes
+     */
+    private static final ObjectWriter CANONICAL = Jackson2Mapper.getLenientInstance().writer()
+        .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    /**
+     * The versions of the profiles, calculated once per instance
+     */
+    private static final Cache<ProfileDefinition<MediaObject>, HashCode> PROFILE_VERSIONS = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
+
+    /**
+     * @param form A hash of the form (and its class)
+     * @param profile The name of the profile
+     * @param profileVersion A hash of the filter of the profile, so a changed profile with the same name is a different key
+     * @param rootQuery A hash of the clauses of the root query before building ({@code null} if there are none)
+     * @param mid The mid of the media object the sorts are relative to
+     */
+    record Key(
+        @Nullable HashCode form,
+        @Nullable String profile,
+        @Nullable HashCode profileVersion,
+        @Nullable HashCode rootQuery,
+        @Nullable String mid,
+        long boostVersion) {
+
+        static Key of(
+            @Nullable AbstractMediaForm form,
+            @Nullable ProfileDefinition<MediaObject> profile,
+            @NonNull BoolQueryBuilder rootQuery,
+            @Nullable MediaObject mediaObject,
+            long boostVersion) {
+            return new Key(
+                form == null ? null : formHash(form),
+                profile == null ? null : profile.getName(),
+                profile == null ? null : profileVersion(profile),
+                rootQuery.hasClauses() ? queryHash(rootQuery) : null,
+                mediaObject == null ? null : mediaObject.getMid(),
+                boostVersion
+            );
+        }
+    }
+
+    private final @NonNull QueryBuilder query;
+    private final @NonNull List<AggregationBuilder> aggregations;
+    private final @NonNull List<PipelineAggregationBuilder> pipelineAggregations;
+    private final @NonNull List<SortBuilder<?>> sorts;
+    private final @Nullable HighlightBuilder highlighter;
+
+    /**
+     * @param rootQuery The root query, with all clauses added
+     * @param template Containing the aggregations, sorts and highlights
+     */
+    CompiledMediaQuery(@NonNull BoolQueryBuilder rootQuery, @NonNull SearchSourceBuilder template) {
+        this.query = rootQuery;
+        this.aggregations = template.aggregations() == null ? List.of() : List.copyOf(template.aggregations().getAggregatorFactories());
+        this.pipelineAggregations = template.aggregations() == null ? List.of() : List.copyOf(template.aggregations().getPipelineAggregatorFactories());
+        this.sorts = template.sorts() == null ? List.of() : List.copyOf(template.sorts());
+        this.highlighter = template.highlighter();
+    }
+
+    /**
+     * Sets the query, aggregations, sorts and highlights on the given search builder. The builders themselves are not copied, so they are shared by all search builders this is applied to, and must not be changed.
+     * @param scoreAt If not {@code null}, the query is wrapped to be scored (see {@link ESMediaScoreBuilder}) relative to this instant
+     */
+    void applyTo(@NonNull SearchSourceBuilder searchBuilder, @Nullable Instant scoreAt) {
+        searchBuilder.query(scoreAt == null ? query : ESMediaScoreBuilder.score(query, scoreAt));
+        for (AggregationBuilder aggregation : aggregations) {
+            searchBuilder.aggregation(aggregation);
+        }
+        for (PipelineAggregationBuilder aggregation : pipelineAggregations) {
+            searchBuilder.aggregation(aggregation);
+        }
+        for (SortBuilder<?> sort : sorts) {
+            searchBuilder.sort(sort);
+        }
+        if (highlighter != null) {
+            searchBuilder.highlighter(highlighter);
+        }
+    }
+
+    static HashCode formHash(@NonNull AbstractMediaForm form) {
+        final Hasher hasher = HASH.newHasher();
+        hasher.putString(form.getClass().getName(), StandardCharsets.UTF_8);
+        try (OutputStream out = Funnels.asOutputStream(hasher)) {
+            CANONICAL.writeValue(out, form);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return hasher.hash();
+    }
+
+    static HashCode queryHash(@NonNull QueryBuilder query) {
+        final Hasher hasher = HASH.newHasher();
+        try (XContentBuilder builder = XContentFactory.jsonBuilder(Funnels.asOutputStream(hasher))) {
+            query.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return hasher.hash();
+    }
+
+    static HashCode profileVersion(@NonNull ProfileDefinition<MediaObject> profile) {
+        try {
+            return PROFILE_VERSIONS.get(profile, () -> {
+                final QueryBuilder filter = ESMediaFilterBuilder.filter(profile);
+                return filter == null ? HASH.hashInt(0) : queryHash(filter);
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledMediaQuery{" + query + "}";
+    }
+}
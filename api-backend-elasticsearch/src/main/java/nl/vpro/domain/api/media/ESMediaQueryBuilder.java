@@ -9,6 +9,8 @@ import lombok.extern.log4j.Log4j2;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -77,11 +79,23 @@ public class ESMediaQueryBuilder extends ESQueryBuilder {
     public static QueryBuilder query(
         @NonNull String prefix,
         MediaSearch searches) {
+        return query(prefix, searches, Map.of());
+    }
+
+    /**
+     * As {@link #query(String, MediaSearch)}, but some of the {@link ScheduleEventSearch schedule event searches} may have been resolved to a query already.
+     * @param resolvedScheduleEvents The query to use for some of the schedule event searches, (identity) keyed by those searches
+     * @since 8.14
+     */
+    public static QueryBuilder query(
+        @NonNull String prefix,
+        MediaSearch searches,
+        @NonNull Map<ScheduleEventSearch, QueryBuilder> resolvedScheduleEvents) {
         if(searches == null) {
             return QueryBuilders.matchAllQuery();
         }
         BoolQueryBuilder builder = QueryBuilders.boolQuery();
-        buildMediaQuery(prefix, builder, searches);
+        buildMediaQuery(prefix, builder, searches, resolvedScheduleEvents);
         return simplifyQuery(builder);
     }
     public static QueryBuilder query(MediaSearch searches) {
@@ -97,6 +111,14 @@ public class ESMediaQueryBuilder extends ESQueryBuilder {
         @NonNull final String prefix,
         @NonNull final BoolQueryBuilder booleanQuery,
         @Nullable final MediaSearch searches) {
+        buildMediaQuery(prefix, booleanQuery, searches, Map.of());
+    }
+
+    private static void buildMediaQuery(
+        @NonNull final String prefix,
+        @NonNull final BoolQueryBuilder booleanQuery,
+        @Nullable final MediaSearch searches,
+        @NonNull final Map<ScheduleEventSearch, QueryBuilder> resolvedScheduleEvents) {
 
         if (searches == null) {
             return;
@@ -278,11 +300,16 @@ public class ESMediaQueryBuilder extends ESQueryBuilder {
             List<ScheduleEventSearch> scheduleEventSearches = searches.getScheduleEvents();
             if(scheduleEventSearches != null && ! scheduleEventSearches.isEmpty()) {
                 for (ScheduleEventSearch scheduleEventSearch : scheduleEventSearches) {
-                    buildScheduleQuery(
-                        prefix,
-                        booleanQuery,
-                        scheduleEventSearch
-                    );
+                    final QueryBuilder resolved = resolvedScheduleEvents.get(scheduleEventSearch);
+                    if (resolved != null) {
+                        apply(booleanQuery, resolved, scheduleEventSearch.getMatch());
+                    } else {
+                        buildScheduleQuery(
+                            prefix,
+                            booleanQuery,
+                            scheduleEventSearch
+                        );
+                    }
                 }
             }
         }
@@ -446,37 +473,48 @@ public class ESMediaQueryBuilder extends ESQueryBuilder {
 
 
     private static void buildScheduleQuery(String prefix, BoolQueryBuilder boolQueryBuilder, ScheduleEventSearch matcher) {
+        BoolQueryBuilder scheduleSub = scheduleEventQuery(prefix + "scheduleEvents.", matcher);
+        if(scheduleSub.hasClauses()) {
+            apply(boolQueryBuilder, scheduleSub, matcher.getMatch());
+        }
+    }
+
+    /**
+     * The query for the criteria of a {@link ScheduleEventSearch} (its {@link ScheduleEventSearch#getMatch() match} is not applied).
+     * <p>
+     * Note that on the media index {@code scheduleEvents} is not nested, so if there is more than one criterion they may be matched by different events of the same object. On an index with the events themselves as documents (like {@link nl.vpro.media.domain.es.ApiScheduleEventsIndex}) this is not an issue.
+     * @param fieldPrefix The path to the schedule event fields, including the last dot (so e.g. {@code "scheduleEvents."} in the media index), can be blank
+     * @since 8.14
+     */
+    public static BoolQueryBuilder scheduleEventQuery(@NonNull String fieldPrefix, @NonNull ScheduleEventSearch matcher) {
         BoolQueryBuilder scheduleSub = QueryBuilders.boolQuery();
         if(matcher.getChannel() != null) {
-            QueryBuilder channelQuery = QueryBuilders.termQuery(prefix + "scheduleEvents.channel", matcher.getChannel().name());
+            QueryBuilder channelQuery = QueryBuilders.termQuery(fieldPrefix + "channel", matcher.getChannel().name());
             scheduleSub.must(channelQuery);
         }
         if(StringUtils.isNotEmpty(matcher.getNet())) {
-            QueryBuilder netQuery = QueryBuilders.termQuery(prefix + "scheduleEvents.net", matcher.getNet());
+            QueryBuilder netQuery = QueryBuilders.termQuery(fieldPrefix + "net", matcher.getNet());
             scheduleSub.must(netQuery);
         }
         if(matcher.getRerun() != null) {
             if (matcher.getRerun()) {
-                scheduleSub.must(QueryBuilders.termQuery(prefix + "scheduleEvents.repeat.isRerun", true));
+                scheduleSub.must(QueryBuilders.termQuery(fieldPrefix + "repeat.isRerun", true));
                 // This would be simpler, but reindex should be done first otherwise it's even more broken
-                //scheduleSub.must(QueryBuilders.termQuery(prefix + "scheduleEvents.rerun", true));
+                //scheduleSub.must(QueryBuilders.termQuery(fieldPrefix + "rerun", true));
             } else {
-                scheduleSub.must(QueryBuilders.termQuery(prefix + "scheduleEvents.rerun", false));
+                scheduleSub.must(QueryBuilders.termQuery(fieldPrefix + "rerun", false));
             }
         }
 
         if(matcher.getBegin() != null || matcher.getEnd() != null) {
-            RangeQueryBuilder rangeQuery = QueryBuilders.rangeQuery(prefix + "scheduleEvents.start");
+            RangeQueryBuilder rangeQuery = QueryBuilders.rangeQuery(fieldPrefix + "start");
             rangeQuery.includeLower(true);
             rangeQuery.includeUpper(matcher.includeEnd());
             rangeQuery.from(instantToLong(matcher.getBegin()));
             rangeQuery.to(instantToLong(matcher.getEnd()));
             scheduleSub.must(rangeQuery);
         }
-
-        if(scheduleSub.hasClauses()) {
-            apply(boolQueryBuilder, scheduleSub, matcher.getMatch());
-        }
+        return scheduleSub;
     }
 
 
@@ -494,8 +532,23 @@ public class ESMediaQueryBuilder extends ESQueryBuilder {
     }
 
 
+    /**
+     * Incremented on every change of the boosts of the {@link #SEARCH_FIELDS}, so that queries built with them can be cached until then.
+     * @since 8.14
+     */
+    private static final AtomicLong BOOST_VERSION = new AtomicLong();
+
     static boolean boostField(String field, float boost) {
-        return boostField(field, boost, SEARCH_FIELDS);
+        final boolean result = boostField(field, boost, SEARCH_FIELDS);
+        BOOST_VERSION.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * @since 8.14
+     */
+    static long getBoostVersion() {
+        return BOOST_VERSION.get();
     }
 
     static List<SearchFieldDefinition> getSearchFields() {
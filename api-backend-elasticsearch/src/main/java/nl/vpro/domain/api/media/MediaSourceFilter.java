@@ -0,0 +1,115 @@
+package nl.vpro.domain.api.media;
+
+import java.util.*;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.springframework.cache.interceptor.SimpleKey;
+
+/**
+ * Which properties of the media objects will actually be rendered for the current call. The REST layer knows that (from its {@code properties} parameter), and sets it around the call to the service via {@link #retain(Set)}. The repositories then only fetch the needed part of the {@code _source} from elasticsearch (see {@link #fetchSource(Set)}).
+ * <p>
+ * Only the bulky fields are ever left out. Limiting the source via includes would be fragile, since the decoding of a media object needs several fields which are never explicitly requested (like {@code objectType} and {@code workflow}).
+ * <p>
+ * Objects which are loaded this way are incomplete, so they must not be cached (like in the {@link nl.vpro.domain.api.NearCache}) unless the properties are part of the key (see {@link #CACHE_KEY}), and the scope should only wrap calls of which the results are rendered directly.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public final class MediaSourceFilter {
+
+    /**
+     * Property (lowercase and singular, like the {@code properties} parameter is parsed) to the field in the {@code _source} that is only needed if that property is rendered
+     */
+    static final Map<String, String> SOURCE_FIELDS = Map.ofEntries(
+        Map.entry("segment", "segments"),
+        Map.entry("credit", "credits"),
+        Map.entry("location", "locations"),
+        Map.entry("scheduleevent", "scheduleEvents"),
+        Map.entry("image", "images"),
+        Map.entry("relation", "relations"),
+        Map.entry("website", "websites"),
+        Map.entry("twitterref", "twitter"),
+        Map.entry("prediction", "predictions"),
+        Map.entry("memberof", "memberOf"),
+        Map.entry("episodeof", "episodeOf"),
+        Map.entry("descendantof", "descendantOf"),
+        Map.entry("geolocation", "geoLocations"),
+        Map.entry("topic", "topics")
+    );
+
+    /**
+     * To be used as {@code key} of {@code @Cacheable}, for services which are called within {@link #retain(Set)}
+     */
+    public static final String CACHE_KEY = "T(nl.vpro.domain.api.media.MediaSourceFilter).cacheKey(#root.args)";
+
+    private static final ThreadLocal<Set<String>> PROPERTIES = new ThreadLocal<>();
+
+    private MediaSourceFilter() {
+    }
+
+    /**
+     * Until the returned scope is closed, only the given properties of media objects are needed.
+     * @param properties The (lowercase, singular) names of the properties to retain. {@code null} means 'all'.
+     */
+    public static Scope retain(@Nullable Set<String> properties) {
+        final Set<String> before = PROPERTIES.get();
+        set(properties);
+        return () -> set(before);
+    }
+
+    private static void set(@Nullable Set<String> properties) {
+        if (properties == null) {
+            PROPERTIES.remove();
+        } else {
+            PROPERTIES.set(properties);
+        }
+    }
+
+    /**
+     * @return The properties that are needed for the current call, or {@code null} if all are
+     */
+    @Nullable
+    public static Set<String> get() {
+        return PROPERTIES.get();
+    }
+
+    /**
+     * A cache key for the results of a call with the given arguments. Results differ per set of properties, so that must be part of the key.
+     * @see #CACHE_KEY
+     */
+    public static Object cacheKey(Object... args) {
+        final Set<String> properties = PROPERTIES.get();
+        return new SimpleKey(properties == null ? null : new TreeSet<>(properties), new SimpleKey(args));
+    }
+
+    /**
+     * @param required Properties which are needed anyway (e.g. because the repository itself uses them)
+     * @return The source filtering for the current call, or {@code null} if the complete source is needed
+     */
+    @Nullable
+    public static FetchSourceContext fetchSource(@NonNull Set<String> required) {
+        final Set<String> properties = PROPERTIES.get();
+        if (properties == null) {
+            return null;
+        }
+        final List<String> excludes = new ArrayList<>();
+        SOURCE_FIELDS.forEach((property, field) -> {
+            if (! properties.contains(property) && ! required.contains(property)) {
+                excludes.add(field);
+            }
+        });
+        if (excludes.isEmpty()) {
+            return null;
+        }
+        Collections.sort(excludes);
+        return new FetchSourceContext(true, null, excludes.toArray(new String[0]));
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
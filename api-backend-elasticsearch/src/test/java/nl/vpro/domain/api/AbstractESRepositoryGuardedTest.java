@@ -0,0 +1,124 @@
+package nl.vpro.domain.api;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.elasticsearch.ElasticSearchIndex;
+import nl.vpro.elasticsearch.highlevel.HighLevelClientFactory;
+import nl.vpro.poms.shared.ExtraHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class AbstractESRepositoryGuardedTest {
+
+    final AbstractESRepository<Object> repository = new AbstractESRepository<>(mock(HighLevelClientFactory.class)) {
+        @Override
+        protected ElasticSearchIndex getIndex(String id, Class<?> clazz) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @AfterEach
+    public void cleanup() {
+        ExtraHeaders.remove();
+    }
+
+    @Test
+    public void lastKnownGoodDisabledByDefault() throws IOException {
+        assertThat(repository.getLastKnownGoodCacheSize()).isEqualTo(0);
+        assertThat(repository.guarded("find", () -> "key", String.class, () -> "result")).isEqualTo("result");
+        tripCircuitBreaker();
+        assertThatThrownBy(() -> repository.guarded("find", () -> "key", String.class, () -> "other"))
+            .isInstanceOf(ElasticsearchStatusException.class)
+            .extracting(e -> ((ElasticsearchStatusException) e).status()).isEqualTo(RestStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    public void lastKnownGoodWhileCircuitBreakerOpen() throws IOException {
+        repository.setLastKnownGoodCacheSize(10);
+        assertThat(repository.guarded("find", () -> "key", String.class, () -> "result")).isEqualTo("result");
+        tripCircuitBreaker();
+        assertThat(repository.guarded("find", () -> "key", String.class, () -> "other")).isEqualTo("result");
+        assertThat(repository.getLastKnownGoodServedCount()).isEqualTo(1);
+        assertThatThrownBy(() -> repository.guarded("find", () -> "other key", String.class, () -> "other"))
+            .isInstanceOf(ElasticsearchStatusException.class);
+    }
+
+    @Test
+    public void noLastKnownGoodIfBulkheadFull() throws Exception {
+        repository.setLastKnownGoodCacheSize(10);
+        repository.setBulkheadLimits("find=1");
+        repository.getBulkheads().setMaxWait(Duration.ofMillis(1));
+        assertThat(repository.guarded("find", () -> "key", String.class, () -> "result")).isEqualTo("result");
+
+        final CountDownLatch inCall = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread holder = new Thread(() -> {
+            try {
+                repository.guarded("find", () -> "key", String.class, () -> {
+                    inCall.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    return "result";
+                });
+            } catch (IOException ignored) {
+            }
+        });
+        holder.start();
+        inCall.await();
+        try {
+            assertThatThrownBy(() -> repository.guarded("find", () -> "key", String.class, () -> "other"))
+                .isInstanceOf(ElasticsearchStatusException.class)
+                .extracting(e -> ((ElasticsearchStatusException) e).status()).isEqualTo(RestStatus.TOO_MANY_REQUESTS);
+            assertThat(repository.getLastKnownGoodServedCount()).isEqualTo(0);
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
+
+    @Test
+    public void guardedAsyncHoldsPermitUntilCompleted() {
+        repository.setBulkheadLimits("find=1");
+        repository.getBulkheads().setMaxWait(Duration.ofMillis(1));
+        final CompletableFuture<String> first = new CompletableFuture<>();
+        assertThat(repository.guardedAsync("find", () -> first)).isSameAs(first);
+        assertThat(repository.guardedAsync("find", () -> CompletableFuture.completedFuture("second")))
+            .isCompletedExceptionally();
+
+        first.complete("first");
+        assertThat(repository.guardedAsync("find", () -> CompletableFuture.completedFuture("third")))
+            .isCompletedWithValue("third");
+    }
+
+    @Test
+    public void guardedAsyncCircuitBreakerOpen() {
+        tripCircuitBreaker();
+        assertThat(repository.guardedAsync("find", () -> CompletableFuture.completedFuture("result")))
+            .isCompletedExceptionally();
+    }
+
+    private void tripCircuitBreaker() {
+        for (int i = 0; i < repository.getCircuitBreaker().getFailureThreshold(); i++) {
+            repository.getCircuitBreaker().tryAcquire().onFailure(new SocketTimeoutException());
+        }
+        assertThat(repository.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,109 @@
+package nl.vpro.domain.api;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.elasticsearch.ElasticSearchIndex;
+import nl.vpro.elasticsearch.highlevel.HighLevelClientFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class AbstractESRepositoryPagingTest {
+
+    final AbstractESRepository<Object> repository = new AbstractESRepository<>(mock(HighLevelClientFactory.class)) {
+        @Override
+        protected ElasticSearchIndex getIndex(String id, Class<?> clazz) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Test
+    public void handlePagingWithoutMax() {
+        SearchSourceBuilder builder = new SearchSourceBuilder();
+        boolean maxWasZero = repository.handlePaging(100, null, builder);
+        assertThat(maxWasZero).isFalse();
+        assertThat(builder.from()).isEqualTo(100);
+        assertThat(builder.size()).isEqualTo(9_900);
+        assertThat(builder.trackTotalHitsUpTo()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void handlePagingWithoutMaxBeyondResultWindow() {
+        repository.setMaxResultWindow(100);
+        assertThatThrownBy(() -> repository.handlePaging(100, null, new SearchSourceBuilder()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void checkResultWindow() {
+        SearchHits truncated = new SearchHits(new SearchHit[] {new SearchHit(1)}, new TotalHits(3, TotalHits.Relation.EQUAL_TO), 1f);
+        assertThatThrownBy(() -> repository.checkResultWindow(1, null, truncated))
+            .isInstanceOf(IllegalArgumentException.class);
+        // a page was asked, so that's fine
+        repository.checkResultWindow(1, 1, truncated);
+
+        SearchHits complete = new SearchHits(new SearchHit[] {new SearchHit(1), new SearchHit(2)}, new TotalHits(3, TotalHits.Relation.EQUAL_TO), 1f);
+        repository.checkResultWindow(1, null, complete);
+    }
+
+    @Test
+    public void checkResultWindowLowerBound() {
+        // the total is only a lower bound, so it can't be known whether everything was returned
+        SearchHits lowerBound = new SearchHits(new SearchHit[] {new SearchHit(1), new SearchHit(2)}, new TotalHits(2, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO), 1f);
+        assertThatThrownBy(() -> repository.checkResultWindow(0, null, lowerBound))
+            .isInstanceOf(IllegalArgumentException.class);
+        repository.checkResultWindow(0, 2, lowerBound);
+    }
+
+    @Test
+    public void handlePagingWithoutMaxAndTrackTotalHitsUpTo() {
+        repository.setTrackTotalHitsUpToAsString("find=100");
+        SearchSourceBuilder builder = new SearchSourceBuilder();
+        repository.handlePaging(0, null, builder);
+        repository.trackTotalHits(builder, "find");
+        // everything was asked, so the total must stay exact
+        assertThat(builder.trackTotalHitsUpTo()).isEqualTo(Integer.MAX_VALUE);
+
+        SearchSourceBuilder page = new SearchSourceBuilder();
+        repository.handlePaging(0, 10, page);
+        repository.trackTotalHits(page, "find");
+        assertThat(page.trackTotalHitsUpTo()).isEqualTo(100);
+    }
+
+    @Test
+    public void handlePagingMaxZero() {
+        SearchSourceBuilder builder = new SearchSourceBuilder();
+        assertThat(repository.handlePaging(0, 0, builder)).isTrue();
+        assertThat(builder.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void trackTotalHits() {
+        repository.setTrackTotalHitsUpToAsString("find=100, *=-1");
+        assertThat(repository.getTrackTotalHitsUpToAsString()).contains("find=100");
+
+        SearchSourceBuilder find = new SearchSourceBuilder();
+        repository.trackTotalHits(find, "find");
+        assertThat(find.trackTotalHitsUpTo()).isEqualTo(100);
+
+        SearchSourceBuilder list = new SearchSourceBuilder();
+        repository.trackTotalHits(list, "list");
+        assertThat(list.trackTotalHitsUpTo()).isEqualTo(Integer.MAX_VALUE);
+
+        repository.setTrackTotalHitsUpToAsString("");
+        SearchSourceBuilder unconfigured = new SearchSourceBuilder();
+        repository.trackTotalHits(unconfigured, "find");
+        assertThat(unconfigured.trackTotalHitsUpTo()).isNull();
+
+        assertThatThrownBy(() -> repository.setTrackTotalHitsUpToAsString("find")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
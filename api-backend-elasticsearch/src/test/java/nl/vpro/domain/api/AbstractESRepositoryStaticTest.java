@@ -1,10 +1,16 @@
 package nl.vpro.domain.api;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.elasticsearch.common.bytes.BytesArray;
 import org.junit.jupiter.api.Test;
 
 import nl.vpro.domain.media.MediaBuilder;
+import nl.vpro.domain.media.MediaObject;
 import nl.vpro.domain.media.Program;
 import nl.vpro.domain.media.support.*;
+import nl.vpro.jackson2.Jackson2Mapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -28,4 +34,24 @@ public class AbstractESRepositoryStaticTest {
         assertThat(AbstractESRepository.filterFields(program, new String[]{"tags", "descriptions.value"}, "titles.value")).containsOnly("tags");
         assertThat(AbstractESRepository.filterFields(program, new String[]{"images.title", "descriptions.value"}, "titles.value")).containsOnly("titles.value");
     }
+
+    @Test
+    public void readSource() throws IOException {
+        Program program = MediaBuilder.program().mid("POMS_123").tags(new Tag("bla")).titles(new Title("bla", OwnerType.BROADCASTER, TextualType.MAIN)).build();
+        byte[] json = Jackson2Mapper.getInstance().writeValueAsBytes(program);
+
+        // the source of a hit is normally a slice of a larger buffer
+        byte[] padded = new byte[json.length + 20];
+        System.arraycopy("[[[[[[[[[[".getBytes(StandardCharsets.US_ASCII), 0, padded, 0, 10);
+        System.arraycopy(json, 0, padded, 10, json.length);
+        System.arraycopy("]]]]]]]]]]".getBytes(StandardCharsets.US_ASCII), 0, padded, 10 + json.length, 10);
+
+        MediaObject read = AbstractESRepository.readSource(new BytesArray(padded, 10, json.length), MediaObject.class);
+        MediaObject viaTree = Jackson2Mapper.getLenientInstance().readerFor(MediaObject.class).readValue(Jackson2Mapper.getLenientInstance().readTree(json));
+
+        assertThat(read).isInstanceOf(Program.class);
+        assertThat(read.getMid()).isEqualTo("POMS_123");
+        assertThat(read.getMainTitle()).isEqualTo("bla");
+        assertThat(read).isEqualTo(viaTree);
+    }
 }
@@ -0,0 +1,74 @@
+package nl.vpro.domain.api;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BatchingLoaderTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    private Map<String, String> load(List<String> ids) {
+        batches.add(ids);
+        Map<String, String> result = new HashMap<>();
+        for (String id : ids) {
+            if (! id.startsWith("missing")) {
+                result.put(id, id.toUpperCase());
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void window() throws Exception {
+        try (BatchingLoader<String> loader = new BatchingLoader<>(Duration.ofMillis(50), 100, this::load, ForkJoinPool.commonPool())) {
+            CompletableFuture<String> a = loader.load("a");
+            CompletableFuture<String> b = loader.load("b");
+            CompletableFuture<String> a2 = loader.load("a");
+            CompletableFuture<String> missing = loader.load("missing");
+
+            assertThat(a.get(10, TimeUnit.SECONDS)).isEqualTo("A");
+            assertThat(b.get(10, TimeUnit.SECONDS)).isEqualTo("B");
+            assertThat(a2.get(10, TimeUnit.SECONDS)).isEqualTo("A");
+            assertThat(missing.get(10, TimeUnit.SECONDS)).isNull();
+
+            assertThat(batches).containsExactly(List.of("a", "b", "missing"));
+            assertThat(loader.getLoadCount()).isEqualTo(4);
+            assertThat(loader.getBatchCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void maxBatchSize() throws Exception {
+        try (BatchingLoader<String> loader = new BatchingLoader<>(Duration.ofMinutes(10), 2, this::load, ForkJoinPool.commonPool())) {
+            CompletableFuture<String> a = loader.load("a");
+            CompletableFuture<String> b = loader.load("b");
+            assertThat(a.get(10, TimeUnit.SECONDS)).isEqualTo("A");
+            assertThat(b.get(10, TimeUnit.SECONDS)).isEqualTo("B");
+            assertThat(batches).containsExactly(List.of("a", "b"));
+            assertThat(loader.isFlushScheduled()).isFalse();
+
+            loader.load("c");
+            assertThat(loader.isFlushScheduled()).isTrue();
+            loader.flush();
+            assertThat(loader.isFlushScheduled()).isFalse();
+        }
+    }
+
+    @Test
+    public void exception() {
+        try (BatchingLoader<String> loader = new BatchingLoader<>(Duration.ofMillis(1), 10, ids -> {
+            throw new IllegalStateException("foo");
+        }, ForkJoinPool.commonPool())) {
+            CompletableFuture<String> a = loader.load("a");
+            assertThatThrownBy(() -> a.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+}
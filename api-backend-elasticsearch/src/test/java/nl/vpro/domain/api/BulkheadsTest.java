@@ -0,0 +1,61 @@
+package nl.vpro.domain.api;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BulkheadsTest {
+
+    private final Bulkheads bulkheads = new Bulkheads();
+
+    @Test
+    public void limits() throws Exception {
+        bulkheads.setMaxWait(Duration.ofMillis(1));
+        bulkheads.setLimits("iterate=1, *=2");
+        assertThat(bulkheads.getLimits()).isEqualTo("*=2,iterate=1");
+
+        Bulkheads.Permit iterate = bulkheads.tryAcquire("iterate");
+        assertThat(iterate).isNotNull();
+        assertThat(bulkheads.tryAcquire("iterate")).isNull();
+
+        // other methods each get a bulkhead with the default limit
+        Bulkheads.Permit find = bulkheads.tryAcquire("find");
+        Bulkheads.Permit find2 = bulkheads.tryAcquire("find");
+        Bulkheads.Permit load = bulkheads.tryAcquire("load");
+        assertThat(find).isNotNull();
+        assertThat(find2).isNotNull();
+        assertThat(load).isNotNull();
+        assertThat(bulkheads.tryAcquire("find")).isNull();
+        assertThat(bulkheads.getInUse()).containsEntry("iterate", 1).containsEntry("find", 2).containsEntry("load", 1);
+        assertThat(bulkheads.getRejected()).containsEntry("iterate", 1L).containsEntry("find", 1L).containsEntry("load", 0L);
+
+        iterate.close();
+        find.close();
+        assertThat(bulkheads.tryAcquire("iterate")).isNotNull();
+        assertThat(bulkheads.tryAcquire("find")).isNotNull();
+    }
+
+    @Test
+    public void unlimited() throws Exception {
+        bulkheads.setLimits("iterate=1");
+        for (int i = 0; i < 100; i++) {
+            assertThat(bulkheads.tryAcquire("find")).isSameAs(Bulkheads.Permit.NONE);
+        }
+    }
+
+    @Test
+    public void off() throws Exception {
+        bulkheads.setLimits("");
+        assertThat(bulkheads.getLimits()).isEmpty();
+        assertThat(bulkheads.tryAcquire("iterate")).isSameAs(Bulkheads.Permit.NONE);
+        assertThat(bulkheads.tryAcquire("find")).isSameAs(Bulkheads.Permit.NONE);
+    }
+
+    @Test
+    public void unparsable() {
+        assertThatThrownBy(() -> bulkheads.setLimits("iterate")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
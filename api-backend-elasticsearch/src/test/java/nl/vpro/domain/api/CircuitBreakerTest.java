@@ -0,0 +1,128 @@
+package nl.vpro.domain.api;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.meeuw.time.TestClock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CircuitBreakerTest {
+
+    private final TestClock clock = TestClock.twentyTwenty();
+    private final CircuitBreaker breaker = new CircuitBreaker("test", clock);
+
+    @BeforeEach
+    public void setup() {
+        breaker.setFailureThreshold(3);
+        breaker.setFailureWindow(Duration.ofSeconds(10));
+        breaker.setOpenDuration(Duration.ofSeconds(30));
+    }
+
+    private void fail(Throwable throwable) {
+        acquire().onFailure(throwable);
+    }
+
+    private CircuitBreaker.Permit acquire() {
+        final CircuitBreaker.Permit permit = breaker.tryAcquire();
+        assertThat(permit).isNotNull();
+        return permit;
+    }
+
+    private void trip() {
+        for (int i = 0; i < 3; i++) {
+            fail(new SocketTimeoutException());
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void trips() {
+        fail(new SocketTimeoutException());
+        fail(new ElasticsearchStatusException("busy", RestStatus.TOO_MANY_REQUESTS));
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        fail(new IOException(new ElasticsearchStatusException("unavailable", RestStatus.SERVICE_UNAVAILABLE)));
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+        assertThat(breaker.getTripCount()).isEqualTo(1);
+        assertThat(breaker.getRefusedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void otherFailuresDontTrip() {
+        for (int i = 0; i < 10; i++) {
+            fail(new ElasticsearchStatusException("bad request", RestStatus.BAD_REQUEST));
+            fail(new IOException("connection reset"));
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void failuresOutsideWindow() {
+        fail(new SocketTimeoutException());
+        fail(new SocketTimeoutException());
+        clock.tick(Duration.ofSeconds(11));
+        fail(new SocketTimeoutException());
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void halfOpen() {
+        trip();
+        clock.tick(Duration.ofSeconds(31));
+        final CircuitBreaker.Permit trial = acquire();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        // only one trial at a time
+        assertThat(breaker.tryAcquire()).isNull();
+
+        trial.onFailure(new SocketTimeoutException());
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getTripCount()).isEqualTo(2);
+
+        clock.tick(Duration.ofSeconds(31));
+        acquire().onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isNotNull();
+    }
+
+    @Test
+    public void stragglerSuccessWhileOpen() {
+        final CircuitBreaker.Permit straggler = acquire();
+        trip();
+
+        straggler.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    public void nonTrippingFailureWhileOpen() {
+        final CircuitBreaker.Permit straggler = acquire();
+        trip();
+
+        straggler.onFailure(new ElasticsearchStatusException("bad request", RestStatus.BAD_REQUEST));
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    public void stragglerWhileHalfOpen() {
+        final CircuitBreaker.Permit straggler = acquire();
+        trip();
+        clock.tick(Duration.ofSeconds(31));
+        final CircuitBreaker.Permit trial = acquire();
+
+        // only the trial decides
+        straggler.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+
+        trial.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+}
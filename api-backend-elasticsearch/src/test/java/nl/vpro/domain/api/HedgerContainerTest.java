@@ -0,0 +1,126 @@
+package nl.vpro.domain.api;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.jupiter.api.*;
+
+import nl.vpro.elasticsearch.ElasticSearchIndex;
+import nl.vpro.es.ApiQueryIndex;
+import nl.vpro.util.CloseableIterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that elasticsearch accepts the requests as the {@link Hedger} duplicates them.
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class HedgerContainerTest extends AbstractESRepositoryContainerTest {
+
+    private AbstractESRepository<Object> repository;
+
+    private final Hedger hedger = new Hedger();
+
+    @Override
+    protected void firstRun() throws IOException {
+        createIndexIfNecessary(ApiQueryIndex.APIQUERIES);
+        for (int i = 0; i < 10; i++) {
+            indexHelpers.get(ApiQueryIndex.APIQUERIES).index("id" + i, Map.of("id", "id" + i, "sortDate", 1000L * i));
+        }
+        refresh();
+    }
+
+    @BeforeEach
+    public void setup() {
+        repository = new AbstractESRepository<>(staticClientFactory) {
+            @Override
+            protected ElasticSearchIndex getIndex(String id, Class<?> clazz) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        hedger.setEnabled(true);
+        hedger.setBudget(1);
+        hedger.setMinDelay(Duration.ofMillis(1));
+        for (int i = 0; i < hedger.getMinSamples(); i++) {
+            hedger.record("test", Duration.ofMillis(1));
+        }
+    }
+
+    @AfterAll
+    public void closeHedger() {
+        hedger.close();
+    }
+
+    @Test
+    public void hedgedSearch() throws Exception {
+        final SearchRequest request = new SearchRequest(getIndexName())
+            .source(new SearchSourceBuilder().query(QueryBuilders.matchAllQuery()));
+        final CompletableFuture<SearchResponse> never = new CompletableFuture<>();
+
+        final SearchResponse response = hedger.execute("test", preference ->
+            preference == null ? never : repository.searchAsync(AbstractESRepository.withPreference(request, preference))
+        ).get(10, TimeUnit.SECONDS);
+
+        assertThat(response.getFailedShards()).isEqualTo(0);
+        assertThat(hedger.getHedgeWinCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void withPreferenceCopies() {
+        final SearchRequest request = new SearchRequest(getIndexName())
+            .source(new SearchSourceBuilder().query(QueryBuilders.matchAllQuery()))
+            .allowPartialSearchResults(false)
+            .scroll("1m");
+        final SearchRequest copy = AbstractESRepository.withPreference(request, "_local");
+        assertThat(copy.preference()).isEqualTo("_local");
+        assertThat(copy.allowPartialSearchResults()).isFalse();
+        assertThat(copy.scroll()).isEqualTo(request.scroll());
+        assertThat(copy.source()).isSameAs(request.source());
+        assertThat(request.preference()).isNull();
+    }
+
+    @Test
+    public void pointInTimeNotHedged() {
+        repository.setHedging(true);
+        repository.setHedgeBudget(1);
+        repository.hedger.setMinDelay(Duration.ofMillis(1));
+        for (int i = 0; i < repository.hedger.getMinSamples(); i++) {
+            repository.hedger.record("pit:" + getIndexName(), Duration.ofMillis(1));
+        }
+        final List<String> ids = new ArrayList<>();
+        try (CloseableIterator<String> i = repository.pointInTimeIterator("pit",
+            new SearchSourceBuilder().sort("sortDate", SortOrder.ASC).sort("id", SortOrder.ASC).size(3),
+            null, SearchHit::getId, getIndexName())) {
+            i.forEachRemaining(ids::add);
+        }
+        assertThat(ids).hasSize(10);
+        assertThat(repository.getHedgedCount()).isZero();
+    }
+
+    @Test
+    public void hedgedMget() throws Exception {
+        final MultiGetRequest request = new MultiGetRequest().add(getIndexName(), "does-not-exist");
+        final CompletableFuture<MultiGetResponse> never = new CompletableFuture<>();
+
+        final MultiGetResponse response = hedger.execute("test", preference ->
+            preference == null ? never : repository.mgetAsync(AbstractESRepository.withPreference(request, preference))
+        ).get(10, TimeUnit.SECONDS);
+
+        assertThat(response.getResponses()[0].isFailed()).isFalse();
+        assertThat(response.getResponses()[0].getResponse().isExists()).isFalse();
+    }
+}
@@ -0,0 +1,137 @@
+package nl.vpro.domain.api;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HedgerTest {
+
+    private final Hedger hedger = new Hedger();
+
+    @AfterEach
+    public void close() {
+        hedger.close();
+    }
+
+    private void warmUp(String key, Duration latency) {
+        for (int i = 0; i < hedger.getMinSamples(); i++) {
+            hedger.record(key, latency);
+        }
+    }
+
+    @Test
+    public void notEnabled() throws Exception {
+        warmUp("find", Duration.ofMillis(1));
+        final CompletableFuture<String> never = new CompletableFuture<>();
+        final CompletableFuture<String> result = hedger.execute("find", preference -> preference == null ? never : CompletableFuture.completedFuture("hedge"));
+        Thread.sleep(50);
+        assertThat(result).isNotDone();
+        assertThat(hedger.getHedgedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void hedge() throws Exception {
+        hedger.setEnabled(true);
+        hedger.setBudget(1);
+        hedger.setMinDelay(Duration.ofMillis(1));
+        warmUp("find", Duration.ofMillis(5));
+        final CompletableFuture<String> slow = new CompletableFuture<>();
+        final List<String> preferences = new CopyOnWriteArrayList<>();
+        final CompletableFuture<String> result = hedger.execute("find", preference -> {
+            preferences.add(String.valueOf(preference));
+            return preference == null ? slow : CompletableFuture.completedFuture("hedge");
+        });
+
+        assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("hedge");
+        assertThat(slow).isCancelled();
+        assertThat(preferences).hasSize(2);
+        assertThat(preferences.get(1)).startsWith(Hedger.HEDGE_PREFERENCE).doesNotStartWith("_");
+        assertThat(hedger.getHedgedCount()).isEqualTo(1);
+        assertThat(hedger.getHedgeWinCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void fastEnoughNotHedged() throws Exception {
+        hedger.setEnabled(true);
+        hedger.setBudget(1);
+        warmUp("find", Duration.ofSeconds(10));
+        final CompletableFuture<String> result = hedger.execute("find", preference -> CompletableFuture.completedFuture(preference == null ? "primary" : "hedge"));
+        assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("primary");
+        assertThat(hedger.getHedgedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void budget() throws Exception {
+        hedger.setEnabled(true);
+        hedger.setBudget(0.01);
+        hedger.setMinDelay(Duration.ofMillis(1));
+        warmUp("find", Duration.ofMillis(1));
+        final CompletableFuture<String> slow = new CompletableFuture<>();
+        final CompletableFuture<String> result = hedger.execute("find", preference -> preference == null ? slow : CompletableFuture.completedFuture("hedge"));
+        Thread.sleep(100);
+        assertThat(result).isNotDone();
+        assertThat(hedger.getHedgedCount()).isEqualTo(0);
+        slow.complete("primary");
+        assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("primary");
+    }
+
+    @Test
+    public void primaryFailsHedgeSucceeds() throws Exception {
+        hedger.setEnabled(true);
+        hedger.setBudget(1);
+        hedger.setMinDelay(Duration.ofMillis(1));
+        warmUp("find", Duration.ofMillis(5));
+        final CompletableFuture<String> failing = new CompletableFuture<>();
+        final CompletableFuture<String> result = hedger.execute("find", preference -> {
+            if (preference == null) {
+                return failing;
+            }
+            failing.completeExceptionally(new IllegalStateException());
+            return CompletableFuture.supplyAsync(() -> "hedge");
+        });
+        assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("hedge");
+    }
+
+    @Test
+    public void primaryFailsWhileHedgeRefused() throws Exception {
+        hedger.setEnabled(true);
+        hedger.setBudget(0);
+        hedger.setMinDelay(Duration.ofMillis(1));
+        warmUp("find", Duration.ofMillis(1));
+        final CompletableFuture<String> failing = new CompletableFuture<>();
+        final CompletableFuture<String> result;
+        synchronized (hedger) {
+            // the scheduled hedge blocks on spending a token, after it counted itself as outstanding
+            result = hedger.execute("find", preference -> preference == null ? failing : CompletableFuture.completedFuture("hedge"));
+            while (! hedgerBlocked()) {
+                Thread.sleep(1);
+            }
+            failing.completeExceptionally(new IllegalStateException("primary"));
+            assertThat(result).isNotDone();
+        }
+        assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(hedger.getHedgedCount()).isEqualTo(0);
+    }
+
+    private static boolean hedgerBlocked() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .anyMatch(t -> t.getName().equals("Hedger") && t.getState() == Thread.State.BLOCKED);
+    }
+
+    @Test
+    public void p95() {
+        for (int i = 1; i <= 100; i++) {
+            hedger.record("find", Duration.ofMillis(i));
+        }
+        assertThat(hedger.p95("find")).isEqualTo(Duration.ofMillis(95));
+        assertThat(hedger.p95("other")).isNull();
+    }
+}
@@ -0,0 +1,43 @@
+package nl.vpro.domain.api;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class NearCacheTest {
+
+    @Test
+    public void cachesAbsenceAndPresence() {
+        NearCache<String> cache = new NearCache<>(10, Duration.ofMinutes(1));
+        assertThat(cache.getIfPresent("apimedia", "MID_1")).isNull();
+        cache.put("apimedia", "MID_1", "a");
+        cache.put("apimedia", "MID_2", null);
+
+        assertThat(cache.getIfPresent("apimedia", "MID_1")).contains("a");
+        assertThat(cache.getIfPresent("apimedia", "MID_2")).isEmpty();
+        assertThat(cache.getIfPresent("otherindex", "MID_1")).isNull();
+
+        assertThat(cache.stats().hitCount()).isEqualTo(2);
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidateAndEvict() {
+        NearCache<String> cache = new NearCache<>(2, Duration.ofMinutes(1));
+        cache.put("apimedia", "MID_1", "a");
+        cache.invalidate("apimedia", "MID_1");
+        assertThat(cache.getIfPresent("apimedia", "MID_1")).isNull();
+
+        cache.put("apimedia", "MID_1", "a");
+        cache.put("apimedia", "MID_2", "b");
+        cache.put("apimedia", "MID_3", "c");
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.stats().evictionCount()).isEqualTo(1);
+    }
+}
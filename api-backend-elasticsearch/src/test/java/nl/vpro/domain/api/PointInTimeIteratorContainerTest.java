@@ -0,0 +1,117 @@
+package nl.vpro.domain.api;
+
+import java.io.IOException;
+import java.util.*;
+
+import org.elasticsearch.action.search.*;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.jupiter.api.*;
+
+import nl.vpro.elasticsearch.ElasticSearchIndex;
+import nl.vpro.es.ApiQueryIndex;
+import nl.vpro.util.CloseableIterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests {@link AbstractESRepository#pointInTimeIterator(String, SearchSourceBuilder, Object[], java.util.function.Function, String...)} against a real elasticsearch.
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class PointInTimeIteratorContainerTest extends AbstractESRepositoryContainerTest {
+
+    private static final int COUNT = 25;
+
+    private AbstractESRepository<Object> repository;
+
+    private final List<String> pointInTimeIds = new ArrayList<>();
+
+    @Override
+    protected void firstRun() throws IOException {
+        createIndexIfNecessary(ApiQueryIndex.APIQUERIES);
+        for (int i = 0; i < COUNT; i++) {
+            indexHelpers.get(ApiQueryIndex.APIQUERIES).index(id(i), Map.of("id", id(i), "sortDate", 1000L * (i / 2)));
+        }
+        refresh();
+    }
+
+    @BeforeEach
+    public void setup() {
+        pointInTimeIds.clear();
+        repository = new AbstractESRepository<>(staticClientFactory) {
+            @Override
+            protected ElasticSearchIndex getIndex(String id, Class<?> clazz) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected SearchResponse search(SearchRequest request, RepositoryTimer timer) throws IOException {
+                pointInTimeIds.add(request.source().pointInTimeBuilder().getId());
+                return super.search(request, timer);
+            }
+        };
+    }
+
+    @Test
+    public void all() {
+        try (CloseableIterator<String> i = iterator(null)) {
+            assertThat(i).toIterable().containsExactlyElementsOf(ids());
+        }
+    }
+
+    @Test
+    public void resumeAfter() {
+        final List<String> all = new ArrayList<>();
+        try (CloseableIterator<String> i = iterator(null)) {
+            for (int j = 0; j < 12; j++) {
+                all.add(i.next());
+            }
+        }
+        // like a client resuming from the sort values of the last one it received
+        try (CloseableIterator<String> i = iterator(new Object[] {1000L * (11 / 2), id(11)})) {
+            i.forEachRemaining(all::add);
+        }
+        assertThat(all).containsExactlyElementsOf(ids());
+    }
+
+    @Test
+    public void pointInTimeExpired() throws IOException {
+        final List<String> result = new ArrayList<>();
+        try (CloseableIterator<String> i = iterator(null)) {
+            for (int j = 0; j < 10; j++) {
+                result.add(i.next());
+            }
+            // simulate expiry, by closing the point in time behind the back of the iterator
+            final String expired = pointInTimeIds.get(pointInTimeIds.size() - 1);
+            highLevelClient().closePointInTime(new ClosePointInTimeRequest(expired), RequestOptions.DEFAULT);
+
+            i.forEachRemaining(result::add);
+        }
+        assertThat(result).containsExactlyElementsOf(ids());
+        assertThat(pointInTimeIds).hasSizeGreaterThan(1);
+        assertThat(pointInTimeIds.get(pointInTimeIds.size() - 1)).isNotEqualTo(pointInTimeIds.get(0));
+    }
+
+    private CloseableIterator<String> iterator(Object[] after) {
+        final SearchSourceBuilder source = new SearchSourceBuilder()
+            .sort("sortDate", SortOrder.ASC)
+            .sort("id", SortOrder.ASC)
+            .size(5);
+        return repository.pointInTimeIterator("test", source, after, SearchHit::getId, getIndexName());
+    }
+
+    private static String id(int i) {
+        return String.format("id%02d", i);
+    }
+
+    private static List<String> ids() {
+        final List<String> result = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            result.add(id(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package nl.vpro.domain.api;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.poms.shared.ExtraHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RepositoryTimerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    public void cleanup() {
+        ExtraHeaders.remove();
+    }
+
+    @Test
+    public void recordRoundTrip() {
+        RepositoryTimer timer = new RepositoryTimer(registry, "ESMediaRepository", "find", "apimedia", true);
+        timer.recordRoundTrip(Duration.ofMillis(30), Duration.ofMillis(20));
+
+        Timer es = registry.get(RepositoryTimer.METER)
+            .tag("method", "find")
+            .tag("index", "apimedia")
+            .tag("phase", RepositoryTimer.ES)
+            .timer();
+        Timer network = registry.get(RepositoryTimer.METER)
+            .tag("phase", RepositoryTimer.NETWORK)
+            .timer();
+        assertThat(es.count()).isEqualTo(1);
+        assertThat(es.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(20d);
+        assertThat(network.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(10d);
+
+        assertThat(ExtraHeaders.get().stream().filter(p -> p.getKey().equals(RepositoryTimer.SERVER_TIMING)).count()).isEqualTo(2);
+    }
+
+    @Test
+    public void withoutServerTiming() {
+        RepositoryTimer timer = new RepositoryTimer(registry, "ESMediaRepository", "find", "apimedia", true).withoutServerTiming();
+        assertThat(timer.time(RepositoryTimer.DECODE, () -> "a")).isEqualTo("a");
+
+        assertThat(registry.get(RepositoryTimer.METER).tag("phase", RepositoryTimer.DECODE).timer().count()).isEqualTo(1);
+        assertThat(ExtraHeaders.get()).isEmpty();
+    }
+
+    @Test
+    public void registeredOnce() {
+        RepositoryTimer timer = new RepositoryTimer(registry, "ESMediaRepository", "find", "apimedia", false);
+        timer.record(RepositoryTimer.DECODE, Duration.ofMillis(1));
+        timer.withoutServerTiming().record(RepositoryTimer.DECODE, Duration.ofMillis(2));
+
+        assertThat(registry.getMeters()).hasSize(1);
+        assertThat(registry.get(RepositoryTimer.METER).tag("phase", RepositoryTimer.DECODE).timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void disabled() {
+        RepositoryTimer.disabled().record(RepositoryTimer.ES, Duration.ofMillis(10));
+        assertThat(ExtraHeaders.get()).isEmpty();
+    }
+
+    @Test
+    public void serverTimingValue() {
+        assertThat(RepositoryTimer.serverTimingValue("find", RepositoryTimer.DECODE, Duration.ofMicros(1234)))
+            .isEqualTo("decode;desc=\"find\";dur=1.2");
+    }
+}
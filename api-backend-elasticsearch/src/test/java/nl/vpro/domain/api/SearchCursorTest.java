@@ -0,0 +1,66 @@
+package nl.vpro.domain.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class SearchCursorTest {
+
+    private static final String SEARCH = SearchCursor.search("findWithCursor", "vpro", "{}");
+
+    @Test
+    public void roundTrip() {
+        final SearchCursor cursor = new SearchCursor("pit-id", new Object[] {1.5f, 1469383200000L, "MID_1"}, SEARCH);
+        final String encoded = cursor.encode();
+        assertThat(encoded).doesNotContain("=", "+", "/");
+
+        final SearchCursor decoded = SearchCursor.decode(encoded, SEARCH);
+        assertThat(decoded.getPointInTimeId()).isEqualTo("pit-id");
+        assertThat(decoded.getSearch()).isEqualTo(SEARCH);
+        assertThat(decoded.getSearchAfter()).hasSize(3);
+        assertThat(((Number) decoded.getSearchAfter()[1]).longValue()).isEqualTo(1469383200000L);
+        assertThat(decoded.getSearchAfter()[2]).isEqualTo("MID_1");
+    }
+
+    @Test
+    public void search() {
+        assertThat(SearchCursor.search("findWithCursor", "vpro", "{}")).isEqualTo(SEARCH);
+        assertThat(SearchCursor.search("findWithCursor", null, "{}")).isNotEqualTo(SEARCH);
+        assertThat(SearchCursor.search("findWithCursor", "vpr", "o{}")).isNotEqualTo(SEARCH);
+        assertThat(SearchCursor.search("listWithCursor", "ASC")).isNotEqualTo(SearchCursor.search("listWithCursor", "DESC"));
+    }
+
+    @Test
+    public void foreign() {
+        final String encoded = new SearchCursor("pit-id", new Object[] {"MID_1"}, SearchCursor.search("listWithCursor", "ASC")).encode();
+        assertThatThrownBy(() -> SearchCursor.decode(encoded, SEARCH))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("not for this search");
+    }
+
+    @Test
+    public void tampered() {
+        final String encoded = new SearchCursor("pit-id", new Object[] {"MID_1"}, SEARCH).encode();
+        assertThatThrownBy(() -> SearchCursor.decode(encoded.substring(0, encoded.length() - 5), SEARCH))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SearchCursor.decode("not a cursor", SEARCH))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SearchCursor.decode(encode("{\"pit\":\"pit-id\",\"after\":[\"MID_1\"]}"), SEARCH))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Incomplete");
+        assertThatThrownBy(() -> SearchCursor.decode(encode("[]"), SEARCH))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
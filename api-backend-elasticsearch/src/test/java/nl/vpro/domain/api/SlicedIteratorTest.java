@@ -0,0 +1,97 @@
+package nl.vpro.domain.api;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.util.BasicWrappedIterator;
+import nl.vpro.util.CloseableIterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SlicedIteratorTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Slice i contains the numbers below 1000 which are i modulo the number of slices
+     */
+    private static CloseableIterator<Integer> slice(int slice, int slices) {
+        return new BasicWrappedIterator<>(IntStream.range(0, 1000).filter(i -> i % slices == slice).boxed().iterator());
+    }
+
+    @Test
+    public void interleave() {
+        final List<Integer> result = new ArrayList<>();
+        try (SlicedIterator<Integer> i = SlicedIterator.<Integer>builder()
+            .slices(4)
+            .slice(s -> slice(s, 4))
+            .bufferSize(10)
+            .executor(executor)
+            .build()) {
+            i.forEachRemaining(result::add);
+        }
+        assertThat(result).hasSize(1000);
+        assertThat(result).containsExactlyInAnyOrderElementsOf(IntStream.range(0, 1000).boxed().toList());
+    }
+
+    @Test
+    public void merge() {
+        final List<Integer> result = new ArrayList<>();
+        try (SlicedIterator<Integer> i = SlicedIterator.<Integer>builder()
+            .slices(3)
+            .slice(s -> slice(s, 3))
+            .bufferSize(5)
+            .executor(executor)
+            .comparator(Comparator.naturalOrder())
+            .build()) {
+            i.forEachRemaining(result::add);
+        }
+        assertThat(result).containsExactlyElementsOf(IntStream.range(0, 1000).boxed().toList());
+    }
+
+    @Test
+    public void failingSlice() {
+        try (SlicedIterator<Integer> i = SlicedIterator.<Integer>builder()
+            .slices(2)
+            .slice(s -> {
+                if (s == 1) {
+                    throw new IllegalArgumentException("slice 1 fails");
+                }
+                return slice(s, 2);
+            })
+            .bufferSize(5)
+            .executor(executor)
+            .comparator(Comparator.naturalOrder())
+            .build()) {
+            assertThatThrownBy(() -> i.forEachRemaining(n -> {}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("slice 1 fails");
+        }
+    }
+
+    @Test
+    public void closeEarly() {
+        final SlicedIterator<Integer> i = SlicedIterator.<Integer>builder()
+            .slices(2)
+            .slice(s -> slice(s, 2))
+            .bufferSize(1)
+            .executor(executor)
+            .build();
+        assertThat(i.next()).isNotNull();
+        i.close();
+        assertThat(i.hasNext()).isFalse();
+    }
+}
@@ -0,0 +1,81 @@
+package nl.vpro.domain.api;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SlowQueryLogTest {
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog("test");
+
+    private final SearchRequest request = new SearchRequest("apimedia")
+        .source(new SearchSourceBuilder().query(QueryBuilders.termQuery("broadcasters.id", "VPRO")));
+
+    @Test
+    public void notSlow() {
+        slowQueryLog.setThreshold(Duration.ofSeconds(1));
+        assertThat(slowQueryLog.check("find", request, Duration.ofMillis(999), () -> "context", r -> {
+            throw new AssertionError();
+        })).isFalse();
+        assertThat(slowQueryLog.getSlowQueries()).isEmpty();
+    }
+
+    @Test
+    public void slowButNotProfiledByDefault() {
+        slowQueryLog.setThreshold(Duration.ofSeconds(1));
+        assertThat(slowQueryLog.check("find", request, Duration.ofSeconds(2), () -> "context", r -> {
+            throw new AssertionError();
+        })).isTrue();
+        assertThat(slowQueryLog.getSlowQueries()).hasSize(1);
+    }
+
+    @Test
+    public void slowAndProfiled() {
+        slowQueryLog.setThreshold(Duration.ofSeconds(1));
+        slowQueryLog.setSampleRate(1);
+        final AtomicReference<SearchRequest> reRun = new AtomicReference<>();
+        final SearchResponse response = mock(SearchResponse.class);
+        when(response.getProfileResults()).thenReturn(Map.of());
+
+        assertThat(slowQueryLog.check("find", request, Duration.ofSeconds(2), () -> "profile: vpro", r -> {
+            reRun.set(r);
+            return CompletableFuture.completedFuture(response);
+        })).isTrue();
+
+        assertThat(reRun.get().source().profile()).isTrue();
+        assertThat(request.source().profile()).isFalse();
+        assertThat(slowQueryLog.getSlowQueries()).hasSize(1);
+        SlowQueryLog.SlowQuery slowQuery = slowQueryLog.getSlowQueries().get(0);
+        assertThat(slowQuery.getMethod()).isEqualTo("find");
+        assertThat(slowQuery.getContext()).isEqualTo("profile: vpro");
+        assertThat(slowQuery.getQuery()).contains("broadcasters.id");
+        assertThat(slowQuery.getProfile()).isEqualTo("");
+    }
+
+    @Test
+    public void ringBuffer() {
+        slowQueryLog.setThreshold(Duration.ofMillis(1));
+        slowQueryLog.setSampleRate(0);
+        slowQueryLog.setCapacity(2);
+        for (int i = 0; i < 5; i++) {
+            final String method = "method" + i;
+            slowQueryLog.check(method, request, Duration.ofSeconds(1), () -> "", r -> {
+                throw new AssertionError();
+            });
+        }
+        assertThat(slowQueryLog.getSlowQueries())
+            .extracting(SlowQueryLog.SlowQuery::getMethod)
+            .containsExactly("method4", "method3");
+    }
+}
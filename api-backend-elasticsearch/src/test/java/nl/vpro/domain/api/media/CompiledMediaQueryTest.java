@@ -0,0 +1,93 @@
+package nl.vpro.domain.api.media;
+
+import java.time.Instant;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.functionscore.FunctionScoreQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.domain.api.SearchFieldDefinition;
+import nl.vpro.domain.api.profile.ProfileDefinition;
+import nl.vpro.domain.constraint.media.Filter;
+import nl.vpro.domain.media.MediaObject;
+
+import static nl.vpro.domain.constraint.media.MediaConstraints.broadcaster;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompiledMediaQueryTest {
+
+    @Test
+    public void applyTo() {
+        final BoolQueryBuilder rootQuery = QueryBuilders.boolQuery().must(QueryBuilders.termQuery("type", "BROADCAST"));
+        final SearchSourceBuilder template = new SearchSourceBuilder()
+            .aggregation(AggregationBuilders.filter("mediaRootFilter", rootQuery))
+            .sort(SortBuilders.fieldSort("sortDate"))
+            .highlighter(new HighlightBuilder().field("titles.value"));
+        final CompiledMediaQuery compiled = new CompiledMediaQuery(rootQuery, template);
+
+        final SearchSourceBuilder unscored = new SearchSourceBuilder().size(10);
+        compiled.applyTo(unscored, null);
+        assertThat(unscored.query()).isSameAs(rootQuery);
+        assertThat(unscored.aggregations().getAggregatorFactories()).hasSize(1);
+        assertThat(unscored.sorts()).hasSize(1);
+        assertThat(unscored.highlighter()).isSameAs(template.highlighter());
+        assertThat(unscored.size()).isEqualTo(10);
+
+        final SearchSourceBuilder scored = new SearchSourceBuilder();
+        compiled.applyTo(scored, Instant.parse("2026-10-17T12:00:00Z"));
+        assertThat(scored.query()).isInstanceOf(FunctionScoreQueryBuilder.class);
+        assertThat(((FunctionScoreQueryBuilder) scored.query()).query()).isSameAs(rootQuery);
+
+        // the builders are shared, but the outer search builders are not
+        assertThat(scored.aggregations()).isNotSameAs(unscored.aggregations());
+        assertThat(scored.aggregations().getAggregatorFactories()).isEqualTo(unscored.aggregations().getAggregatorFactories());
+        assertThat(scored.sorts()).isNotSameAs(unscored.sorts());
+        assertThat(scored.sorts()).isEqualTo(unscored.sorts());
+        assertThat(scored.size()).isEqualTo(-1);
+
+        // adding to one request doesn't affect the others
+        scored.sort(SortBuilders.fieldSort("mid"));
+        assertThat(unscored.sorts()).hasSize(1);
+
+        // the template itself is not touched
+        assertThat(template.query()).isNull();
+    }
+
+    @Test
+    public void key() {
+        final BoolQueryBuilder rootQuery = QueryBuilders.boolQuery();
+        final CompiledMediaQuery.Key key = CompiledMediaQuery.Key.of(MediaFormBuilder.form().text("foo").build(), null, rootQuery, null, 0);
+
+        assertThat(CompiledMediaQuery.Key.of(MediaFormBuilder.form().text("foo").build(), null, QueryBuilders.boolQuery(), null, 0)).isEqualTo(key);
+        assertThat(CompiledMediaQuery.Key.of(MediaFormBuilder.form().text("bar").build(), null, rootQuery, null, 0)).isNotEqualTo(key);
+        assertThat(CompiledMediaQuery.Key.of(MediaFormBuilder.form().text("foo").build(), null, QueryBuilders.boolQuery().filter(QueryBuilders.termQuery("type", "BROADCAST")), null, 0)).isNotEqualTo(key);
+    }
+
+    @Test
+    public void profileVersion() {
+        final ProfileDefinition<MediaObject> vpro = new ProfileDefinition<>(new Filter(broadcaster("vpro")));
+        assertThat(CompiledMediaQuery.profileVersion(vpro)).isSameAs(CompiledMediaQuery.profileVersion(vpro));
+        assertThat(CompiledMediaQuery.profileVersion(new ProfileDefinition<>(new Filter(broadcaster("vpro")))))
+            .isEqualTo(CompiledMediaQuery.profileVersion(vpro));
+        assertThat(CompiledMediaQuery.profileVersion(new ProfileDefinition<>(new Filter(broadcaster("kro")))))
+            .isNotEqualTo(CompiledMediaQuery.profileVersion(vpro));
+    }
+
+    @Test
+    public void boostVersion() {
+        final SearchFieldDefinition field = ESMediaQueryBuilder.SEARCH_FIELDS.get(0);
+        final long before = ESMediaQueryBuilder.getBoostVersion();
+        ESMediaQueryBuilder.boostField(field.getName(), field.getBoost());
+        assertThat(ESMediaQueryBuilder.getBoostVersion()).isGreaterThan(before);
+
+        final MediaForm form = new MediaForm();
+        final CompiledMediaQuery.Key key = CompiledMediaQuery.Key.of(form, null, QueryBuilders.boolQuery(), null, before);
+        assertThat(key).isEqualTo(CompiledMediaQuery.Key.of(form, null, QueryBuilders.boolQuery(), null, before));
+        assertThat(key).isNotEqualTo(CompiledMediaQuery.Key.of(form, null, QueryBuilders.boolQuery(), null, ESMediaQueryBuilder.getBoostVersion()));
+    }
+}
@@ -0,0 +1,59 @@
+package nl.vpro.domain.api.media;
+
+import java.util.Set;
+
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MediaSourceFilterTest {
+
+    @Test
+    public void noScope() {
+        assertThat(MediaSourceFilter.get()).isNull();
+        assertThat(MediaSourceFilter.fetchSource(Set.of())).isNull();
+    }
+
+    @Test
+    public void excludes() {
+        try (MediaSourceFilter.Scope ignored = MediaSourceFilter.retain(Set.of("title", "broadcaster", "segment"))) {
+            FetchSourceContext fetchSource = MediaSourceFilter.fetchSource(Set.of("scheduleevent"));
+            assertThat(fetchSource).isNotNull();
+            assertThat(fetchSource.fetchSource()).isTrue();
+            assertThat(fetchSource.includes()).isEmpty();
+            assertThat(fetchSource.excludes())
+                .contains("credits", "locations", "images")
+                .doesNotContain("segments", "scheduleEvents", "titles", "broadcasters");
+        }
+        assertThat(MediaSourceFilter.get()).isNull();
+    }
+
+    @Test
+    public void everythingRetained() {
+        try (MediaSourceFilter.Scope ignored = MediaSourceFilter.retain(MediaSourceFilter.SOURCE_FIELDS.keySet())) {
+            assertThat(MediaSourceFilter.fetchSource(Set.of())).isNull();
+        }
+    }
+
+    @Test
+    public void nested() {
+        try (MediaSourceFilter.Scope outer = MediaSourceFilter.retain(Set.of("title"))) {
+            try (MediaSourceFilter.Scope inner = MediaSourceFilter.retain(null)) {
+                assertThat(MediaSourceFilter.get()).isNull();
+            }
+            assertThat(MediaSourceFilter.get()).containsExactly("title");
+        }
+    }
+
+    @Test
+    public void cacheKey() {
+        final Object withoutScope = MediaSourceFilter.cacheKey("a", 1);
+        try (MediaSourceFilter.Scope ignored = MediaSourceFilter.retain(Set.of("title"))) {
+            assertThat(MediaSourceFilter.cacheKey("a", 1))
+                .isNotEqualTo(withoutScope)
+                .isEqualTo(MediaSourceFilter.cacheKey("a", 1));
+        }
+        assertThat(MediaSourceFilter.cacheKey("a", 1)).isEqualTo(withoutScope);
+    }
+}
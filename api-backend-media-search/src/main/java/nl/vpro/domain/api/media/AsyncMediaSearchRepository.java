@@ -0,0 +1,50 @@
+package nl.vpro.domain.api.media;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import nl.vpro.domain.api.profile.ProfileDefinition;
+import nl.vpro.domain.media.MediaObject;
+
+/**
+ * Non-blocking versions of some of the methods of {@link MediaSearchRepository}. The calls to elasticsearch are done asynchronously, so that callers can fire several of them at once, and only wait for them all.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public interface AsyncMediaSearchRepository {
+
+    CompletableFuture<MediaSearchResult> findAsync(
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        long offset,
+        @Nullable Integer max);
+
+    CompletableFuture<MediaSearchResult> findMembersAsync(
+        @NonNull MediaObject media,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        long offset,
+        @Nullable Integer max);
+
+    CompletableFuture<ProgramSearchResult> findEpisodesAsync(
+        @NonNull MediaObject media,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        long offset,
+        @Nullable Integer max);
+
+    CompletableFuture<MediaSearchResult> findRelatedAsync(
+        @NonNull MediaObject media,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        @Nullable Integer max);
+
+    /**
+     * @see MediaSearchRepository#loadAll(boolean, List)
+     */
+    CompletableFuture<List<MediaObject>> loadAllAsync(boolean loadDeleted, @NonNull List<String> ids);
+}
@@ -0,0 +1,30 @@
+package nl.vpro.domain.api.media;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import nl.vpro.domain.api.*;
+import nl.vpro.domain.api.profile.ProfileDefinition;
+import nl.vpro.domain.media.MediaObject;
+
+/**
+ * Cursor based versions of {@link MediaSearchRepository#list(Order, long, Integer)} and {@link MediaSearchRepository#find(ProfileDefinition, MediaForm, long, Integer)}.
+ * <p>
+ * In stead of an offset an opaque cursor is used. The first page is obtained with a {@code null} cursor, the next ones with {@link CursoredResult#getNextCursor()}. This makes paging costs independent of the depth.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public interface CursoredMediaSearchRepository {
+
+    CursoredResult<MediaResult> listWithCursor(
+        @NonNull Order order,
+        @Nullable String cursor,
+        @Nullable Integer max);
+
+    CursoredResult<MediaSearchResult> findWithCursor(
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        @Nullable String cursor,
+        @Nullable Integer max);
+}
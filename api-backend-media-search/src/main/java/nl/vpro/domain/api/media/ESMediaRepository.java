@@ -14,6 +14,7 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -22,17 +23,25 @@ import jakarta.annotation.PostConstruct;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.join.ScoreMode;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.*;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 import org.meeuw.functional.ReasonedPredicate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -62,7 +71,7 @@ import static nl.vpro.media.domain.es.Common.ES_PUBLISH_DATE;
  */
 @Log4j2
 @ManagedResource(objectName = "nl.vpro.api:name=ESMediaRepository")
-public class ESMediaRepository extends AbstractESMediaRepository implements MediaSearchRepository {
+public class ESMediaRepository extends AbstractESMediaRepository implements MediaSearchRepository, CursoredMediaSearchRepository, AsyncMediaSearchRepository {
 
     private final String[] relatedFields;
 
@@ -70,11 +79,58 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
 
     private final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor();
 
+    /**
+     * Reads the slices if {@link #getSlices()} is bigger than 1
+     */
+    private final ExecutorService sliceExecutor = Executors.newCachedThreadPool(r -> {
+        final Thread thread = new Thread(r, ESMediaRepository.class.getSimpleName() + "-slices");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The number of sliced scrolls to read in parallel for {@link #iterate(ProfileDefinition, MediaForm, long, Integer, FilteringIterator.KeepAlive)} and {@link #changes(Instant, String, ProfileDefinition, Order, Integer, Deletes, Tail, ReasonedPredicate) changes}
+     * @since 8.14
+     */
+    private int slices = 1;
+
+    /**
+     * The redirects as exposed by {@link #redirects()}. Derived from {@link #redirectIndex}.
+     */
     RedirectList redirects = null;
     Instant lastRedirectRead = Instant.EPOCH;
 
+    /**
+     * The redirects as used for lookups. Replaced (never modified) on every refresh.
+     */
+    private volatile RedirectIndex redirectIndex = null;
+
+    /**
+     * Merges published since (this minus {@link #getCommitDelay()}) are not yet in the {@link #redirectIndex}
+     */
+    private Instant redirectsWatermark = null;
+
+    /**
+     * How often changes in the redirects are read
+     * @since 8.14
+     */
+    @Getter
+    private Duration redirectsRefreshInterval = Duration.ofMinutes(1);
+
     private int defaultMax = 1000;
 
+    /**
+     * A multi-criteria {@link ScheduleEventSearch} matching more objects than this is not resolved, but evaluated by post filtering
+     * @since 8.14
+     */
+    private int maxResolvedScheduleEventMids = 10000;
+
+    /**
+     * The {@code index.max_terms_count} of the refs index. If more members or episodes are in the profile, they cannot be used as a terms filter (see {@link #listMembers(MediaObject, ProfileDefinition, Order, long, Integer)})
+     * @since 8.14
+     */
+    private int maxTermsCount = 65536;
+
     private final MediaScoreManager scoreManager;
 
     public ESMediaRepository(HighLevelClientFactory client, String relatedFields, MediaScoreManager scoreManager) {
@@ -83,11 +139,21 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         this.scoreManager = scoreManager;
     }
 
+    @Override
+    public void close() {
+        super.close();
+        sliceExecutor.shutdownNow();
+    }
+
     protected void fillRedirects() {
-        if (redirects == null) {
-            refillRedirectCache();
-            EXECUTOR.scheduleAtFixedRate(
-                this::refillRedirectCache, 5, 5, TimeUnit.MINUTES);
+        if (redirectIndex == null) {
+            synchronized (this) {
+                if (redirectIndex == null) {
+                    refillRedirectCache();
+                    EXECUTOR.scheduleWithFixedDelay(
+                        this::refreshRedirects, redirectsRefreshInterval.toMillis(), redirectsRefreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
         }
     }
 
@@ -101,8 +167,7 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
     @Override
     @ManagedAttribute
     public MediaObject load(@NonNull String mid) {
-        mid = redirect(mid).orElse(mid);
-        return load(mid, MediaObject.class);
+        return loadRedirected(mid);
     }
 
     @Override
@@ -143,54 +208,204 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
 
         form = redirectForm(form);
 
-        boolean needsPostFilter = false;
+        if (needsPostFilter(form)) {
+            final Optional<Map<ScheduleEventSearch, QueryBuilder>> resolved = resolveScheduleEventSearches(form);
+            if (resolved.isPresent()) {
+                return findWithoutPostFilter(profile, form, resolved.get(), offset, max);
+            }
+            return findWithPostFilter(profile, form, offset, max);
+        } else {
+            return findWithoutPostFilter(profile, form, Map.of(), offset, max);
+        }
+    }
+
+    @SneakyThrows
+    @Override
+    public CursoredResult<MediaSearchResult> findWithCursor(
+        @Nullable final ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        @Nullable String cursor,
+        @Nullable Integer max) {
+        form = redirectForm(form);
+        final Map<ScheduleEventSearch, QueryBuilder> resolved;
+        if (needsPostFilter(form)) {
+            resolved = resolveScheduleEventSearches(form)
+                .orElseThrow(() -> new IllegalArgumentException("Cursor based paging is not supported when searching on schedule events with more than one criterion matching too many objects"));
+        } else {
+            resolved = Map.of();
+        }
+        if (max == null) {
+            max = defaultMax;
+        }
+        final SearchSourceBuilder source = mediaSearchBuilder(profile, form, null, QueryBuilders.boolQuery(), resolved, 0L, max);
+        final boolean maxWasZero = handleMaxZero(max, source::size);
+        trackTotalHits(source, "find");
+        final MediaForm finalForm = form;
+        final String search = SearchCursor.search("findWithCursor", profile == null ? null : profile.getName(), form == null ? null : LENIENT.writeValueAsString(form));
+        return executeCursorSearch("findWithCursor", search, source, cursor, "mid", maxWasZero, form != null ? form.getFacets() : null, max,
+            result -> toMediaSearchResult(result, finalForm)
+        );
+    }
+
+    @SneakyThrows
+    @Override
+    public CursoredResult<MediaResult> listWithCursor(
+        @NonNull Order order,
+        @Nullable String cursor,
+        @Nullable Integer max) {
+        if (max == null) {
+            max = defaultMax;
+        }
+        final SearchSourceBuilder source = new SearchSourceBuilder();
+        final boolean maxWasZero = handleMaxZero(max, source::size);
+        source.query(QueryBuilders.termQuery("workflow", Workflow.PUBLISHED.name()))
+            .sort("mid", SortOrder.valueOf(order.name()));
+        trackTotalHits(source, "list");
+        // sorting on mid is total already, no need for tie breaker
+        return executeCursorSearch("listWithCursor", SearchCursor.search("listWithCursor", order.name()), source, cursor, null, maxWasZero, null, max,
+            result -> new MediaSearchResult(result).asResult()
+        );
+    }
+
+    private <R> CursoredResult<R> executeCursorSearch(
+        @NonNull String method,
+        @NonNull String search,
+        @NonNull SearchSourceBuilder source,
+        @Nullable String cursor,
+        @Nullable String tieBreaker,
+        boolean maxWasZero,
+        @Nullable MediaFacets facets,
+        @NonNull Integer max,
+        @NonNull Function<GenericMediaSearchResult<MediaObject>, R> resultCreator) throws IOException {
+        final SearchRequest request = cursorSearchRequest(
+            source,
+            cursor == null ? null : SearchCursor.decode(cursor, search),
+            tieBreaker,
+            getIndexName()
+        );
+        final RepositoryTimer timer = timer(method, getIndexName());
+        String pointInTimeId = request.source().pointInTimeBuilder().getId();
+        try {
+            final SearchResponse response = search(request, timer);
+            if (response.pointInTimeId() != null) {
+                pointInTimeId = response.pointInTimeId();
+            }
+            final SearchCursor next;
+            if (maxWasZero) {
+                closePointInTime(pointInTimeId);
+                next = null;
+            } else {
+                next = nextCursor(response, max, search);
+            }
+            final GenericMediaSearchResult<MediaObject> result = adaptSearchResponse(response, maxWasZero, facets, 0L, max, MediaObject.class, timer);
+            return new CursoredResult<>(resultCreator.apply(result), next == null ? null : next.encode());
+        } catch (IOException | RuntimeException e) {
+            // the client will not get a cursor to continue with, so nobody would close the point in time otherwise
+            closePointInTime(pointInTimeId);
+            throw e;
+        }
+    }
+
+    private static boolean needsPostFilter(@Nullable MediaForm form) {
         if (form != null && form.hasSearches() && form.getSearches().getScheduleEvents() != null) {
             for (ScheduleEventSearch ses : form.getSearches().getScheduleEvents()) {
                 if (ses.countSearches() > 1) {
-                    needsPostFilter = true;
-                    break;
+                    return true;
                 }
             }
         }
-        if (needsPostFilter) {
-            return findWithPostFilter(profile, form, offset, max);
-        } else {
-            return findWithoutPostFilter(profile, form, offset, max);
-        }
+        return false;
     }
 
+    /**
+     * The schedule events are not nested in the media index, so a {@link ScheduleEventSearch} with more than one criterion cannot be evaluated there (the criteria could be matched by different events of the same object). These searches are resolved on the {@link #getScheduleEventsIndexName() schedule events index} instead, where every event is a separate document, to the mids of the objects with at least one matching event.
+     *
+     * @return The resolved searches (see {@link ESMediaQueryBuilder#query(String, MediaSearch, Map)}), or empty if this is not possible, because one of them matches more than {@link #getMaxResolvedScheduleEventMids()} objects, or because the index is not available.
+     * @since 8.14
+     */
+    Optional<Map<ScheduleEventSearch, QueryBuilder>> resolveScheduleEventSearches(@NonNull MediaForm form) throws IOException {
+        final Map<ScheduleEventSearch, QueryBuilder> result = new IdentityHashMap<>();
+        for (ScheduleEventSearch ses : form.getSearches().getScheduleEvents()) {
+            if (ses.countSearches() <= 1) {
+                continue;
+            }
+            final SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(ESMediaQueryBuilder.scheduleEventQuery("", ses))
+                .size(0)
+                .aggregation(
+                    AggregationBuilders.terms("mids")
+                        .field("midRef")
+                        .size(maxResolvedScheduleEventMids + 1)
+                );
+            final SearchRequest request = new SearchRequest(getScheduleEventsIndexName()).source(source);
+            final SearchResponse response;
+            try {
+                response = search(request, timer("resolveScheduleEvents", getScheduleEventsIndexName()));
+            } catch (ElasticsearchStatusException e) {
+                if (e.status() != RestStatus.NOT_FOUND) {
+                    throw e;
+                }
+                log.warn("{}: {}", getScheduleEventsIndexName(), e.getMessage());
+                return Optional.empty();
+            }
+            final Terms mids = response.getAggregations().get("mids");
+            if (mids.getBuckets().size() > maxResolvedScheduleEventMids || mids.getSumOfOtherDocCounts() > 0) {
+                log.debug("{} matches too many objects, falling back to post filtering", ses);
+                return Optional.empty();
+            }
+            result.put(ses, QueryBuilders.termsQuery("mid",
+                mids.getBuckets().stream().map(Terms.Bucket::getKeyAsString).toList())
+            );
+        }
+        return Optional.of(result);
+    }
 
     /**
      * Straight forward search were everything is let to Elasticsearch
      */
-    private MediaSearchResult findWithoutPostFilter(ProfileDefinition<MediaObject> profile, MediaForm form, long offset, Integer max) throws IOException {
+    private MediaSearchResult findWithoutPostFilter(ProfileDefinition<MediaObject> profile, MediaForm form, Map<ScheduleEventSearch, QueryBuilder> resolvedScheduleEvents, long offset, Integer max) throws IOException {
+        GenericMediaSearchResult<MediaObject> result = executeSearchRequest(
+            "find",
+            findRequest(profile, form, resolvedScheduleEvents, offset, max),
+            form != null ? form.getFacets() : null,
+            offset,
+            max,
+            MediaObject.class
+        );
+        return toMediaSearchResult(result, form);
+    }
+
+    private SearchRequestWrapper findRequest(ProfileDefinition<MediaObject> profile, MediaForm form, Map<ScheduleEventSearch, QueryBuilder> resolvedScheduleEvents, long offset, Integer max) throws IOException {
         BoolQueryBuilder rootQuery = QueryBuilders.boolQuery();
 
         SearchRequestWrapper request = mediaSearchRequest(
             profile,
             form,
+            null,
             rootQuery,
+            resolvedScheduleEvents,
             offset,
             max
         );
+        trackTotalHits(request.getRequest().source(), "find");
+        return request;
+    }
 
-        GenericMediaSearchResult<MediaObject> result = executeSearchRequest(
-            request,
-            form != null ? form.getFacets() : null,
-            offset,
-            max,
-            MediaObject.class
-        );
+    private MediaSearchResult toMediaSearchResult(GenericMediaSearchResult<MediaObject> result, @Nullable MediaForm form) {
+        return new MediaSearchResult(selectFacets(result, form));
+    }
+
+    private static <S extends MediaObject> GenericMediaSearchResult<S> selectFacets(GenericMediaSearchResult<S> result, @Nullable MediaForm form) {
         if (MediaForm.isFaceted(form)) {
             result.setSelectedFacets(new MediaFacetsResult());
         }
         MediaSearchResults.setSelectedFacets(result.getFacets(), result.getSelectedFacets(), form);
         MediaSearchResults.sortFacets(result.getFacets(), result.getSelectedFacets(), form);
-        return new MediaSearchResult(result);
+        return result;
     }
 
     /**
-     * If the query could not be fully evaluated at ES then this one will be used.
+     * If the query could not be fully evaluated at ES (not even after {@link #resolveScheduleEventSearches(MediaForm) resolving} the schedule event searches) then this one will be used.
      * <p>
      * The query is executed, but using the scroll API. Resulting objects which don't match the form or profile are filtered.
      * <p>
@@ -245,7 +460,8 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
                 .max(max)
                 .build();
 
-            List<SearchResultItem<? extends MediaObject>> filtered = maxOffsetIterator.stream().collect(Collectors.toList());
+            List<SearchResultItem<? extends MediaObject>> filtered = timer("find", getIndexName())
+                .time(RepositoryTimer.POSTFILTER, () -> maxOffsetIterator.stream().collect(Collectors.toList()));
 
             MediaSearchResult filteredResult =  new MediaSearchResult(
                 filtered,
@@ -276,7 +492,7 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         @Nullable MediaForm form,
         long offset,
         @Nullable Integer max) {
-        return findAssociated("memberOf", media, profile, form, offset, max);
+        return findAssociated("memberOf", "findMembers", media, profile, form, offset, max);
     }
 
     @Override
@@ -287,14 +503,8 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         long offset,
         @Nullable Integer max) {
         form = redirectForm(form);
-        GenericMediaSearchResult<Program> result = findAssociatedMedia("episodeOf", media, profile, form, offset, max, Program.class);
-        if (MediaForm.isFaceted(form)) {
-            result.setSelectedFacets(new MediaFacetsResult());
-        }
-        MediaSearchResults.setSelectedFacets(result.getFacets(), result.getSelectedFacets(), form);
-        MediaSearchResults.sortFacets(result.getFacets(), result.getSelectedFacets(), form);
-
-        return new ProgramSearchResult(result);
+        GenericMediaSearchResult<Program> result = findAssociatedMedia("episodeOf", "findEpisodes", media, profile, form, offset, max, Program.class);
+        return new ProgramSearchResult(selectFacets(result, form));
     }
 
 
@@ -305,26 +515,20 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         @Nullable MediaForm form,
         long offset,
         @Nullable Integer max) {
-        return findAssociated("descendantOf", media, profile, form, offset, max);
+        return findAssociated("descendantOf", "findDescendants", media, profile, form, offset, max);
     }
 
     private MediaSearchResult findAssociated(
         @NonNull String type,
+        @NonNull String endpoint,
         @NonNull MediaObject media,
         @Nullable ProfileDefinition<MediaObject> profile,
         @Nullable MediaForm form,
         long offset,
         @Nullable Integer max) {
         form = redirectForm(form);
-        GenericMediaSearchResult<MediaObject> result = findAssociatedMedia(type, media, profile, form, offset, max, MediaObject.class);
-        if (MediaForm.isFaceted(form)) {
-            result.setSelectedFacets(new MediaFacetsResult());
-        }
-
-        MediaSearchResults.setSelectedFacets(result.getFacets(), result.getSelectedFacets(), form);
-        MediaSearchResults.sortFacets(result.getFacets(), result.getSelectedFacets(), form);
-
-        return new MediaSearchResult(result);
+        GenericMediaSearchResult<MediaObject> result = findAssociatedMedia(type, endpoint, media, profile, form, offset, max, MediaObject.class);
+        return toMediaSearchResult(result, form);
     }
 
     @SneakyThrows
@@ -335,6 +539,15 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         @Nullable MediaForm form,
         @Nullable Integer max) {
         form = redirectForm(form);
+        SearchResponse response  = search(relatedRequest(media, profile, form, max), timer("findRelated", getIndexName()));
+        return toRelatedResult(response, max);
+    }
+
+    private SearchRequest relatedRequest(
+        @NonNull MediaObject media,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        @Nullable Integer max) throws IOException {
         AgeRating ageRating = media.getAgeRating();
         BoolQueryBuilder filter = QueryBuilders.boolQuery();
         if (ageRating != null) {
@@ -369,9 +582,12 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         } else {
             sourceBuilder.query(moreLikeThisQueryBuilder);
         }
+        trackTotalHits(sourceBuilder, "findRelated");
         searchRequest.source(sourceBuilder);
-        SearchResponse response  = client().search(searchRequest, requestOptions());
+        return searchRequest;
+    }
 
+    private MediaSearchResult toRelatedResult(SearchResponse response, @Nullable Integer max) {
         SearchHits hits = response.getHits();
 
         List<SearchResultItem<? extends MediaObject>> adapted = adapt(hits, MediaObject.class);
@@ -380,6 +596,63 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
 
     }
 
+    @SneakyThrows
+    @Override
+    public CompletableFuture<MediaSearchResult> findAsync(
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        long offset,
+        @Nullable Integer max) {
+        final MediaForm redirected = redirectForm(form);
+        if (needsPostFilter(redirected)) {
+            // resolves the schedule event searches first, or scrolls, which have no asynchronous counterpart. Just do it on the executor.
+            return CompletableFuture.supplyAsync(() -> find(profile, redirected, offset, max), asyncExecutor);
+        }
+        return executeSearchRequestAsync(
+            "find",
+            findRequest(profile, redirected, Map.of(), offset, max),
+            redirected != null ? redirected.getFacets() : null,
+            offset,
+            max,
+            MediaObject.class
+        ).thenApply(result -> toMediaSearchResult(result, redirected));
+    }
+
+    @Override
+    public CompletableFuture<MediaSearchResult> findMembersAsync(
+        @NonNull MediaObject media,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        long offset,
+        @Nullable Integer max) {
+        final MediaForm redirected = redirectForm(form);
+        return findAssociatedMediaAsync("memberOf", "findMembers", media, profile, redirected, offset, max, MediaObject.class)
+            .thenApply(result -> toMediaSearchResult(result, redirected));
+    }
+
+    @Override
+    public CompletableFuture<ProgramSearchResult> findEpisodesAsync(
+        @NonNull MediaObject media,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        long offset,
+        @Nullable Integer max) {
+        final MediaForm redirected = redirectForm(form);
+        return findAssociatedMediaAsync("episodeOf", "findEpisodes", media, profile, redirected, offset, max, Program.class)
+            .thenApply(result -> new ProgramSearchResult(selectFacets(result, redirected)));
+    }
+
+    @SneakyThrows
+    @Override
+    public CompletableFuture<MediaSearchResult> findRelatedAsync(
+        @NonNull MediaObject media,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        @Nullable Integer max) {
+        return searchAsync(relatedRequest(media, profile, redirectForm(form), max), timer("findRelated", getIndexName()))
+            .thenApplyAsync(response -> toRelatedResult(response, max), asyncExecutor);
+    }
+
     protected MediaObject getMediaObject(
         @NonNull JsonNode hit) {
         try {
@@ -409,10 +682,11 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
             .sort("mid", SortOrder.valueOf(order.name()))
             .from((int) offset)
             .size(atomicMax.get());
+        trackTotalHits(sourceBuilder, "list");
         searchRequest.source(sourceBuilder);
 
         SearchRequestWrapper wrapper = new SearchRequestWrapper(searchRequest, wasZero);
-        GenericMediaSearchResult<MediaObject> result = executeSearchRequest(wrapper, null, offset, max, MediaObject.class);
+        GenericMediaSearchResult<MediaObject> result = executeSearchRequest("list", wrapper, null, offset, max, MediaObject.class);
         return new MediaSearchResult(result).asResult();
     }
 
@@ -430,9 +704,8 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
             .filter(Optional::isPresent)
             .map(Optional::get)
             .collect(Collectors.toList());
-        TotalHits totalHits = queryResult.totalHits;
 
-        return new MediaResult(objects, offset, max, getTotal(totalHits, profile, objects, offset, max));
+        return new MediaResult(objects, offset, max, getTotal(queryResult.totalHits));
 
     }
 
@@ -455,10 +728,11 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
             .from((int) offset)
             .size(atomicMax.get())
             .postFilter(ESMediaFilterBuilder.filter(profile));
+        trackTotalHits(source, "listDescendants");
         request.source(source);
 
         SearchRequestWrapper wrapper = new SearchRequestWrapper(request, wasZero);
-        GenericMediaSearchResult<MediaObject> objects = executeSearchRequest(wrapper, null, offset, max, MediaObject.class);
+        GenericMediaSearchResult<MediaObject> objects = executeSearchRequest("listDescendants", wrapper, null, offset, max, MediaObject.class);
 
         return new MediaSearchResult(objects).asResult();
 
@@ -476,30 +750,15 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
 
         MemberRefResult queryResult = listMembersOrEpisodes(episodeRef, media, profile, order, offset, max);
         List<Program> objects = loadAll(Program.class, queryResult.mids).stream().filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
-        TotalHits totalHits = queryResult.totalHits;
-
 
-        return new ProgramResult(objects, offset, max, getTotal(totalHits, profile, objects, offset, max));
+        return new ProgramResult(objects, offset, max, getTotal(queryResult.totalHits));
     }
 
-    <T extends MediaObject> Result.Total getTotal(TotalHits totalHits, ProfileDefinition<MediaObject> profile, List<T> objects, long offset, Integer max) {
-        final Long total;
-        final Result.TotalQualifier totalQualifier;
-
-        if (profile != null) {
-            total = filterWithProfile(objects, profile, offset, max);
-            totalQualifier = Result.TotalQualifier.APPROXIMATE;
-        } else {
-            if (totalHits == null){
-                total = null;
-                totalQualifier = Result.TotalQualifier.MISSING;
-            }  else {
-                total = totalHits.value;
-                totalQualifier = Result.TotalQualifier.valueOf(totalHits.relation.name());
-            }
+    Result.Total getTotal(@Nullable TotalHits totalHits) {
+        if (totalHits == null) {
+            return new Result.Total(null, Result.TotalQualifier.MISSING);
         }
-        return new Result.Total(total, totalQualifier);
-
+        return new Result.Total(totalHits.value, Result.TotalQualifier.valueOf(totalHits.relation.name()));
     }
 
     private MemberRefResult listMembersOrEpisodes(
@@ -508,40 +767,24 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         @Nullable ProfileDefinition<MediaObject> profile,
         @NonNull Order order,
         long offset,
-        @Nullable Integer max) throws IOException {
-        List<String> mids;
-        TotalHits total = null;
-        if (profile == null) {
-            SearchSourceBuilder source = new SearchSourceBuilder();
-
-            listMembersOrEpisodesBuildRequest(source, objectType, media, order).from((int) offset);
-            boolean maxIsZero = handleMaxZero(max, source::size);
-            SearchRequest request = new SearchRequest(getRefsIndexName());
-            request.source(source);
-            SearchResponse response = client().search(request, requestOptions());
-            SearchHit[] hits = response.getHits().getHits();
-            mids = maxIsZero ? Collections.emptyList() : Arrays.stream(hits)
-                .map(sh -> String.valueOf(sh.getSourceAsMap().get("childRef")))
-                .collect(Collectors.toList());
-            total = response.getHits().getTotalHits();
-        } else {
-            mids = new ArrayList<>();
-            try (ExtendedElasticSearchIterator<String> iterator = ExtendedElasticSearchIterator.<String>extendedBuilder()
-                .client(factory.highLevelClient())
-                .adapt((sh) -> sh.get(Constants.Fields.SOURCE).get("childRef").textValue()) // todo
-                .routing(media.getMid())
-                .warnSortNotOnDoc(warnSortNotOnDoc) // we know!
-                .build()) {
-                SearchSourceBuilder builder = iterator.prepareSearchSource(getRefsIndexName());
-                listMembersOrEpisodesBuildRequest(builder, objectType, media, order);
-                iterator.forEachRemaining(mids::add);
-
-                total = iterator.getTotalSize().map(s -> new TotalHits(s, TotalHits.Relation.EQUAL_TO)).orElse(null);
-            } catch (Exception e) {
-                log.error(e.getMessage(), e);
-            }
+        @Nullable Integer max) throws Exception {
+        final Set<String> inProfile = profile == null ? null : membersOrEpisodesInProfile(objectType, media, profile);
+        if (profile != null && inProfile == null) {
+            return listMembersOrEpisodesFilteredInMemory(objectType, media, profile, order, offset, max);
         }
-        return new MemberRefResult(total, mids);
+        final SearchSourceBuilder source = new SearchSourceBuilder();
+        listMembersOrEpisodesBuildRequest(source, objectType, media, order, inProfile).from((int) offset);
+        final boolean maxIsZero = handleMaxZero(max, source::size);
+        final String method = objectType == memberRef ? "listMembers" : "listEpisodes";
+        trackTotalHits(source, method);
+        final SearchRequest request = new SearchRequest(getRefsIndexName());
+        request.source(source);
+        final SearchResponse response = search(request, timer(method, getRefsIndexName()));
+        final SearchHit[] hits = response.getHits().getHits();
+        final List<String> mids = maxIsZero ? Collections.emptyList() : Arrays.stream(hits)
+            .map(sh -> String.valueOf(sh.getSourceAsMap().get("childRef")))
+            .collect(Collectors.toList());
+        return new MemberRefResult(response.getHits().getTotalHits(), mids);
     }
 
 
@@ -560,9 +803,20 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
      * this sorts,
      */
     protected SearchSourceBuilder listMembersOrEpisodesBuildRequest(SearchSourceBuilder builder, StandaloneMemberRef.ObjectType objectType, MediaObject media, Order order) {
+        return listMembersOrEpisodesBuildRequest(builder, objectType, media, order, null);
+    }
+
+    /**
+     * @param childRefs If not {@code null}, only these children are listed
+     * @since 8.14
+     */
+    protected SearchSourceBuilder listMembersOrEpisodesBuildRequest(SearchSourceBuilder builder, StandaloneMemberRef.ObjectType objectType, MediaObject media, Order order, @Nullable Collection<String> childRefs) {
 
         BoolQueryBuilder must = QueryBuilders.boolQuery();
         must.filter(QueryBuilders.termQuery("objectType", objectType.name()));
+        if (childRefs != null) {
+            must.filter(QueryBuilders.termsQuery("childRef", childRefs));
+        }
         assert media.getMid() != null;
         must.must(QueryBuilders.termQuery("midRef", media.getMid()));
         builder
@@ -573,27 +827,79 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         return builder;
     }
 
-    private <T extends MediaObject> Long filterWithProfile(
-        @NonNull List<T> objects,
-        @Nullable ProfileDefinition<MediaObject> profile,
+    /**
+     * Fallback of {@link #listMembersOrEpisodes(StandaloneMemberRef.ObjectType, MediaObject, ProfileDefinition, Order, long, Integer)} if too many members or episodes are in the profile to filter the refs index with. All refs are read, and the objects are loaded (in batches) and tested against the profile in memory, like it was done before 8.14.
+     * @since 8.14
+     */
+    private MemberRefResult listMembersOrEpisodesFilteredInMemory(
+        StandaloneMemberRef.@NonNull ObjectType objectType,
+        @NonNull MediaObject media,
+        @NonNull ProfileDefinition<MediaObject> profile,
+        @NonNull Order order,
         long offset,
-        @Nullable Integer max) {
-        if (profile != null) {
-            objects.removeIf((p) -> !profile.test(p));
-            long result = objects.size();
-            if (offset > 0 || max != null) {
-                while (offset-- > 0 && !objects.isEmpty()) {
-                    objects.remove(0);
+        @Nullable Integer max) throws Exception {
+        log.info("Too many {} of {} in profile, filtering in memory", objectType, media.getMid());
+        final List<String> childRefs = new ArrayList<>();
+        try (ExtendedElasticSearchIterator<String> iterator = ExtendedElasticSearchIterator.<String>extendedBuilder()
+            .client(factory.highLevelClient())
+            .adapt(sh -> sh.get(Constants.Fields.SOURCE).get("childRef").textValue())
+            .routing(media.getMid())
+            .warnSortNotOnDoc(warnSortNotOnDoc) // we know!
+            .build()) {
+            listMembersOrEpisodesBuildRequest(iterator.prepareSearchSource(getRefsIndexName()), objectType, media, order);
+            iterator.forEachRemaining(childRefs::add);
+        }
+        final List<String> distinct = new ArrayList<>(new LinkedHashSet<>(childRefs));
+        final Set<String> inProfile = new HashSet<>();
+        for (int i = 0; i < distinct.size(); i += iterateBatchSize) {
+            final List<String> batch = distinct.subList(i, Math.min(distinct.size(), i + iterateBatchSize));
+            final List<Optional<MediaObject>> loaded = loadAll(MediaObject.class, batch);
+            for (int j = 0; j < batch.size(); j++) {
+                if (loaded.get(j).filter(profile::test).isPresent()) {
+                    inProfile.add(batch.get(j));
                 }
-                if (max != null) {
-                    while (objects.size() > max) {
-                        objects.remove(objects.size() - 1);
-                    }
+            }
+        }
+        final List<String> filtered = childRefs.stream().filter(inProfile::contains).toList();
+        final int from = (int) Math.min(offset, filtered.size());
+        final int to = max == null ? filtered.size() : (int) Math.min(filtered.size(), from + (long) max);
+        return new MemberRefResult(new TotalHits(filtered.size(), TotalHits.Relation.EQUAL_TO), filtered.subList(from, to));
+    }
+
+    /**
+     * The members or episodes of the given object which are in the profile. The profile can only be applied on the media index itself, so this is used to filter the refs index.
+     * <p>
+     * Only the ids are read, so this is relatively cheap, also for big series. The number of these is limited by {@code index.max_terms_count} though (see {@link #getMaxTermsCount()}).
+     * @return {@code null} if there are more than that
+     * @since 8.14
+     */
+    @Nullable
+    private Set<String> membersOrEpisodesInProfile(
+        StandaloneMemberRef.@NonNull ObjectType objectType,
+        @NonNull MediaObject media,
+        @NonNull ProfileDefinition<MediaObject> profile) throws Exception {
+        assert media.getMid() != null;
+        final String field = objectType == memberRef ? "memberOf" : "episodeOf";
+        final BoolQueryBuilder query = QueryBuilders.boolQuery();
+        query.filter(QueryBuilders.nestedQuery(field, QueryBuilders.termQuery(field + ".midRef", media.getMid()), ScoreMode.None));
+        ESMediaFilterBuilder.filter(profile, query);
+        final Set<String> result = new HashSet<>();
+        try (ExtendedElasticSearchIterator<String> iterator = ExtendedElasticSearchIterator.<String>extendedBuilder()
+            .client(factory.highLevelClient())
+            .adapt(sh -> sh.get(Constants.Fields.ID).textValue())
+            .build()) {
+            iterator.prepareSearchSource(getIndexName())
+                .query(query)
+                .fetchSource(false)
+                .size(iterateBatchSize);
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+                if (result.size() > maxTermsCount) {
+                    return null;
                 }
             }
-            return result;
         }
-        return null;
+        return result;
     }
 
     private static Instant latest;
@@ -625,26 +931,38 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
                 return TailAdder.withFunctions(CloseableIterator.empty(), (last) -> MediaChange.tail(changesUpto));
             }
         }
-        final ExtendedElasticSearchIterator<MediaChange> i = ExtendedElasticSearchIterator.<MediaChange>extendedBuilder()
-            .client(factory.highLevelClient())
-            .adapt(this::of)
-            .requestVersion(true)
-            .warnSortNotOnDoc(warnSortNotOnDoc)
-            .build();
-
-        final SearchSourceBuilder searchRequestBuilder = i.prepareSearchSource(getIndexName());
-        searchRequestBuilder.sort(ES_PUBLISH_DATE, order == null ? SortOrder.ASC : SortOrder.valueOf(order.name()));
-        searchRequestBuilder.sort("mid", SortOrder.ASC);
-        searchRequestBuilder.trackScores(false);
-        //searchRequestBuilder.trackTotalHitsUpTo(0);
-
-        searchRequestBuilder.query(QueryBuilders.boolQuery()
+        final QueryBuilder query = QueryBuilders.boolQuery()
             .must(restriction)
-            .filter(QueryBuilders.existsQuery(ES_PUBLISH_DATE))
-        );
-        log.debug("Found {} changes up to {}, from {} to {}", () -> i.getTotalSize().orElse(-1L), () -> changesUpto,
-            () -> since == null ? null : since.toEpochMilli(),
-            changesUpto::toEpochMilli);
+            .filter(QueryBuilders.existsQuery(ES_PUBLISH_DATE));
+        // Resuming after a tail (since + mid) can be done exactly by search_after, without reading (and skipping) the changes before it again.
+        final boolean searchAfter = since != null && mid != null && order != Order.DESC && slices <= 1;
+        // The media of deleted objects is only needed if it is returned, or if something may look at it.
+        final boolean mediaOfDeletes = deletes == Deletes.INCLUDE || currentProfile != null || filter != null;
+        final CloseableIterator<MediaChange> i;
+        if (slices > 1) {
+            final Comparator<Instant> publishDateOrder = order == Order.DESC ? Comparator.reverseOrder() : Comparator.naturalOrder();
+            i = SlicedIterator.<MediaChange>builder()
+                .slices(slices)
+                .slice(slice -> changesIterator(query, order, mediaOfDeletes, new SliceBuilder(slice, slices)))
+                .bufferSize(iterateBatchSize)
+                .executor(sliceExecutor)
+                .comparator(Comparator
+                    .comparing(MediaChange::getPublishDate, Comparator.nullsLast(publishDateOrder))
+                    .thenComparing(MediaChange::getMid, Comparator.nullsLast(Comparator.naturalOrder()))
+                )
+                .build();
+        } else {
+            log.debug("Changes up to {}, from {} to {}", changesUpto,
+                since == null ? null : since.toEpochMilli(),
+                changesUpto.toEpochMilli());
+            i = pointInTimeIterator(
+                "changes",
+                changesSource(new SearchSourceBuilder(), query, order).size(iterateBatchSize).version(true),
+                searchAfter ? new Object[] {since.toEpochMilli(), mid} : null,
+                hit -> of(hit, mediaOfDeletes),
+                getIndexName()
+            );
+        }
 
         final MarkSkippedChangeIterator changes = new MarkSkippedChangeIterator(
             i,
@@ -654,7 +972,7 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
 
         CloseableIterator<MediaChange> iterator = changes;
 
-        if (since != null && mid != null) {
+        if (since != null && mid != null && ! searchAfter) {
             // If needed, skip a few at the start.
             iterator = new BasicWrappedIterator<>(changes) {
                 boolean filtering = true;
@@ -754,6 +1072,35 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         });
     }
 
+    /**
+     * The changes, sorted by {@link Common#ES_PUBLISH_DATE} and mid, in a scroll
+     * @param mediaOfDeletes See {@link #of(JsonNode, long, boolean)}
+     * @param slice If not {@code null}, only this slice of them
+     */
+    private ExtendedElasticSearchIterator<MediaChange> changesIterator(@NonNull QueryBuilder query, @Nullable Order order, boolean mediaOfDeletes, @Nullable SliceBuilder slice) {
+        final ExtendedElasticSearchIterator<MediaChange> i = ExtendedElasticSearchIterator.<MediaChange>extendedBuilder()
+            .client(factory.highLevelClient())
+            .adapt(hit -> of(hit, mediaOfDeletes))
+            .requestVersion(true)
+            .warnSortNotOnDoc(warnSortNotOnDoc)
+            .build();
+
+        final SearchSourceBuilder searchRequestBuilder = changesSource(i.prepareSearchSource(getIndexName()), query, order);
+        if (slice != null) {
+            searchRequestBuilder.slice(slice);
+        }
+        return i;
+    }
+
+    private static SearchSourceBuilder changesSource(@NonNull SearchSourceBuilder searchRequestBuilder, @NonNull QueryBuilder query, @Nullable Order order) {
+        searchRequestBuilder.sort(ES_PUBLISH_DATE, order == null ? SortOrder.ASC : SortOrder.valueOf(order.name()));
+        searchRequestBuilder.sort("mid", SortOrder.ASC);
+        searchRequestBuilder.trackScores(false);
+        //searchRequestBuilder.trackTotalHitsUpTo(0);
+        searchRequestBuilder.query(query);
+        return searchRequestBuilder;
+    }
+
     @Getter
     public static class DeleteSkippingIterator extends BasicWrappedIterator<MediaChange> {
 
@@ -778,16 +1125,52 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
     }
 
     private MediaChange of(
-        @NonNull JsonNode hit) {
+        @NonNull JsonNode hit,
+        boolean mediaOfDeletes) {
+        return of(hit.get(Constants.Fields.SOURCE), hit.get(Constants.Fields.VERSION).longValue(), mediaOfDeletes);
+    }
+
+    private MediaChange of(
+        @NonNull SearchHit hit,
+        boolean mediaOfDeletes) {
         try {
-            final JsonNode jsonNode = hit.get(Constants.Fields.SOURCE);
-            final MediaObject media = getObject(jsonNode, MediaObject.class);
+            return of(LENIENT.readTree(hit.getSourceRef().streamInput()), hit.getVersion(), mediaOfDeletes);
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            return null;
+        }
+    }
 
-            if (media == null) {
-                log.warn("No media found in {}", hit);
-                return null;
+    /**
+     * @param mediaOfDeletes If {@code false}, the media object of a deleted object is not unmarshalled, only the fields needed for the change (mid, workflow, publish date, reasons) are read.
+     */
+    private MediaChange of(
+        @NonNull JsonNode jsonNode,
+        long hitVersion,
+        boolean mediaOfDeletes) {
+        try {
+            final MediaObject media;
+            final String mid;
+            final Workflow workflow;
+            final Workflow sourceWorkflow = mediaOfDeletes ? null : workflow(jsonNode);
+            if (sourceWorkflow != null && Workflow.PUBLISHED_AS_DELETED.contains(sourceWorkflow)) {
+                media = null;
+                mid = Optional.ofNullable(jsonNode.get("mid")).map(JsonNode::textValue).orElse(null);
+                workflow = sourceWorkflow;
+                if (mid == null) {
+                    log.warn("No mid found in {}", jsonNode);
+                    return null;
+                }
+            } else {
+                media = getObject(jsonNode, MediaObject.class);
+                if (media == null) {
+                    log.warn("No media found in {}", jsonNode);
+                    return null;
+                }
+                mid = media.getMid();
+                workflow = media.getWorkflow();
             }
-            Long version = hit.get(Constants.Fields.VERSION).longValue();
+            Long version = hitVersion;
             if (version == -1) {
                 version = null;
             }
@@ -814,8 +1197,8 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
                 .builder()
                 .publishDate(esPublishDate != null ? Instant.ofEpochMilli(esPublishDate.longValue()) : null)
                 .media(media)
-                .mid(media.getMid())
-                .deleted(Workflow.PUBLISHED_AS_DELETED.contains(media.getWorkflow()))
+                .mid(mid)
+                .deleted(Workflow.PUBLISHED_AS_DELETED.contains(workflow))
                 .revision(version)
                 .reasons(reasons)
                 .build();
@@ -825,6 +1208,19 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         }
     }
 
+    private static @Nullable Workflow workflow(@NonNull JsonNode jsonNode) {
+        final String workflow = Optional.ofNullable(jsonNode.get("workflow")).map(JsonNode::textValue).orElse(null);
+        if (workflow == null) {
+            return null;
+        }
+        try {
+            return Workflow.valueOf(workflow);
+        } catch (IllegalArgumentException iae) {
+            log.warn("Unrecognized workflow {}", workflow);
+            return null;
+        }
+    }
+
     @Override
     @Deprecated
     public CloseableIterator<MediaChange> changes(Long since, ProfileDefinition<MediaObject> current, ProfileDefinition<MediaObject> previous, Order order, Integer max, Long keepAlive) {
@@ -839,6 +1235,29 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         final long offset,
         final Integer max,
         final FilteringIterator.KeepAlive keepAlive) {
+        final CloseableIterator<MediaObject> i;
+        if (slices > 1) {
+            i = SlicedIterator.<MediaObject>builder()
+                .slices(slices)
+                .slice(slice -> iterateIterator(profile, form, new SliceBuilder(slice, slices)))
+                .bufferSize(iterateBatchSize)
+                .executor(sliceExecutor)
+                .build();
+        } else {
+            i = iterateIterator(profile, form, null);
+        }
+
+        Predicate<MediaObject> filter = Objects::nonNull;
+        return withinBulkhead("iterate", new MaxOffsetIterator<>(new FilteringIterator<>(i, filter, keepAlive), max, offset, true));
+    }
+
+    /**
+     * @param slice If not {@code null}, only this slice of the objects
+     */
+    private ExtendedElasticSearchIterator<MediaObject> iterateIterator(
+        final ProfileDefinition<MediaObject> profile,
+        final MediaForm form,
+        @Nullable SliceBuilder slice) {
         final ExtendedElasticSearchIterator<MediaObject> i = ExtendedElasticSearchIterator.<MediaObject>extendedBuilder()
             .client(factory.highLevelClient())
             .adapt(this::getMediaObject)
@@ -851,7 +1270,7 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         builder.trackScores(false);
 
         boolean sort = ESMediaSortHandler.sort(form, null, builder::sort);
-        if (sort) {
+        if (sort && (slice == null || slice.getId() == 0)) {
             log.warn("Iterate called with sort. This is ignored");
         }
         builder
@@ -861,9 +1280,10 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
                 ESMediaFilterBuilder.filter(profile)
             )
         ;
-
-        Predicate<MediaObject> filter = Objects::nonNull;
-        return new MaxOffsetIterator<>(new FilteringIterator<>(i, filter, keepAlive), max, offset, true);
+        if (slice != null) {
+            builder.slice(slice);
+        }
+        return i;
     }
 
     @Override
@@ -872,28 +1292,154 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
         return redirects;
     }
 
-    synchronized void refillRedirectCache() {
+    /**
+     * Looks up in the compact {@link RedirectIndex}, which doesn't allocate (unless the mid actually redirects).
+     */
+    @Override
+    public Optional<String> redirect(String mid) {
+        if (mid == null) {
+            return Optional.empty();
+        }
+        fillRedirects();
+        return Optional.ofNullable(redirectIndex.get(mid));
+    }
+
+    @ManagedAttribute
+    public String getRedirectsRefreshIntervalAsString() {
+        return redirectsRefreshInterval.toString();
+    }
+
+    /**
+     * Takes effect at the next (lazy) start of the refreshing
+     */
+    @ManagedAttribute
+    @Value("${elasticSearch.media.redirects.refreshInterval:60s}")
+    public void setRedirectsRefreshIntervalAsString(String interval) {
+        this.redirectsRefreshInterval = TimeUtils.parseDuration(interval).orElse(this.redirectsRefreshInterval);
+    }
+
+    @ManagedAttribute
+    public int getSlices() {
+        return slices;
+    }
+
+    /**
+     * The number of parallel sliced scrolls for iterate and changes. {@code 1} means no slicing, which is normally only worth it if the number is not bigger than the number of shards.
+     */
+    @ManagedAttribute
+    @Value("${elasticSearch.media.iterate.slices:1}")
+    public void setSlices(int slices) {
+        this.slices = Math.max(1, slices);
+    }
+
+    @ManagedAttribute
+    public int getMaxResolvedScheduleEventMids() {
+        return maxResolvedScheduleEventMids;
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.media.scheduleEvents.maxResolvedMids:10000}")
+    public void setMaxResolvedScheduleEventMids(int maxResolvedScheduleEventMids) {
+        this.maxResolvedScheduleEventMids = maxResolvedScheduleEventMids;
+    }
+
+    @ManagedAttribute
+    public int getMaxTermsCount() {
+        return maxTermsCount;
+    }
+
+    @ManagedAttribute
+    @Value("${elasticSearch.media.maxTermsCount:65536}")
+    public void setMaxTermsCount(int maxTermsCount) {
+        this.maxTermsCount = maxTermsCount;
+    }
+
+    @ManagedAttribute
+    public int getRedirectsSize() {
+        final RedirectIndex index = redirectIndex;
+        return index == null ? 0 : index.size();
+    }
+
+    /**
+     * Reads all redirects from ES, and replaces the current ones. Normally only needed once, after that {@link #refreshRedirects()} only reads the changes.
+     */
+    @ManagedOperation
+    public synchronized void refillRedirectCache() {
         final Map<String, String> newRedirects = new HashMap<>();
+        final Instant start = CLOCK.instant();
+        try {
+            readRedirects(
+                QueryBuilders.termQuery("workflow", Workflow.MERGED.name()),
+                newRedirects
+            );
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            if (redirectIndex == null) {
+                setRedirects(RedirectIndex.EMPTY);
+            }
+            return;
+        }
+        redirectsWatermark = start;
+        final RedirectIndex index = RedirectIndex.of(newRedirects);
+        if (redirectIndex == null || ! index.asMap().equals(redirectIndex.asMap())) {
+            setRedirects(index);
+            log.info("Read {} redirects from ES in {}", index.size(), Duration.between(start, CLOCK.instant()));
+        }
+        lastRedirectRead = CLOCK.instant();
+    }
+
+    /**
+     * Reads only the objects published since the previous refresh, and merges the redirects (or the disappearance of them) of those in the current ones.
+     * @since 8.14
+     */
+    synchronized void refreshRedirects() {
+        if (redirectIndex == null || redirectsWatermark == null) {
+            refillRedirectCache();
+            return;
+        }
+        final Instant start = CLOCK.instant();
+        final Instant from = redirectsWatermark.minus(commitDelay);
+        final Map<String, String> changes = new HashMap<>();
+        try {
+            readRedirects(
+                QueryBuilders.rangeQuery(ES_PUBLISH_DATE).gte(from.toEpochMilli()),
+                changes
+            );
+        } catch (Exception e) {
+            log.warn("Could not read redirects since {} ({}: {})", from, e.getClass().getName(), e.getMessage());
+            return;
+        }
+        redirectsWatermark = start;
+        final RedirectIndex index = redirectIndex.merge(changes);
+        if (index != redirectIndex) {
+            setRedirects(index);
+            log.info("Merged {} changes since {} in redirects (now {})", changes.size(), from, index.size());
+        }
+        lastRedirectRead = CLOCK.instant();
+    }
+
+    /**
+     * Puts for every matching object its redirect in the map, or {@code null} if it does not (or no longer) redirect
+     */
+    private void readRedirects(QueryBuilder query, Map<String, String> result) throws Exception {
         final String indexName = getIndexName();
         assert indexName != null;
-        var start = Instant.now();
-        try(ExtendedElasticSearchIterator<JsonNode> i = ExtendedElasticSearchIterator.<JsonNode>extendedBuilder()
+        try (ExtendedElasticSearchIterator<JsonNode> i = ExtendedElasticSearchIterator.<JsonNode>extendedBuilder()
             .client(factory.highLevelClient())
             .adapt(h -> h.get(Constants.Fields.SOURCE))
             .build()) {
 
             i.prepareSearchSource(indexName)
-                .query(
-                    QueryBuilders.termQuery("workflow", Workflow.MERGED.name()))
+                .query(query)
+                .fetchSource(new String[] {"mid", "mergedTo", "workflow", "objectType"}, null)
                 .size(iterateBatchSize)
             ;
-            while(i.hasNext()) {
+            while (i.hasNext()) {
                 final JsonNode o = i.next();
-                String mid = o.get("mid").textValue();
-                String mergedToRef = Optional.ofNullable(o.get("mergedTo")).map(JsonNode::textValue).orElse(null);
-                if (mergedToRef != null) {
-                    newRedirects.put(mid, mergedToRef);
-                } else {
+                final String mid = o.get("mid").textValue();
+                final boolean merged = Workflow.MERGED.name().equals(Optional.ofNullable(o.get("workflow")).map(JsonNode::textValue).orElse(null));
+                final String mergedToRef = merged ? Optional.ofNullable(o.get("mergedTo")).map(JsonNode::textValue).orElse(null) : null;
+                if (merged && mergedToRef == null) {
                     boolean segment = "segment".equals(o.get("objectType").textValue());
                     if (segment) {
                         log.debug("Found merged segment {}. This is correct.", mid);
@@ -901,15 +1447,24 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
                         log.warn("Found merged object without merged to {}", mid);
                     }
                 }
+                result.put(mid, mergedToRef);
             }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
         }
-        if (redirects == null || ! newRedirects.equals(redirects.getMap())) {
-            redirects = new RedirectList(CLOCK.instant(), newRedirects);
-            log.info("Read {} redirects from ES in {}", redirects.size(), Duration.between(start, Instant.now()));
-        }
-        lastRedirectRead = CLOCK.instant();
+    }
+
+    /**
+     * Swaps in a new version of the redirects
+     */
+    void setRedirects(RedirectIndex index) {
+        redirectIndex = index;
+        redirects = new RedirectList(CLOCK.instant(), index.asMap());
+    }
+
+    /**
+     * Adds (or removes, if the value is {@code null}) redirects
+     */
+    synchronized void mergeRedirects(Map<String, String> changes) {
+        setRedirects((redirectIndex == null ? RedirectIndex.EMPTY : redirectIndex).merge(changes));
     }
 
 
@@ -930,21 +1485,47 @@ public class ESMediaRepository extends AbstractESMediaRepository implements Medi
     @SneakyThrows
     private <S extends MediaObject> GenericMediaSearchResult<S> findAssociatedMedia(
         @NonNull String axis,
+        @NonNull String endpoint,
+        @NonNull MediaObject media,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        long offset,
+        @Nullable Integer max,
+        @NonNull Class<S> clazz) {
+        SearchRequestWrapper request = associatedMediaRequest(axis, endpoint, media, profile, form, offset, max);
+        return executeSearchRequest(endpoint, request, form != null ? form.getFacets() : null, offset, max, clazz);
+    }
+
+    @SneakyThrows
+    private <S extends MediaObject> CompletableFuture<GenericMediaSearchResult<S>> findAssociatedMediaAsync(
+        @NonNull String axis,
+        @NonNull String endpoint,
         @NonNull MediaObject media,
         @Nullable ProfileDefinition<MediaObject> profile,
         @Nullable MediaForm form,
         long offset,
         @Nullable Integer max,
         @NonNull Class<S> clazz) {
+        SearchRequestWrapper request = associatedMediaRequest(axis, endpoint, media, profile, form, offset, max);
+        return executeSearchRequestAsync(endpoint, request, form != null ? form.getFacets() : null, offset, max, clazz);
+    }
+
+    private SearchRequestWrapper associatedMediaRequest(
+        @NonNull String axis,
+        @NonNull String endpoint,
+        @NonNull MediaObject media,
+        @Nullable ProfileDefinition<MediaObject> profile,
+        @Nullable MediaForm form,
+        long offset,
+        @Nullable Integer max) throws IOException {
         String ref = media.getMid();
         assert ref != null;
         BoolQueryBuilder booleanFilter =
             QueryBuilders.boolQuery().must(QueryBuilders.termQuery(axis + ".midRef", ref));
 
-
         SearchRequestWrapper request = mediaSearchRequest(profile, form, media, booleanFilter, offset, max);
-
-        return executeSearchRequest(request, form != null ? form.getFacets() : null, offset, max, clazz);
+        trackTotalHits(request.getRequest().source(), endpoint);
+        return request;
     }
 
     private boolean hasProfileUpdate(
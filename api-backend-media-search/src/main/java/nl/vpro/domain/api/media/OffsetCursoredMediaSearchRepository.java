@@ -0,0 +1,66 @@
+package nl.vpro.domain.api.media;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import nl.vpro.domain.api.*;
+import nl.vpro.domain.api.profile.ProfileDefinition;
+import nl.vpro.domain.media.MediaObject;
+
+/**
+ * {@link CursoredMediaSearchRepository} for a {@link MediaSearchRepository} which doesn't support cursors itself. The cursor is just the offset of the next page, so paging costs are not independent of the depth, but clients can use the same API.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class OffsetCursoredMediaSearchRepository implements CursoredMediaSearchRepository {
+
+    private final MediaSearchRepository repository;
+
+    public OffsetCursoredMediaSearchRepository(@NonNull MediaSearchRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public CursoredResult<MediaResult> listWithCursor(@NonNull Order order, @Nullable String cursor, @Nullable Integer max) {
+        final long offset = decode(cursor);
+        final MediaResult result = repository.list(order, offset, max);
+        return new CursoredResult<>(result, next(offset, result.getItems().size(), result.getTotal(), max));
+    }
+
+    @Override
+    public CursoredResult<MediaSearchResult> findWithCursor(@Nullable ProfileDefinition<MediaObject> profile, @Nullable MediaForm form, @Nullable String cursor, @Nullable Integer max) {
+        final long offset = decode(cursor);
+        final MediaSearchResult result = repository.find(profile, form, offset, max);
+        return new CursoredResult<>(result, next(offset, result.getItems().size(), result.getTotal(), max));
+    }
+
+    static long decode(@Nullable String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            final long offset = Long.parseLong(cursor);
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid cursor " + cursor);
+            }
+            return offset;
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor, nfe);
+        }
+    }
+
+    @Nullable
+    static String next(long offset, int size, @Nullable Long total, @Nullable Integer max) {
+        if (size == 0) {
+            return null;
+        }
+        final boolean more = total == null ? (max == null || size >= max) : offset + size < total;
+        return more ? String.valueOf(offset + size) : null;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" + repository + "}";
+    }
+}
@@ -0,0 +1,114 @@
+package nl.vpro.domain.api.media;
+
+import java.util.*;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An immutable, compact map of redirects (merged mid to the mid it was merged to). It is stored as two parallel sorted arrays, so a lookup is a binary search and does not allocate anything.
+ * <p>
+ * Changes are applied via {@link #merge(Map)}, which produces a new instance, so a new version can be swapped in atomically.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+final class RedirectIndex {
+
+    static final RedirectIndex EMPTY = new RedirectIndex(new String[0], new String[0]);
+
+    /**
+     * Redirects to redirects are followed, but not endlessly
+     */
+    private static final int MAX_HOPS = 10;
+
+    private final String[] from;
+    private final String[] to;
+
+    private RedirectIndex(String[] from, String[] to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    static RedirectIndex of(@NonNull Map<String, String> redirects) {
+        return EMPTY.merge(redirects);
+    }
+
+    /**
+     * @return The mid the given mid eventually redirects to, or {@code null} if it doesn't redirect
+     */
+    @Nullable
+    String get(@NonNull String mid) {
+        String result = null;
+        String current = mid;
+        for (int hop = 0; hop < MAX_HOPS; hop++) {
+            final int i = Arrays.binarySearch(from, current);
+            if (i < 0) {
+                break;
+            }
+            result = current = to[i];
+        }
+        return result;
+    }
+
+    /**
+     * @param changes Redirects to add or replace. A {@code null} value removes the redirect of that mid.
+     * @return A new index, or this one if nothing changed
+     */
+    RedirectIndex merge(@NonNull Map<String, @Nullable String> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        final SortedMap<String, String> sorted = new TreeMap<>(changes);
+        final String[] newFrom = new String[from.length + sorted.size()];
+        final String[] newTo = new String[newFrom.length];
+        int i = 0;
+        int n = 0;
+        boolean changed = false;
+        for (Map.Entry<String, String> change : sorted.entrySet()) {
+            while (i < from.length && from[i].compareTo(change.getKey()) < 0) {
+                newFrom[n] = from[i];
+                newTo[n++] = to[i++];
+            }
+            final boolean existing = i < from.length && from[i].equals(change.getKey());
+            if (change.getValue() != null) {
+                changed |= ! existing || ! to[i].equals(change.getValue());
+                newFrom[n] = change.getKey();
+                newTo[n++] = change.getValue();
+            } else {
+                changed |= existing;
+            }
+            if (existing) {
+                i++;
+            }
+        }
+        if (! changed) {
+            return this;
+        }
+        final int rest = from.length - i;
+        System.arraycopy(from, i, newFrom, n, rest);
+        System.arraycopy(to, i, newTo, n, rest);
+        n += rest;
+        return new RedirectIndex(Arrays.copyOf(newFrom, n), Arrays.copyOf(newTo, n));
+    }
+
+    int size() {
+        return from.length;
+    }
+
+    /**
+     * @return The redirects as (unmodifiable, sorted) map
+     */
+    Map<String, String> asMap() {
+        final Map<String, String> result = new LinkedHashMap<>(from.length * 4 / 3 + 1);
+        for (int i = 0; i < from.length; i++) {
+            result.put(from[i], to[i]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public String toString() {
+        return "RedirectIndex{size=" + size() + "}";
+    }
+}
@@ -0,0 +1,113 @@
+package nl.vpro.domain.api.schedule;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.google.common.cache.*;
+
+/**
+ * A size bounded, in-process map from crids to the mids of the objects that have them, so that loading an object by crid is a normal load by mid.
+ * <p>
+ * Like in {@link nl.vpro.domain.api.NearCache} absence is cached too. Entries are invalidated explicitly by {@link ESScheduleRepository} when objects are published (with the crids they have now, and their mids, for the crids they had), and expire after a configured duration anyway.
+ * <p>
+ * To invalidate by mid, the crids per mid are kept too. That map is maintained by a removal listener, so it never holds more than the cache itself.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+final class CridIndex {
+
+    private final Cache<String, Optional<String>> cache;
+
+    private final Map<String, Set<String>> cridsByMid = new ConcurrentHashMap<>();
+
+    CridIndex(long maximumSize, @NonNull Duration expireAfterWrite) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .removalListener(this::removed)
+            .build();
+    }
+
+    /**
+     * @return {@code null} if nothing is known about the crid. An empty optional if it is known that no object has it.
+     */
+    @Nullable
+    Optional<String> getIfPresent(@NonNull String crid) {
+        return cache.getIfPresent(crid);
+    }
+
+    /**
+     * @return The known mids of the given crids. The ones of which nothing is known are added to {@code unknown}
+     */
+    Map<String, Optional<String>> getAllPresent(@NonNull Collection<String> crids, @NonNull Collection<String> unknown) {
+        final Map<String, Optional<String>> result = new HashMap<>(cache.getAllPresent(crids));
+        for (String crid : crids) {
+            if (! result.containsKey(crid)) {
+                unknown.add(crid);
+            }
+        }
+        return result;
+    }
+
+    void put(@NonNull String crid, @Nullable String mid) {
+        // a replaced value is removed from the crids of its mid (synchronously) by the removal listener, so this must happen after that
+        cache.put(crid, Optional.ofNullable(mid));
+        if (mid != null) {
+            cridsByMid.computeIfAbsent(mid, m -> ConcurrentHashMap.newKeySet()).add(crid);
+        }
+    }
+
+    /**
+     * Forgets the given crids, and all crids resolving to one of the given mids
+     */
+    void invalidate(@NonNull Collection<String> crids, @NonNull Collection<String> mids) {
+        cache.invalidateAll(crids);
+        for (String mid : mids) {
+            final Set<String> cridsOfMid = cridsByMid.remove(mid);
+            if (cridsOfMid != null) {
+                cache.invalidateAll(cridsOfMid);
+            }
+        }
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+        cridsByMid.clear();
+    }
+
+    /**
+     * The number of mids of which crids are known
+     */
+    int midCount() {
+        return cridsByMid.size();
+    }
+
+    private void removed(RemovalNotification<String, Optional<String>> notification) {
+        final Optional<String> mid = notification.getValue();
+        if (mid != null && mid.isPresent()) {
+            cridsByMid.computeIfPresent(mid.get(), (m, crids) -> {
+                crids.remove(notification.getKey());
+                return crids.isEmpty() ? null : crids;
+            });
+        }
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public String toString() {
+        return "CridIndex{size=" + size() + ", " + stats() + "}";
+    }
+}
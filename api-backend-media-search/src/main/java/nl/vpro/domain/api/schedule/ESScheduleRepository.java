@@ -5,17 +5,26 @@ import lombok.ToString;
 import lombok.extern.log4j.Log4j2;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.index.query.*;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortMode;
 import org.elasticsearch.search.sort.SortOrder;
 import org.springframework.beans.factory.annotation.Value;
 
@@ -31,7 +40,7 @@ import nl.vpro.domain.media.support.Workflow;
 import nl.vpro.elasticsearch.Constants;
 import nl.vpro.elasticsearch.highlevel.ExtendedElasticSearchIterator;
 import nl.vpro.elasticsearch.highlevel.HighLevelClientFactory;
-import nl.vpro.media.domain.es.ApiMediaIndex;
+import nl.vpro.media.domain.es.Common;
 import nl.vpro.util.TimeUtils;
 
 import static nl.vpro.domain.api.ESQueryBuilder.simplifyQuery;
@@ -49,6 +58,81 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
 
     private final MediaScoreManager scoreManager;
 
+    /**
+     * Whether {@code listSchedules*} are executed on the {@link #getScheduleEventsIndexName() schedule events index}. If not, or if that index is not available, they are executed on the media index.
+     */
+    private boolean useScheduleEventsIndex = false;
+
+    /**
+     * If the schedule events index was found missing, it is only checked again after this
+     */
+    private Duration scheduleEventsIndexRecheck = Duration.ofMinutes(5);
+
+    /**
+     * When the schedule events index was found missing, or {@code null} if it wasn't (since)
+     */
+    private volatile Instant scheduleEventsIndexMissingSince = null;
+
+    /**
+     * Whether the schedules of channels for complete guide days are kept in memory (see {@link GuideDayCache})
+     */
+    private boolean guideDayCacheEnabled = false;
+
+    /**
+     * The number of guide days before and after today that are kept in the guide day cache
+     */
+    private int guideDayCachePastDays = 7;
+    private int guideDayCacheFutureDays = 14;
+
+
+    /**
+     * The channels of which the schedules are cached. Channels of which a guide day is requested are added automatically.
+     */
+    private final Set<Channel> guideDayCacheChannels = ConcurrentHashMap.newKeySet();
+
+    private final GuideDayCache guideDayCache = new GuideDayCache();
+
+    /**
+     * Whether 'now' and 'next' (the first events before or after some instant) are looked up in a {@link NowNextIndex}
+     */
+    private boolean nowNextIndexEnabled = false;
+
+    /**
+     * The window of the now/next index, relative to now
+     */
+    private Duration nowNextIndexPast = Duration.ofDays(1);
+    private Duration nowNextIndexFuture = Duration.ofDays(8);
+
+    /**
+     * The now/next index is completely reloaded if its window moved more than this
+     */
+    private static final Duration NOW_NEXT_INDEX_SLACK = Duration.ofHours(1);
+
+    private volatile NowNextIndex nowNextIndex = NowNextIndex.EMPTY;
+
+    /**
+     * The events in {@link #nowNextIndex} per mid, to rebuild it on changes. Only used by the {@link #cacheRefresher}.
+     */
+    private final Map<String, List<ApiScheduleEvent>> nowNextEvents = new HashMap<>();
+
+    /**
+     * How often the in memory caches (guide days, now/next) are updated with published changes (and moved with the current time)
+     */
+    private Duration cacheRefreshInterval = Duration.ofMinutes(1);
+
+    /**
+     * The maximal number of crids of which the mid is kept in memory (see {@link CridIndex}). {@code 0} disables it.
+     */
+    private long cridIndexSize = 0;
+
+    private Duration cridIndexExpiry = Duration.ofHours(1);
+
+    private CridIndex cridIndex = null;
+
+    private ScheduledExecutorService cacheRefresher;
+
+    private Instant cacheWatermark = null;
+
 
     @Override
     @Value("${elasticSearch.schedule.index}")
@@ -70,6 +154,101 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
         super.setTimeOut(TimeUtils.parseDuration(timeout).orElse(Duration.ofSeconds(15)));
     }
 
+    @Value("${elasticSearch.schedule.useScheduleEventsIndex:false}")
+    public void setUseScheduleEventsIndex(boolean useScheduleEventsIndex) {
+        this.useScheduleEventsIndex = useScheduleEventsIndex;
+        this.scheduleEventsIndexMissingSince = null;
+    }
+
+    public boolean isUseScheduleEventsIndex() {
+        return useScheduleEventsIndex;
+    }
+
+    @Value("${elasticSearch.schedule.scheduleEventsIndexRecheck:PT5M}")
+    public void setScheduleEventsIndexRecheck(String scheduleEventsIndexRecheck) {
+        this.scheduleEventsIndexRecheck = TimeUtils.parseDuration(scheduleEventsIndexRecheck).orElse(Duration.ofMinutes(5));
+    }
+
+    public Duration getScheduleEventsIndexRecheck() {
+        return scheduleEventsIndexRecheck;
+    }
+
+    /**
+     * Whether the schedule events index was found missing (less than {@link #getScheduleEventsIndexRecheck()} ago), so the media index is used.
+     * @since 8.14
+     */
+    public boolean isScheduleEventsIndexMissing() {
+        final Instant missingSince = scheduleEventsIndexMissingSince;
+        return missingSince != null && Common.CLOCK.instant().isBefore(missingSince.plus(scheduleEventsIndexRecheck));
+    }
+
+    @Value("${elasticSearch.schedule.guideDayCache.enabled:false}")
+    public void setGuideDayCacheEnabled(boolean guideDayCacheEnabled) {
+        this.guideDayCacheEnabled = guideDayCacheEnabled;
+    }
+
+    public boolean isGuideDayCacheEnabled() {
+        return guideDayCacheEnabled;
+    }
+
+    @Value("${elasticSearch.schedule.guideDayCache.pastDays:7}")
+    public void setGuideDayCachePastDays(int guideDayCachePastDays) {
+        this.guideDayCachePastDays = guideDayCachePastDays;
+    }
+
+    @Value("${elasticSearch.schedule.guideDayCache.futureDays:14}")
+    public void setGuideDayCacheFutureDays(int guideDayCacheFutureDays) {
+        this.guideDayCacheFutureDays = guideDayCacheFutureDays;
+    }
+
+    @Value("${elasticSearch.schedule.cacheRefreshInterval:PT1M}")
+    public void setCacheRefreshInterval(String cacheRefreshInterval) {
+        this.cacheRefreshInterval = TimeUtils.parseDuration(cacheRefreshInterval).orElse(Duration.ofMinutes(1));
+    }
+
+    @Value("${elasticSearch.schedule.guideDayCache.channels:}")
+    public void setGuideDayCacheChannels(String channels) {
+        guideDayCacheChannels.clear();
+        guideDayCacheChannels.addAll(Channel.valuesOf(Arrays.asList(StringUtils.split(channels == null ? "" : channels, ", "))));
+    }
+
+    @Value("${elasticSearch.schedule.nowNextIndex.enabled:false}")
+    public void setNowNextIndexEnabled(boolean nowNextIndexEnabled) {
+        this.nowNextIndexEnabled = nowNextIndexEnabled;
+    }
+
+    public boolean isNowNextIndexEnabled() {
+        return nowNextIndexEnabled;
+    }
+
+    @Value("${elasticSearch.schedule.nowNextIndex.past:P1D}")
+    public void setNowNextIndexPast(String past) {
+        this.nowNextIndexPast = TimeUtils.parseDuration(past).orElse(Duration.ofDays(1));
+    }
+
+    @Value("${elasticSearch.schedule.nowNextIndex.future:P8D}")
+    public void setNowNextIndexFuture(String future) {
+        this.nowNextIndexFuture = TimeUtils.parseDuration(future).orElse(Duration.ofDays(8));
+    }
+
+    @Value("${elasticSearch.schedule.cridIndex.size:0}")
+    public void setCridIndexSize(long cridIndexSize) {
+        this.cridIndexSize = cridIndexSize;
+    }
+
+    @Value("${elasticSearch.schedule.cridIndex.expiry:PT1H}")
+    public void setCridIndexExpiry(String cridIndexExpiry) {
+        this.cridIndexExpiry = TimeUtils.parseDuration(cridIndexExpiry).orElse(Duration.ofHours(1));
+    }
+
+    public long getCridIndexHitCount() {
+        return cridIndex == null ? 0 : cridIndex.stats().hitCount();
+    }
+
+    public long getCridIndexMissCount() {
+        return cridIndex == null ? 0 : cridIndex.stats().missCount();
+    }
+
     @Inject
     public ESScheduleRepository(
         HighLevelClientFactory client,
@@ -81,10 +260,65 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
     }
 
 
+    @Override
+    public void init() {
+        super.init();
+        if (cridIndexSize > 0) {
+            cridIndex = new CridIndex(cridIndexSize, cridIndexExpiry);
+            log.info("Using {} for {}", cridIndex, this);
+        }
+        if (guideDayCacheEnabled || nowNextIndexEnabled || cridIndex != null) {
+            cacheRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, ESScheduleRepository.class.getSimpleName() + "-caches");
+                thread.setDaemon(true);
+                return thread;
+            });
+            cacheRefresher.scheduleWithFixedDelay(
+                this::refreshCaches,
+                0,
+                cacheRefreshInterval.toMillis(),
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (cacheRefresher != null) {
+            cacheRefresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Like {@link #load(boolean, String)}, but the crids are resolved all at once, and the objects are loaded with one multi get.
+     * @since 8.14
+     */
+    @SneakyThrows
     @Override
     @NonNull
     public List<MediaObject> loadAll(boolean loadDeleted, List<String> ids) {
-        throw new UnsupportedOperationException();
+        final Map<String, String> mids = resolveCrids(ids.stream().filter(ESScheduleRepository::isCrid).toList());
+        final List<String> toLoad = new ArrayList<>();
+        for (String id : ids) {
+            if (isCrid(id)) {
+                if (mids.containsKey(id)) {
+                    toLoad.add(mids.get(id));
+                }
+            } else {
+                toLoad.add(redirect(id).orElse(id));
+            }
+        }
+        final Map<String, MediaObject> loaded = new HashMap<>();
+        for (Optional<MediaObject> mo : loadAll(MediaObject.class, getIndexName(), toLoad.toArray(new String[0]))) {
+            mo.ifPresent(m -> loaded.put(m.getMid(), m));
+        }
+        final List<MediaObject> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            final MediaObject mo = loaded.get(isCrid(id) ? mids.get(id) : redirect(id).orElse(id));
+            result.add(mo == null || loadDeleted || Workflow.PUBLICATIONS.contains(mo.getWorkflow()) ? mo : null);
+        }
+        return result;
     }
 
     @Override
@@ -108,6 +342,14 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
         }
     }
 
+    /**
+     * The schedule events are needed to build the results, and the ancestors to filter them.
+     */
+    @Override
+    protected Set<String> requiredSourceProperties() {
+        return Set.of("scheduleevent", "descendantof");
+    }
+
     @Override
     public RedirectList redirects() {
         return mediaRedirector.redirects();
@@ -115,12 +357,13 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
 
 
     protected MediaObject loadWithCrid(String id) throws IOException {
-        if(id.startsWith("crid://")) {
-            try {
+        if (isCrid(id)) {
+            if (cridIndex == null) {
+                // then resolving it first would cost an extra request
                 return findByCrid(id);
-            } catch(IOException e) {
-                throw new RuntimeException(e);
             }
+            final String mid = resolveCrids(List.of(id)).get(id);
+            return mid == null ? null : load(mid, MediaObject.class);
         } else {
             id = redirect(id).orElse(id);
             return load(id, MediaObject.class);
@@ -140,7 +383,13 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
         ExtendedScheduleForm form = new ExtendedScheduleForm(
             new SchedulePager(offset, max, null, order.direction()), new InstantRange(start, stop));
         form.setChannels(Collections.singletonList(channel));
-        return execute(form);
+        final Optional<ScheduleResult> cached = guideDayKey(channel, start, stop)
+            .flatMap(key -> fromGuideDayCache(key, form, order, offset, max));
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return fromNowNextIndex(NowNextIndex.channelKey(channel), form, start, stop, order, offset, max)
+            .orElseGet(() -> execute(form));
     }
 
     @Override
@@ -150,6 +399,12 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
             guideDay
         );
         form.setChannels(Collections.singletonList(channel));
+        if (channel != null && guideDay != null) {
+            final Optional<ScheduleResult> cached = fromGuideDayCache(new GuideDayCache.Key(channel, guideDay), form, order, offset, max);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
         return execute(form);
     }
 
@@ -169,7 +424,8 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
             new InstantRange(start, stop)
         );
         form.setBroadcaster(broadcaster);
-        return execute(form);
+        return fromNowNextIndex(NowNextIndex.broadcasterKey(broadcaster), form, start, stop, order, offset, max)
+            .orElseGet(() -> execute(form));
     }
 
     @Override
@@ -185,27 +441,473 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
         ExtendedScheduleForm form = new ExtendedScheduleForm(
             new SchedulePager(offset, max, null, order.direction()), new InstantRange(start, stop));
         form.setDescendantOf(Collections.singletonList(mediaId));
-        return execute(form);
+        return fromNowNextIndex(NowNextIndex.ancestorKey(mediaId), form, start, stop, order, offset, max)
+            .orElseGet(() -> execute(form));
     }
 
-    private MediaObject findByCrid(String crid) throws IOException {
-        TermQueryBuilder query = QueryBuilders.termQuery("crids", crid);
-        SearchRequest request = new SearchRequest(indexNames.get(ApiMediaIndex.APIMEDIA));
-        SearchSourceBuilder searchBuilder = new SearchSourceBuilder();
-        searchBuilder.query(query);
-
-        request.source(searchBuilder);
+    private static boolean isCrid(String id) {
+        return id.startsWith("crid://");
+    }
 
-        SearchResponse response = client().search(request, requestOptions());
+    /**
+     * Resolves the mids of the objects with the given crids, from the {@link CridIndex} if possible, and with one search for the others.
+     *
+     * @return The mids of the crids that were found
+     * @since 8.14
+     */
+    public Map<String, String> resolveCrids(@NonNull Collection<String> crids) {
+        final Set<String> unknown = new LinkedHashSet<>();
+        final Map<String, String> result = new HashMap<>();
+        if (cridIndex != null) {
+            cridIndex.getAllPresent(crids, unknown)
+                .forEach((crid, mid) -> mid.ifPresent(m -> result.put(crid, m)));
+        } else {
+            unknown.addAll(crids);
+        }
+        if (! unknown.isEmpty()) {
+            try {
+                result.putAll(findByCrids(unknown));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return result;
+    }
 
-        SearchHits hits = response.getHits();
-        if(hits.getTotalHits().value == 0) {
+    private MediaObject findByCrid(String crid) throws IOException {
+        final SearchRequest request = new SearchRequest(getIndexName());
+        request.source(new SearchSourceBuilder()
+            .query(QueryBuilders.termQuery("crids", crid))
+            .size(1)
+        );
+        final SearchHits hits = search(request, timer("findByCrid", getIndexName())).getHits();
+        if (hits.getHits().length == 0) {
             return null;
         }
         return MAPPER.readValue(hits.getHits()[0].getSourceAsString(), MediaObject.class);
     }
 
+    private Map<String, String> findByCrids(Set<String> crids) throws IOException {
+        final SearchRequest request = new SearchRequest(getIndexName());
+        request.source(new SearchSourceBuilder()
+            .query(QueryBuilders.termsQuery("crids", crids))
+            .fetchSource(new String[] {"mid", "crids"}, null)
+            .size(Math.min(10000, 2 * crids.size()))
+        );
+        final SearchHits hits = search(request, timer("findByCrids", getIndexName())).getHits();
+        final Map<String, String> result = new HashMap<>();
+        for (SearchHit hit : hits.getHits()) {
+            final JsonNode source = MAPPER.readTree(hit.getSourceAsString());
+            final String mid = source.path("mid").textValue();
+            for (JsonNode crid : source.path("crids")) {
+                if (mid != null && crids.contains(crid.textValue())) {
+                    result.putIfAbsent(crid.textValue(), mid);
+                }
+            }
+        }
+        if (cridIndex != null) {
+            result.forEach(cridIndex::put);
+            // only if all hits were seen, it is sure that the others don't exist
+            if (hits.getTotalHits() != null && hits.getTotalHits().value <= hits.getHits().length) {
+                for (String crid : crids) {
+                    if (! result.containsKey(crid)) {
+                        cridIndex.put(crid, null);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
     private ScheduleResult execute(ExtendedScheduleForm form) {
+        if (useScheduleEventsIndex && ! isScheduleEventsIndexMissing()) {
+            try {
+                final ScheduleResult result = executeOnScheduleEvents(form);
+                if (scheduleEventsIndexMissingSince != null) {
+                    log.info("{} is available (again)", getScheduleEventsIndexName());
+                    scheduleEventsIndexMissingSince = null;
+                }
+                return result;
+            } catch (ElasticsearchStatusException e) {
+                if (e.status() != RestStatus.NOT_FOUND) {
+                    throw e;
+                }
+                if (scheduleEventsIndexMissingSince == null) {
+                    log.warn("{}: {}, falling back to {} (checking again in {})", getScheduleEventsIndexName(), e.getMessage(), getIndexName(), scheduleEventsIndexRecheck);
+                } else {
+                    log.debug("{}: {}, falling back to {}", getScheduleEventsIndexName(), e.getMessage(), getIndexName());
+                }
+                scheduleEventsIndexMissingSince = Common.CLOCK.instant();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return executeOnMedia(form);
+    }
+
+    /**
+     * Every document of the schedule events index is one event, with its program as {@code media}, so the events can be filtered, sorted and paged by elasticsearch itself.
+     * @since 8.14
+     */
+    private ScheduleResult executeOnScheduleEvents(ExtendedScheduleForm form) throws IOException {
+        final long offset = form.getPager().getOffset();
+        final Integer max = form.getPager().getMax();
+        final SearchSourceBuilder source = new SearchSourceBuilder()
+            .query(scheduleEventsQuery(form))
+            .sort("start", SortOrder.valueOf(form.getPager().getOrder().name()))
+            .sort("channel", SortOrder.ASC)
+            .trackTotalHits(true);
+        final boolean maxWasZero = handlePaging(offset, max, source);
+        final SearchResponse response = search(new SearchRequest(getScheduleEventsIndexName()).source(source), timer("listSchedules", getScheduleEventsIndexName()));
+        final SearchHits hits = response.getHits();
+        checkResultWindow(offset, max, hits);
+        final List<ApiScheduleEvent> results = new ArrayList<>();
+        if (! maxWasZero) {
+            for (SearchHit hit : hits.getHits()) {
+                results.add(readSource(hit.getSourceRef(), ApiScheduleEvent.class));
+            }
+        }
+        return new ScheduleResult(new Result<>(results, offset, max, getTotal(hits)));
+    }
+
+    static QueryBuilder scheduleEventsQuery(ExtendedScheduleForm form) {
+        final BoolQueryBuilder query = QueryBuilders.boolQuery();
+        query.filter(QueryBuilders.termQuery("media.workflow", Workflow.PUBLISHED.name()));
+        if (form.hasChannels()) {
+            query.filter(QueryBuilders.termsQuery("channel", form.getChannels().stream().map(Channel::name).toList()));
+        }
+        if (form.getBroadcaster() != null) {
+            query.filter(QueryBuilders.termQuery("media.broadcasters.id", form.getBroadcaster()));
+        }
+        if (form.getNet() != null) {
+            query.filter(QueryBuilders.termQuery("net", form.getNet()));
+        }
+        if (form.getMediaType() != null) {
+            query.filter(QueryBuilders.termQuery("media.type", form.getMediaType().name()));
+        }
+        if (form.getDescendantOf() != null) {
+            for (String descendantOf : form.getDescendantOf()) {
+                query.filter(QueryBuilders.termQuery("media.descendantOf.midRef", descendantOf));
+            }
+        }
+        if (form.hasStart() || form.hasStop()) {
+            query.filter(startRange("start", form));
+        }
+        if (form.getGuideDay() != null) {
+            query.filter(QueryBuilders.termQuery("guideDay", form.getGuideDay().atStartOfDay(Schedule.ZONE_ID).toEpochSecond() * 1000));
+        }
+        return simplifyQuery(query);
+    }
+
+    private static RangeQueryBuilder startRange(String field, ExtendedScheduleForm form) {
+        final RangeQueryBuilder rangeQueryBuilder = QueryBuilders.rangeQuery(field);
+        if (form.hasStart()) {
+            Instant start = form.getDateRange().getStartValue();
+            if (!form.getDateRange().getStart().isInclusive()) {
+                start = start.plusMillis(1);
+            }
+            rangeQueryBuilder.from(start.toEpochMilli());
+        }
+        if (form.hasStop()) {
+            Instant stop = form.getDateRange().getStopValue();
+            if (!form.getDateRange().getStop().isInclusive()) {
+                stop = stop.minusMillis(1);
+            }
+            rangeQueryBuilder.to(stop.toEpochMilli());
+        }
+        return rangeQueryBuilder;
+    }
+
+    /**
+     * The schedule of a channel on a guide day, if the {@link GuideDayCache} is enabled, and it is cached. The channel will be cached from now on, if it wasn't.
+     * @param form The events of the cached guide day are filtered by this, like {@link #executeOnMedia(ExtendedScheduleForm)} does, since the guide day contains the events that start on it, and the ones that have it as their {@code guideDay}.
+     */
+    private Optional<ScheduleResult> fromGuideDayCache(GuideDayCache.Key key, ExtendedScheduleForm form, Order order, long offset, Integer max) {
+        if (! guideDayCacheEnabled) {
+            return Optional.empty();
+        }
+        guideDayCacheChannels.add(key.channel());
+        final Optional<List<ApiScheduleEvent>> schedule = guideDayCache.get(key);
+        if (schedule.isEmpty()) {
+            log.debug("{} not (yet) cached", key);
+        }
+        return schedule.map(events -> GuideDayCache.result(events.stream().filter(form::test).toList(), order, offset, max));
+    }
+
+    /**
+     * @return The guide day of which the given range is exactly the schedule of the given channel, if it is.
+     */
+    private static Optional<GuideDayCache.Key> guideDayKey(Channel channel, Instant start, Instant stop) {
+        if (channel == null || start == null || stop == null) {
+            return Optional.empty();
+        }
+        final LocalDate guideDay = LocalDate.ofInstant(start, ScheduleService.ZONE_ID);
+        if (ScheduleService.guideDayStart(guideDay).toInstant().equals(start) && ScheduleService.guideDayStop(guideDay).toInstant().equals(stop)) {
+            return Optional.of(new GuideDayCache.Key(channel, guideDay));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The first events (now, or next) if they can be found in the {@link NowNextIndex} (see {@link #isNowOrNext(Instant, Instant, Order, long, Integer, NowNextIndex)}).
+     */
+    private Optional<ScheduleResult> fromNowNextIndex(String key, ExtendedScheduleForm form, Instant start, Instant stop, Order order, long offset, Integer max) {
+        final NowNextIndex index = nowNextIndex;
+        if (! nowNextIndexEnabled || ! isNowOrNext(start, stop, order, offset, max, index)) {
+            return Optional.empty();
+        }
+        final List<ApiScheduleEvent> events = index.first(key, start, stop, order, max, form::test);
+        if (events == null) {
+            log.debug("{} can't be determined from {}", form, index);
+            return Optional.empty();
+        }
+        final Integer count = start == null || stop == null ? null : index.count(key, start, stop, form::test);
+        return Optional.of(new ScheduleResult(new Result<>(events, offset, max, count == null ? Result.Total.atLeast(events.size()) : Result.Total.equalsTo(count))));
+    }
+
+    /**
+     * Whether the arguments request 'now' (the last events starting before some instant) or 'next' (the first events starting after some instant), which is what the now/next endpoints do, and whether the index can answer that.
+     * <p>
+     * If the range is completely in the window of the index, then all its events are known, and the total is exact. Otherwise, only the first event is taken from the index (the total of that is only 'at least'), and only if the range is open at the far end (otherwise it's just some list, with an exact total).
+     */
+    static boolean isNowOrNext(@Nullable Instant start, @Nullable Instant stop, @Nullable Order order, long offset, @Nullable Integer max, @NonNull NowNextIndex index) {
+        if (offset != 0 || max == null || max < 1) {
+            return false;
+        }
+        if (start != null && stop != null && index.contains(start, stop)) {
+            return true;
+        }
+        return max == 1 && (order == Order.DESC ? start == null && stop != null : start != null && stop == null);
+    }
+
+    /**
+     * Updates the in memory caches with the objects that were published since the previous call
+     */
+    protected void refreshCaches() {
+        try {
+            final Instant now = Common.CLOCK.instant();
+            final List<JsonNode> changed = cacheWatermark == null ? List.of() : changedSources(cacheWatermark.minus(commitDelay));
+            if (cridIndex != null) {
+                cridIndex.invalidate(crids(changed), mids(changed));
+            }
+            if (guideDayCacheEnabled) {
+                refreshGuideDayCache(now, changed);
+            }
+            if (nowNextIndexEnabled) {
+                refreshNowNextIndex(now, changed);
+            }
+            cacheWatermark = now;
+        } catch (Exception e) {
+            log.warn("Could not refresh {}, {}: {} {}", guideDayCache, nowNextIndex, e.getClass().getName(), e.getMessage());
+            if (cridIndex != null) {
+                // changes may have been missed
+                cridIndex.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * @return The sources (mid, crids and schedule events) of the objects published since the given instant
+     */
+    private List<JsonNode> changedSources(Instant since) throws Exception {
+        final List<JsonNode> result = new ArrayList<>();
+        try (ExtendedElasticSearchIterator<JsonNode> i = ExtendedElasticSearchIterator.<JsonNode>extendedBuilder()
+            .client(factory.highLevelClient())
+            .adapt(h -> h.get(Constants.Fields.SOURCE))
+            .build()) {
+            i.prepareSearchSource(getIndexName())
+                .query(QueryBuilders.rangeQuery(Common.ES_PUBLISH_DATE).gte(since.toEpochMilli()))
+                .fetchSource(new String[] {"mid", "crids", "scheduleEvents.channel", "scheduleEvents.guideDay"}, null)
+                .size(1000);
+            i.forEachRemaining(result::add);
+        }
+        return result;
+    }
+
+    private static Set<String> mids(List<JsonNode> sources) {
+        final Set<String> mids = new HashSet<>();
+        for (JsonNode source : sources) {
+            if (source.hasNonNull("mid")) {
+                mids.add(source.get("mid").textValue());
+            }
+        }
+        return mids;
+    }
+
+    private static Set<String> crids(List<JsonNode> sources) {
+        final Set<String> crids = new HashSet<>();
+        for (JsonNode source : sources) {
+            for (JsonNode crid : source.path("crids")) {
+                crids.add(crid.textValue());
+            }
+        }
+        return crids;
+    }
+
+    /**
+     * Loads the guide days of the cached channels that are missing (e.g. because the current day moved), or that are affected by published changes, and forgets the ones that are outside the window.
+     * <p>
+     * If a guide day can't be loaded, the refresh is aborted, and the guide days that were cached already stay as they are. The changes will be seen again by the next refresh.
+     */
+    private void refreshGuideDayCache(Instant now, List<JsonNode> changed) throws Exception {
+        final Set<GuideDayCache.Key> stale = changedGuideDays(changed);
+        final LocalDate today = LocalDate.ofInstant(now, ScheduleService.ZONE_ID);
+        final LocalDate first = today.minusDays(guideDayCachePastDays);
+        final LocalDate last = today.plusDays(guideDayCacheFutureDays);
+        for (GuideDayCache.Key key : guideDayCache.keys()) {
+            if (key.guideDay().isBefore(first) || key.guideDay().isAfter(last)) {
+                guideDayCache.remove(key);
+            }
+        }
+        int loaded = 0;
+        for (Channel channel : guideDayCacheChannels) {
+            for (LocalDate day = first; ! day.isAfter(last); day = day.plusDays(1)) {
+                final GuideDayCache.Key key = new GuideDayCache.Key(channel, day);
+                if (! guideDayCache.contains(key) || stale.contains(key)) {
+                    loadGuideDay(key);
+                    loaded++;
+                }
+            }
+        }
+        log.debug("Loaded {} guide days ({} changed) in {}", loaded, stale.size(), guideDayCache);
+    }
+
+    /**
+     * Reloads the now/next index completely if its window moved too much, or otherwise only the events of the changed objects.
+     */
+    private void refreshNowNextIndex(Instant now, List<JsonNode> changed) throws Exception {
+        final NowNextIndex current = nowNextIndex;
+        final Instant from = now.minus(nowNextIndexPast);
+        if (current == NowNextIndex.EMPTY || from.isAfter(current.getFrom().plus(NOW_NEXT_INDEX_SLACK))) {
+            final Instant to = now.plus(nowNextIndexFuture);
+            nowNextEvents.clear();
+            nowNextEvents.putAll(loadEvents(from, to, null));
+            nowNextIndex = NowNextIndex.of(from, to, nowNextEvents.values().stream().flatMap(List::stream).toList());
+            log.info("Loaded {}", nowNextIndex);
+        } else if (! changed.isEmpty()) {
+            final Set<String> mids = mids(changed);
+            mids.forEach(nowNextEvents::remove);
+            nowNextEvents.putAll(loadEvents(current.getFrom(), current.getTo(), mids));
+            nowNextIndex = NowNextIndex.of(current.getFrom(), current.getTo(), nowNextEvents.values().stream().flatMap(List::stream).toList());
+            log.debug("Updated {} for {} changed objects", nowNextIndex, mids.size());
+        }
+    }
+
+    /**
+     * @param mids If not {@code null}, only the events of these objects
+     * @return The events starting between {@code from} and {@code to} of published objects, per mid
+     */
+    private Map<String, List<ApiScheduleEvent>> loadEvents(Instant from, Instant to, @Nullable Collection<String> mids) throws Exception {
+        final Map<String, List<ApiScheduleEvent>> result = new HashMap<>();
+        if (mids != null && mids.isEmpty()) {
+            return result;
+        }
+        final BoolQueryBuilder query = QueryBuilders.boolQuery()
+            .filter(QueryBuilders.termQuery("workflow", Workflow.PUBLISHED.name()))
+            .filter(QueryBuilders.rangeQuery("scheduleEvents.start").gte(from.toEpochMilli()).lte(to.toEpochMilli()));
+        if (mids != null) {
+            query.filter(QueryBuilders.termsQuery("mid", mids));
+        }
+        forEachProgram(query, program -> {
+            for (ScheduleEvent event : program.getScheduleEvents()) {
+                final Instant start = event.getStartInstant();
+                if (start != null && ! start.isBefore(from) && ! start.isAfter(to)) {
+                    result.computeIfAbsent(program.getMid(), m -> new ArrayList<>()).add(new ApiScheduleEvent(event, program));
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Loads all events of the channel of the key that are on its guide day: the ones which start in the range of the guide day (as {@link #listSchedules(Channel, Instant, Instant, Order, long, Integer)} lists them), and the ones which have it as their {@code guideDay} (as {@link #listSchedules(Channel, LocalDate, Order, long, Integer)} lists them). These may not agree exactly at the edges, so both are kept, and {@link #fromGuideDayCache(GuideDayCache.Key, ExtendedScheduleForm, Order, long, Integer)} filters them again.
+     * <p>
+     * Contrary to {@link #execute(ExtendedScheduleForm)}, this fails if elasticsearch does, so that an incomplete schedule is never cached.
+     */
+    private void loadGuideDay(GuideDayCache.Key key) throws Exception {
+        final ExtendedScheduleForm byRange = new ExtendedScheduleForm(
+            new SchedulePager(0L, null, null, Order.ASC.direction()),
+            new InstantRange(
+                ScheduleService.guideDayStart(key.guideDay()).toInstant(),
+                ScheduleService.guideDayStop(key.guideDay()).toInstant()
+            )
+        );
+        byRange.setChannels(Collections.singletonList(key.channel()));
+        final ExtendedScheduleForm byGuideDay = new ExtendedScheduleForm(
+            new SchedulePager(0L, null, null, Order.ASC.direction()),
+            key.guideDay()
+        );
+        byGuideDay.setChannels(Collections.singletonList(key.channel()));
+
+        final BoolQueryBuilder query = QueryBuilders.boolQuery()
+            .filter(QueryBuilders.termQuery("workflow", Workflow.PUBLISHED.name()))
+            .filter(QueryBuilders.termQuery("scheduleEvents.channel", key.channel().name()))
+            .filter(QueryBuilders.boolQuery()
+                .should(startRange("scheduleEvents.start", byRange))
+                .should(QueryBuilders.termQuery("scheduleEvents.guideDay", key.guideDay().atStartOfDay(Schedule.ZONE_ID).toEpochSecond() * 1000))
+            );
+        final List<ApiScheduleEvent> events = new ArrayList<>();
+        forEachProgram(query, program -> {
+            for (ScheduleEvent event : program.getScheduleEvents()) {
+                if (byRange.test(event) || byGuideDay.test(event)) {
+                    events.add(new ApiScheduleEvent(event, program));
+                }
+            }
+        });
+        guideDayCache.put(key, events);
+    }
+
+    /**
+     * Iterates all published programs matching the query. The programs are complete, since they are shared between all calls.
+     */
+    private void forEachProgram(QueryBuilder query, Consumer<Program> consumer) throws Exception {
+        try (MediaSourceFilter.Scope ignored = MediaSourceFilter.retain(null);
+             ExtendedElasticSearchIterator<MediaObject> i = ExtendedElasticSearchIterator.<MediaObject>extendedBuilder()
+                 .client(factory.highLevelClient())
+                 .adapt(this::getMediaObject)
+                 .build()) {
+            i.prepareSearchSource(getIndexName())
+                .query(query)
+                .size(1000);
+            while (i.hasNext()) {
+                if (i.next() instanceof Program program) {
+                    consumer.accept(program);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The cached guide days which may have changed by the given published objects: the ones the objects were in, and the ones they are in now
+     */
+    private Set<GuideDayCache.Key> changedGuideDays(List<JsonNode> changed) {
+        final Set<GuideDayCache.Key> result = new HashSet<>();
+        for (JsonNode source : changed) {
+            for (JsonNode event : source.path("scheduleEvents")) {
+                final Channel channel;
+                try {
+                    channel = Channel.valueOf(event.path("channel").asText());
+                } catch (IllegalArgumentException iae) {
+                    continue;
+                }
+                if (! event.has("guideDay")) {
+                    continue;
+                }
+                final LocalDate guideDay = LocalDate.ofInstant(Instant.ofEpochMilli(event.get("guideDay").longValue()), Schedule.ZONE_ID);
+                // the guide day of an event and the range of the guide day may not agree exactly at the edges, so the event may be in the neighbouring ones too
+                for (LocalDate day = guideDay.minusDays(1); ! day.isAfter(guideDay.plusDays(1)); day = day.plusDays(1)) {
+                    result.add(new GuideDayCache.Key(channel, day));
+                }
+            }
+        }
+        result.addAll(guideDayCache.keysFor(mids(changed)));
+        return result;
+    }
+
+    /**
+     * The original implementation, on the media index, where the matching events have to be collected and sorted in memory.
+     */
+    private ScheduleResult executeOnMedia(ExtendedScheduleForm form) {
         QueryBuilder toExecute;
         {
             BoolQueryBuilder query = QueryBuilders.boolQuery();
@@ -235,23 +937,7 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
             }
 
             if (form.hasStart() || form.hasStop()) {
-                RangeQueryBuilder rangeQueryBuilder = QueryBuilders.rangeQuery("scheduleEvents.start");
-                if (form.hasStart()) {
-                    Instant start = form.getDateRange().getStartValue();
-                    if (!form.getDateRange().getStart().isInclusive()) {
-                        start = start.plusMillis(1);
-                    }
-                    rangeQueryBuilder.from(start.toEpochMilli());
-                }
-                if (form.hasStop()) {
-                    Instant stop = form.getDateRange().getStopValue();
-                    if (!form.getDateRange().getStop().isInclusive()) {
-                        stop = stop.minusMillis(1);
-                    }
-                    rangeQueryBuilder.to(stop.toEpochMilli());
-                }
-                query.must(rangeQueryBuilder);
-
+                query.must(startRange("scheduleEvents.start", form));
             }
             if (form.getGuideDay() != null) {
                 query.must(QueryBuilders.termQuery("scheduleEvents.guideDay", form.getGuideDay().atStartOfDay(Schedule.ZONE_ID).toEpochSecond() * 1000));
@@ -259,45 +945,41 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
 
             toExecute = simplifyQuery(query);
         }
-        final List<ApiScheduleEvent> results = new ArrayList<>();
         long mediaObjectCount = 0;
         long offset = form.getPager().getOffset();
         Integer max = form.getPager().getMax();
+        final SortOrder sortOrder = SortOrder.valueOf(form.getPager().getOrder().name());
+        final TopScheduleEvents top = new TopScheduleEvents(sortOrder == SortOrder.DESC, offset, max);
         Optional<Long> total = Optional.empty();
-        try (ExtendedElasticSearchIterator<MediaObject> searchIterator = ExtendedElasticSearchIterator.<MediaObject>extendedBuilder()
+        try (ExtendedElasticSearchIterator<MediaHit> searchIterator = ExtendedElasticSearchIterator.<MediaHit>extendedBuilder()
             .client(factory.highLevelClient())
-            .adapt(this::getMediaObject)
+            .adapt(this::getMediaHit)
             .warnSortNotOnDoc(warnSortNotOnDoc)
             .build()) {
             SearchSourceBuilder requestBuilder = searchIterator.prepareSearchSource(getIndexName());
             requestBuilder.query(toExecute);
-            requestBuilder.sort("scheduleEvents.start", SortOrder.DESC);
+            // sorted on the first (or last) start of every media object, so all events of the following ones start later (or earlier)
+            requestBuilder.sort(SortBuilders.fieldSort("scheduleEvents.start")
+                .order(sortOrder)
+                .sortMode(sortOrder == SortOrder.ASC ? SortMode.MIN : SortMode.MAX));
+            requestBuilder.fetchSource(fetchSource());
 
-            long skipped = 0;
-            long count = 0;
-            searchIterator.getTotalSize();
             total = searchIterator.getTotalSize();
 
-            OUTER:
             while (searchIterator.hasNext()) {
-                MediaObject mo = searchIterator.next();
+                MediaHit hit = searchIterator.next();
+                if (hit == null) {
+                    continue;
+                }
                 int eventCountForMediaObject = 0;
                 mediaObjectCount++;
-                if (mo instanceof Program) {
-                    for (ScheduleEvent e : ((Program) mo).getScheduleEvents()) {
+                if (hit.media() instanceof Program program) {
+                    for (ScheduleEvent e : program.getScheduleEvents()) {
                         if (form.test(e)) {
-                            if (skipped < offset) {
-                                skipped++;
-                            } else {
-                                ApiScheduleEvent ae = new ApiScheduleEvent(e);
-                                ae.setParent(e.getParent());
-                                results.add(ae);
-                                eventCountForMediaObject++;
-                                count++;
-                            }
-                            if (max != null && count > max + 2000) {
-                                break OUTER;
-                            }
+                            ApiScheduleEvent ae = new ApiScheduleEvent(e);
+                            ae.setParent(e.getParent());
+                            top.add(ae);
+                            eventCountForMediaObject++;
                         } else {
                             log.debug("{} not in {}", e, form);
                         }
@@ -308,31 +990,41 @@ public class ESScheduleRepository extends AbstractESMediaRepository implements S
                     // _but not together_
                     // 1 schedule event has the correct channel, the other one the correct scheduleEvent.start
                     // it doesn't really matter for now, we simply didn't add it to the result
-                    log.debug("Mediaobject {} not added, since it did unexpectedly not apply to {}", mo, form);
+                    log.debug("Mediaobject {} not added, since it did unexpectedly not apply to {}", hit.media(), form);
+                }
+                if (top.isComplete(hit.sort())) {
+                    log.debug("No better events can follow {}, stopping after {} media objects", hit.sort(), mediaObjectCount);
+                    break;
                 }
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
-        log.debug("Found {} different media objects" , mediaObjectCount);
+        log.debug("Found {} different media objects, {}" , mediaObjectCount, top);
 
-        switch (form.getPager().getOrder()) {
-            case ASC -> Collections.sort(results);
-            case DESC -> results.sort(Comparator.reverseOrder());
-        }
-        List<ApiScheduleEvent> truncated;
-        if (max != null && results.size() > max) {
-            truncated = results.subList(0, max);
-        } else {
-            truncated = results;
-        }
-        return new ScheduleResult(new Result<>(truncated,
+        final List<ApiScheduleEvent> result = top.result();
+        return new ScheduleResult(new Result<>(result,
             offset,
             max,
-            total.map(t -> Result.Total.atLeast(Math.max(t, truncated.size()))).orElse(Result.Total.MISSING))
+            total.map(t -> Result.Total.atLeast(Math.max(t, top.getCount()))).orElse(Result.Total.MISSING))
         );
     }
 
+    /**
+     * A media object, with the value of {@code scheduleEvents.start} it was sorted on (if available)
+     */
+    private record MediaHit(MediaObject media, @Nullable Instant sort) {
+    }
+
+    private MediaHit getMediaHit(JsonNode hit) {
+        final MediaObject media = getMediaObject(hit);
+        if (media == null) {
+            return null;
+        }
+        final JsonNode sort = hit.path("sort").path(0);
+        return new MediaHit(media, sort.isNumber() ? Instant.ofEpochMilli(sort.asLong()) : null);
+    }
+
     protected MediaObject getMediaObject(JsonNode hit) {
         try {
             return getObject(hit.get(Constants.Fields.SOURCE), MediaObject.class);
@@ -0,0 +1,119 @@
+package nl.vpro.domain.api.schedule;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import nl.vpro.domain.api.Order;
+import nl.vpro.domain.api.Result;
+import nl.vpro.domain.api.media.ApiScheduleEvent;
+import nl.vpro.domain.api.media.ScheduleResult;
+import nl.vpro.domain.media.Channel;
+
+/**
+ * The complete schedules (all events, sorted ascending) of a number of channels and guide days, so that listing such a schedule can be answered from memory. The schedules are filled and replaced as a whole by {@link ESScheduleRepository}.
+ * <p>
+ * To know which schedules must be reloaded when a media object changes, it is also administrated in which schedules every mid occurs.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+final class GuideDayCache {
+
+    record Key(@NonNull Channel channel, @NonNull LocalDate guideDay) {
+    }
+
+    private final Map<Key, List<ApiScheduleEvent>> schedules = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Key>> keysByMid = new HashMap<>();
+
+    Optional<List<ApiScheduleEvent>> get(@NonNull Key key) {
+        return Optional.ofNullable(schedules.get(key));
+    }
+
+    boolean contains(@NonNull Key key) {
+        return schedules.containsKey(key);
+    }
+
+    /**
+     * @param events All events of the schedule, which will be sorted ascending
+     */
+    synchronized void put(@NonNull Key key, @NonNull Collection<ApiScheduleEvent> events) {
+        final List<ApiScheduleEvent> sorted = new ArrayList<>(events);
+        Collections.sort(sorted);
+        unindex(key);
+        schedules.put(key, Collections.unmodifiableList(sorted));
+        for (ApiScheduleEvent event : sorted) {
+            final String mid = event.getMidRef();
+            if (mid != null) {
+                keysByMid.computeIfAbsent(mid, m -> new HashSet<>()).add(key);
+            }
+        }
+    }
+
+    synchronized void remove(@NonNull Key key) {
+        unindex(key);
+        schedules.remove(key);
+    }
+
+    private void unindex(Key key) {
+        final List<ApiScheduleEvent> previous = schedules.get(key);
+        if (previous != null) {
+            for (ApiScheduleEvent event : previous) {
+                final Set<Key> keys = keysByMid.get(event.getMidRef());
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        keysByMid.remove(event.getMidRef());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The keys of the schedules in which at least one of the given mids occurs
+     */
+    synchronized Set<Key> keysFor(@NonNull Collection<String> mids) {
+        final Set<Key> result = new HashSet<>();
+        for (String mid : mids) {
+            result.addAll(keysByMid.getOrDefault(mid, Set.of()));
+        }
+        return result;
+    }
+
+    Set<Key> keys() {
+        return new HashSet<>(schedules.keySet());
+    }
+
+    int size() {
+        return schedules.size();
+    }
+
+    /**
+     * Pages a schedule like {@link ESScheduleRepository} would.
+     */
+    static ScheduleResult result(
+        @NonNull List<ApiScheduleEvent> schedule,
+        @Nullable Order order,
+        long offset,
+        @Nullable Integer max) {
+        final List<ApiScheduleEvent> ordered = order == Order.DESC ? schedule.reversed() : schedule;
+        final int from = (int) Math.min(offset, ordered.size());
+        final int to = max == null ? ordered.size() : (int) Math.min(ordered.size(), (long) from + max);
+        return new ScheduleResult(new Result<>(
+            new ArrayList<>(ordered.subList(from, to)),
+            offset,
+            max,
+            Result.Total.equalsTo(ordered.size()))
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "GuideDayCache{size=" + size() + "}";
+    }
+}
@@ -0,0 +1,245 @@
+package nl.vpro.domain.api.schedule;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Predicate;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import nl.vpro.domain.api.Order;
+import nl.vpro.domain.api.media.ApiScheduleEvent;
+import nl.vpro.domain.media.*;
+import nl.vpro.domain.user.Broadcaster;
+
+/**
+ * An immutable index of all schedule events starting in a certain window (around now), per channel, per broadcaster and per ancestor, sorted by start. It can find the first event before or after a certain instant (what is on now, and what is next) with a binary search.
+ * <p>
+ * Since only the events in the window are known, it is not always possible to answer such a question (e.g. if the previous event of an ancestor was long ago). Then {@code null} is returned, and the question has to be answered by elasticsearch.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+final class NowNextIndex {
+
+    static final NowNextIndex EMPTY = new NowNextIndex(Instant.EPOCH, Instant.EPOCH, Map.of(), 0);
+
+    /**
+     * Like elasticsearch sorts them (on start, and then channel)
+     */
+    private static final Comparator<ApiScheduleEvent> BY_START = Comparator.comparing(ApiScheduleEvent::getStartInstant)
+        .thenComparing(e -> e.getChannel() == null ? "" : e.getChannel().name());
+
+    private final Instant from;
+    private final Instant to;
+    private final Map<String, ApiScheduleEvent[]> events;
+    private final int size;
+
+    private NowNextIndex(Instant from, Instant to, Map<String, ApiScheduleEvent[]> events, int size) {
+        this.from = from;
+        this.to = to;
+        this.events = events;
+        this.size = size;
+    }
+
+    /**
+     * @param from The start of the window (inclusive)
+     * @param to The end of the window (inclusive)
+     * @param events All events with a start in the window. Others are ignored.
+     */
+    static NowNextIndex of(@NonNull Instant from, @NonNull Instant to, @NonNull Collection<ApiScheduleEvent> events) {
+        final Map<String, List<ApiScheduleEvent>> byKey = new HashMap<>();
+        int size = 0;
+        for (ApiScheduleEvent event : events) {
+            final Instant start = event.getStartInstant();
+            if (start == null || start.isBefore(from) || start.isAfter(to)) {
+                continue;
+            }
+            size++;
+            for (String key : keys(event)) {
+                byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+            }
+        }
+        final Map<String, ApiScheduleEvent[]> sorted = new HashMap<>(byKey.size() * 4 / 3 + 1);
+        byKey.forEach((key, list) -> {
+            final ApiScheduleEvent[] array = list.toArray(new ApiScheduleEvent[0]);
+            Arrays.sort(array, BY_START);
+            sorted.put(key, array);
+        });
+        return new NowNextIndex(from, to, sorted, size);
+    }
+
+    static String channelKey(@NonNull Channel channel) {
+        return "channel:" + channel.name();
+    }
+
+    static String broadcasterKey(@NonNull String broadcaster) {
+        return "broadcaster:" + broadcaster;
+    }
+
+    static String ancestorKey(@NonNull String mid) {
+        return "ancestor:" + mid;
+    }
+
+    private static Set<String> keys(ApiScheduleEvent event) {
+        final Set<String> result = new HashSet<>();
+        if (event.getChannel() != null) {
+            result.add(channelKey(event.getChannel()));
+        }
+        final Program program = event.getParent();
+        if (program != null) {
+            for (Broadcaster broadcaster : program.getBroadcasters()) {
+                result.add(broadcasterKey(broadcaster.getId()));
+            }
+            for (DescendantRef descendantOf : program.getDescendantOf()) {
+                if (descendantOf.getMidRef() != null) {
+                    result.add(ancestorKey(descendantOf.getMidRef()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The first events of the given key in the range between {@code start} and {@code stop}, in the given order.
+     *
+     * @param max The maximal number of events to return
+     * @param test Tests the candidates precisely (e.g. whether the bounds of the range are inclusive)
+     * @return At most {@code max} events, or {@code null} if they cannot be determined from the window of this index
+     */
+    @Nullable
+    List<ApiScheduleEvent> first(
+        @NonNull String key,
+        @Nullable Instant start,
+        @Nullable Instant stop,
+        @Nullable Order order,
+        int max,
+        @NonNull Predicate<ApiScheduleEvent> test) {
+        final ApiScheduleEvent[] array = events.getOrDefault(key, new ApiScheduleEvent[0]);
+        final List<ApiScheduleEvent> result = new ArrayList<>();
+        if (order == Order.DESC) {
+            if (stop == null || stop.isAfter(to)) {
+                return null;
+            }
+            int end = upperBound(array, stop);
+            while (end > 0) {
+                // events with the same start are still sorted ascending (on channel)
+                final Instant runStart = array[end - 1].getStartInstant();
+                if (start != null && runStart.isBefore(start)) {
+                    return result;
+                }
+                final int begin = lowerBound(array, runStart);
+                for (int i = begin; i < end; i++) {
+                    if (test.test(array[i])) {
+                        result.add(array[i]);
+                        if (result.size() >= max) {
+                            return result;
+                        }
+                    }
+                }
+                end = begin;
+            }
+            return start != null && ! start.isBefore(from) ? result : null;
+        } else {
+            if (start == null || start.isBefore(from)) {
+                return null;
+            }
+            for (int i = lowerBound(array, start); i < array.length; i++) {
+                final ApiScheduleEvent event = array[i];
+                if (stop != null && event.getStartInstant().isAfter(stop)) {
+                    return result;
+                }
+                if (test.test(event)) {
+                    result.add(event);
+                    if (result.size() >= max) {
+                        return result;
+                    }
+                }
+            }
+            return stop != null && ! stop.isAfter(to) ? result : null;
+        }
+    }
+
+    /**
+     * The number of events of the given key in the range between {@code start} and {@code stop}.
+     *
+     * @param test Tests the candidates precisely (e.g. whether the bounds of the range are inclusive)
+     * @return The number of events, or {@code null} if the range is not completely in the window of this index
+     */
+    @Nullable
+    Integer count(
+        @NonNull String key,
+        @NonNull Instant start,
+        @NonNull Instant stop,
+        @NonNull Predicate<ApiScheduleEvent> test) {
+        if (! contains(start, stop)) {
+            return null;
+        }
+        final ApiScheduleEvent[] array = events.getOrDefault(key, new ApiScheduleEvent[0]);
+        int result = 0;
+        for (int i = lowerBound(array, start); i < upperBound(array, stop); i++) {
+            if (test.test(array[i])) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether all events between {@code start} and {@code stop} are known to this index
+     */
+    boolean contains(@NonNull Instant start, @NonNull Instant stop) {
+        return ! start.isBefore(from) && ! stop.isAfter(to);
+    }
+
+    /**
+     * @return The index of the first event starting at or after the given instant
+     */
+    private static int lowerBound(ApiScheduleEvent[] array, Instant instant) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (array[mid].getStartInstant().isBefore(instant)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The index of the first event starting after the given instant
+     */
+    private static int upperBound(ApiScheduleEvent[] array, Instant instant) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (array[mid].getStartInstant().isAfter(instant)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    Instant getFrom() {
+        return from;
+    }
+
+    Instant getTo() {
+        return to;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "NowNextIndex{" + from + " - " + to + ", size=" + size + "}";
+    }
+}
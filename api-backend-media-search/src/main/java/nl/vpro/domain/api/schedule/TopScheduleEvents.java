@@ -0,0 +1,89 @@
+package nl.vpro.domain.api.schedule;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import nl.vpro.domain.api.media.ApiScheduleEvent;
+
+/**
+ * Collects the first {@code offset + max} schedule events (in their natural order, or reversed) of a stream of events in arbitrary order, in a bounded priority queue. So memory and time don't depend on the total number of events, but on {@code offset + max}.
+ * <p>
+ * If the events are offered in (roughly) the same order, e.g. because they come from a search sorted on their start, {@link #isComplete(Instant)} can tell that it is not needed to offer more.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+final class TopScheduleEvents {
+
+    private final Comparator<ApiScheduleEvent> order;
+    private final boolean descending;
+    private final long offset;
+    private final @Nullable Integer max;
+    private final long limit;
+
+    /**
+     * The best events, the worst of them on top
+     */
+    private final PriorityQueue<ApiScheduleEvent> queue;
+
+    private long count = 0;
+
+    TopScheduleEvents(boolean descending, long offset, @Nullable Integer max) {
+        this.descending = descending;
+        this.order = descending ? Comparator.<ApiScheduleEvent>reverseOrder() : Comparator.<ApiScheduleEvent>naturalOrder();
+        this.offset = offset;
+        this.max = max;
+        this.limit = max == null ? Long.MAX_VALUE : offset + max;
+        this.queue = new PriorityQueue<>(limit < 1024 ? (int) limit + 1 : 1024, order.reversed());
+    }
+
+    void add(@NonNull ApiScheduleEvent event) {
+        count++;
+        if (queue.size() < limit) {
+            queue.add(event);
+        } else if (limit > 0 && order.compare(event, queue.peek()) < 0) {
+            queue.poll();
+            queue.add(event);
+        }
+    }
+
+    /**
+     * @param bound No events will be offered anymore that start before this (or after it, if descending)
+     * @return Whether none of those events could be part of the result any more
+     */
+    boolean isComplete(@Nullable Instant bound) {
+        if (bound == null || queue.size() < limit) {
+            return false;
+        }
+        if (limit == 0) {
+            return true;
+        }
+        final Instant worst = queue.peek().getStartInstant();
+        return worst != null && (descending ? bound.isBefore(worst) : bound.isAfter(worst));
+    }
+
+    /**
+     * @return The number of events that were offered
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The events from {@code offset}, at most {@code max}, sorted
+     */
+    List<ApiScheduleEvent> result() {
+        final List<ApiScheduleEvent> sorted = new ArrayList<>(queue);
+        sorted.sort(order);
+        final int from = (int) Math.min(offset, sorted.size());
+        return new ArrayList<>(sorted.subList(from, sorted.size()));
+    }
+
+    @Override
+    public String toString() {
+        return "TopScheduleEvents{" + (descending ? "desc" : "asc") + ", offset=" + offset + ", max=" + max + ", count=" + count + "}";
+    }
+}
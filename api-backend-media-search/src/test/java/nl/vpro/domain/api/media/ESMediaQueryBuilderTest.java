@@ -4,10 +4,15 @@
  */
 package nl.vpro.domain.api.media;
 
+import java.util.Map;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.junit.jupiter.api.Test;
 
 import nl.vpro.domain.api.Match;
+import nl.vpro.domain.media.Channel;
 
 import static nl.vpro.test.util.jackson2.Jackson2TestUtil.assertThatJson;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -351,6 +356,47 @@ public class ESMediaQueryBuilderTest {
             }""");
     }
 
+    @Test
+    public void resolvedScheduleEvents() {
+        ScheduleEventSearch resolvedSearch = ScheduleEventSearch.builder()
+            .original()
+            .channel(Channel.NED1)
+            .match(Match.NOT)
+            .build();
+        ScheduleEventSearch search = ScheduleEventSearch.builder()
+            .channel(Channel.NED2)
+            .build();
+        MediaForm form = MediaForm.builder()
+            .scheduleEvents(resolvedSearch, search)
+            .build();
+
+        QueryBuilder builder = ESMediaQueryBuilder.query("", form.getSearches(),
+            Map.of(resolvedSearch, QueryBuilders.termsQuery("mid", "MID_1", "MID_2"))
+        );
+
+        assertThat(builder).isInstanceOf(BoolQueryBuilder.class);
+        BoolQueryBuilder bool = (BoolQueryBuilder) builder;
+        assertThat(bool.mustNot()).containsExactly(QueryBuilders.termsQuery("mid", "MID_1", "MID_2"));
+        assertThat(bool.must()).hasSize(1);
+        assertThat(bool.must().get(0).toString()).contains("scheduleEvents.channel", "NED2");
+        assertThat(builder.toString()).doesNotContain("NED1");
+    }
+
+    @Test
+    public void scheduleEventQuery() {
+        ScheduleEventSearch search = ScheduleEventSearch.builder()
+            .original()
+            .channel(Channel.NED1)
+            .build();
+
+        BoolQueryBuilder query = ESMediaQueryBuilder.scheduleEventQuery("", search);
+
+        assertThat(query.must()).containsExactly(
+            QueryBuilders.termQuery("channel", "NED1"),
+            QueryBuilders.termQuery("rerun", false)
+        );
+    }
+
     @Test
     public void withEverything() {
         MediaForm form = MediaForm.builder().withEverything().build();
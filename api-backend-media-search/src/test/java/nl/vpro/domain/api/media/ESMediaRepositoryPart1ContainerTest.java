@@ -81,7 +81,7 @@ public class ESMediaRepositoryPart1ContainerTest extends AbstractMediaESReposito
     @BeforeEach
     public  void setup() {
         target.setIndexName(indexHelpers.get(ApiMediaIndex.APIMEDIA).getIndexName());
-        target.redirects = new RedirectList();
+        target.setRedirects(RedirectIndex.EMPTY);
         clearIndices();
     }
 
@@ -2223,7 +2223,7 @@ public class ESMediaRepositoryPart1ContainerTest extends AbstractMediaESReposito
 
     @SuppressWarnings("SameParameterValue")
     private void redirect(String from, String to) {
-        target.redirects.put(from, to);
+        target.mergeRedirects(Map.of(from, to));
     }
 
     private <B extends MediaBuilder<B, T>, T extends MediaObject> T index(B builder)  {
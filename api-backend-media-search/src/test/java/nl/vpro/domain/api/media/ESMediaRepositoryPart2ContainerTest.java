@@ -52,6 +52,7 @@ import static nl.vpro.elasticsearch.ElasticSearchIteratorInterface.getScrollIds;
 import static nl.vpro.jassert.assertions.MediaAssertions.assertThat;
 import static nl.vpro.media.domain.es.ApiMediaIndex.APIMEDIA;
 import static nl.vpro.media.domain.es.ApiRefsIndex.APIMEDIA_REFS;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.fail;
 import static org.assertj.core.data.Index.atIndex;
 import static org.mockito.Mockito.mock;
@@ -339,6 +340,21 @@ public class ESMediaRepositoryPart2ContainerTest extends AbstractMediaESReposito
     }
 
 
+    @Test
+    public void testMediaChangesResume() throws Exception {
+        final List<MediaChange> all = new ArrayList<>();
+        try (CloseableIterator<MediaChange> changes = target.changes(LONGAGO.minus(1, ChronoUnit.SECONDS), null, null, Order.ASC, null, null, null, null)) {
+            changes.forEachRemaining(all::add);
+        }
+        final MediaChange tail = all.get(all.size() / 2);
+        final List<MediaChange> resumed = new ArrayList<>();
+        try (CloseableIterator<MediaChange> changes = target.changes(tail.getPublishDate(), tail.getMid(), null, Order.ASC, null, null, null, null)) {
+            changes.forEachRemaining(resumed::add);
+        }
+        assertThat(resumed.stream().map(MediaChange::getMid).toList())
+            .containsExactlyElementsOf(all.subList(all.size() / 2 + 1, all.size()).stream().map(MediaChange::getMid).toList());
+    }
+
     @Test
     public void testMediaChangesExcludeDeletes() throws Exception {
         try (CloseableIterator<MediaChange> changes = target.changes(LONGAGO.minus(1, ChronoUnit.SECONDS), null, null, Order.ASC, Integer.MAX_VALUE, Deletes.EXCLUDE, null, null)) {
@@ -350,6 +366,37 @@ public class ESMediaRepositoryPart2ContainerTest extends AbstractMediaESReposito
         }
     }
 
+    @Test
+    public void testMediaChangesDeletesIdOnly() throws Exception {
+        final List<MediaChange> included = new ArrayList<>();
+        try (CloseableIterator<MediaChange> changes = target.changes(LONGAGO.minus(1, ChronoUnit.SECONDS), null, null, Order.ASC, null, Deletes.INCLUDE, null, null)) {
+            changes.forEachRemaining(included::add);
+        }
+        final List<MediaChange> idOnly = new ArrayList<>();
+        try (CloseableIterator<MediaChange> changes = target.changes(LONGAGO.minus(1, ChronoUnit.SECONDS), null, null, Order.ASC, null, Deletes.ID_ONLY, null, null)) {
+            changes.forEachRemaining(idOnly::add);
+        }
+        assertThat(idOnly).hasSize(included.size());
+        assertThat(idOnly.stream().filter(MediaChange::isDeleted).toList()).hasSize(deletedObjectCount);
+        for (int i = 0; i < idOnly.size(); i++) {
+            final MediaChange change = idOnly.get(i);
+            final MediaChange full = included.get(i);
+            assertThat(change.getMid()).isEqualTo(full.getMid());
+            assertThat(change.getPublishDate()).isEqualTo(full.getPublishDate());
+            assertThat(change.getRevision()).isEqualTo(full.getRevision());
+            assertThat(change.isDeleted()).isEqualTo(full.isDeleted());
+            if (change.isDeleted()) {
+                // only the id
+                assertThat(change.getMedia()).isNull();
+                assertThat(full.getMedia()).isNotNull();
+            } else {
+                assertThat(change.getMedia()).isEqualTo(full.getMedia());
+                assertThat(change.getMedia().getMid()).isEqualTo(change.getMid());
+                assertThat(target.load(change.getMid())).isEqualTo(change.getMedia());
+            }
+        }
+    }
+
     @Test
     public void testMediaChangesSince() throws Exception {
         try (CloseableIterator<MediaChange> changes = target.changes(NOW.minus(1, ChronoUnit.SECONDS), null, null, Order.DESC, Integer.MAX_VALUE, null, null, null)) {
@@ -933,6 +980,84 @@ public class ESMediaRepositoryPart2ContainerTest extends AbstractMediaESReposito
         assertThat(result.getItems().size()).isEqualTo(0);
     }
 
+    @Test
+    public void findWithCursor() {
+        // many objects have the same sortDate, so pages end in the middle of ties
+        final MediaForm form = form().asc(MediaSortField.sortDate).build();
+        final List<String> expected = target.find(null, form, 0L, 1000).asList().stream().map(MediaObject::getMid).toList();
+
+        final List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            final CursoredResult<MediaSearchResult> page = target.findWithCursor(null, form, cursor, 3);
+            assertThat(page.getResult().getSize()).isLessThanOrEqualTo(3);
+            page.getResult().asList().forEach(mo -> paged.add(mo.getMid()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(paged).doesNotHaveDuplicates();
+        assertThat(new TreeSet<>(paged)).isEqualTo(new TreeSet<>(expected));
+        assertThat(paged).hasSize(indexedObjectCount);
+    }
+
+    @Test
+    public void listWithCursor() {
+        final List<String> expected = target.list(Order.ASC, 0L, 1000).stream().map(MediaObject::getMid).toList();
+
+        final List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            final CursoredResult<MediaResult> page = target.listWithCursor(Order.ASC, cursor, 4);
+            page.getResult().getItems().forEach(mo -> paged.add(mo.getMid()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(paged).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void withForeignCursor() {
+        final String listCursor = target.listWithCursor(Order.ASC, null, 2).getNextCursor();
+        assertThat(listCursor).isNotNull();
+        try {
+            assertThatThrownBy(() -> target.findWithCursor(null, null, listCursor, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> target.listWithCursor(Order.DESC, listCursor, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> target.listWithCursor(Order.ASC, listCursor.substring(1), 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            // continue to the end, to close the point in time
+            String cursor = listCursor;
+            while (cursor != null) {
+                cursor = target.listWithCursor(Order.ASC, cursor, 100).getNextCursor();
+            }
+        }
+    }
+
+    @Test
+    public void listMembersWithProfileAboveMaxTermsCount() {
+        final Group loadedGroup = (Group) target.load(group.getMid());
+        final ProfileDefinition<MediaObject> omroepProfile = new ProfileDefinition<>(
+            new Filter(new BroadcasterConstraint("OMROEP1"))
+        );
+        final MediaResult viaTerms = target.listMembers(loadedGroup, omroepProfile, Order.ASC, 0L, 100);
+        final int maxTermsCount = target.getMaxTermsCount();
+        try {
+            target.setMaxTermsCount(0);
+            final MediaResult inMemory = target.listMembers(loadedGroup, omroepProfile, Order.ASC, 0L, 100);
+            assertThat(inMemory.getTotal()).isEqualTo(viaTerms.getTotal());
+            assertThat(inMemory.getItems()).isEqualTo(viaTerms.getItems());
+
+            final MediaResult paged = target.listMembers(loadedGroup, omroepProfile, Order.ASC, 1L, 1);
+            assertThat(paged.getTotal()).isEqualTo(viaTerms.getTotal());
+            assertThat(paged.getItems()).isEqualTo(viaTerms.getItems().subList(
+                Math.min(1, viaTerms.getSize()), Math.min(2, viaTerms.getSize())));
+        } finally {
+            target.setMaxTermsCount(maxTermsCount);
+        }
+    }
+
 
 
     private  <T extends MediaObject> T  index(MediaBuilder<?, T> builder) throws IOException {
@@ -0,0 +1,173 @@
+package nl.vpro.domain.api.media;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.domain.api.SearchResultItem;
+import nl.vpro.domain.media.*;
+import nl.vpro.domain.media.support.Workflow;
+
+import static nl.vpro.domain.media.MediaBuilder.broadcast;
+import static nl.vpro.domain.media.Schedule.ZONE_ID;
+import static nl.vpro.media.domain.es.ApiMediaIndex.APIMEDIA;
+import static nl.vpro.media.domain.es.ApiScheduleEventsIndex.APISCHEDULEEVENTS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests {@link ESMediaRepository#resolveScheduleEventSearches(MediaForm)} against the actual mapping of the schedule events index.
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@Log4j2
+public class ESMediaRepositoryScheduleEventsContainerTest extends AbstractMediaESRepositoryContainerTest {
+
+    private ESMediaRepository target;
+
+    @Override
+    protected void firstRun() {
+        createIndexIfNecessary(APIMEDIA);
+        createIndexIfNecessary(APISCHEDULEEVENTS);
+    }
+
+    @BeforeEach
+    public void setup() {
+        target = new ESMediaRepository(clientFactory, "", new MediaScoreManagerImpl());
+        target.setIndexName(indexHelpers.get(APIMEDIA).getIndexName());
+        target.setScheduleEventsIndexName(indexHelpers.get(APISCHEDULEEVENTS).getIndexName());
+        target.setRedirects(RedirectIndex.EMPTY);
+        target.setScore(false);
+        clearIndices();
+
+        index(
+            // original on ned1
+            broadcast().mid("mid_1")
+                .scheduleEvents(event(Channel.NED1, 12, false)),
+            // rerun on ned1
+            broadcast().mid("mid_2")
+                .scheduleEvents(event(Channel.NED1, 13, true)),
+            // original on ned2
+            broadcast().mid("mid_3")
+                .scheduleEvents(event(Channel.NED2, 14, false)),
+            // rerun on ned1, but original on ned2. On the media index this would match 'original on ned1'
+            broadcast().mid("mid_4")
+                .scheduleEvents(
+                    event(Channel.NED1, 15, true),
+                    event(Channel.NED2, 15, false)
+                )
+        );
+    }
+
+    @Test
+    public void resolve() throws IOException {
+        final ScheduleEventSearch originalOnNed1 = ScheduleEventSearch.builder()
+            .original()
+            .channel(Channel.NED1)
+            .build();
+        final ScheduleEventSearch rerunOnNed1 = ScheduleEventSearch.builder()
+            .rerun(true)
+            .channel(Channel.NED1)
+            .build();
+        final MediaForm form = MediaForm.builder()
+            .scheduleEvents(originalOnNed1, rerunOnNed1)
+            .build();
+
+        final Optional<Map<ScheduleEventSearch, QueryBuilder>> resolved = target.resolveScheduleEventSearches(form);
+        assertThat(resolved).isPresent();
+        assertThat(resolved.get()).hasSize(2);
+        assertThat(((TermsQueryBuilder) resolved.get().get(originalOnNed1)).values()).containsExactly("mid_1");
+        assertThat(((TermsQueryBuilder) resolved.get().get(rerunOnNed1)).values()).containsExactlyInAnyOrder("mid_2", "mid_4");
+
+        final MediaSearchResult result = target.find(null, MediaForm.builder().scheduleEvents(originalOnNed1).build(), 0, 10);
+        assertThat(result.getItems().stream().map(SearchResultItem::getResult).map(MediaObject::getMid)).containsExactly("mid_1");
+        assertThat(result.getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    public void resolveWithRange() throws IOException {
+        final ScheduleEventSearch originalFrom14 = ScheduleEventSearch.builder()
+            .original()
+            .begin(instant(14))
+            .build();
+        final MediaForm form = MediaForm.builder()
+            .scheduleEvents(originalFrom14)
+            .build();
+
+        final Optional<Map<ScheduleEventSearch, QueryBuilder>> resolved = target.resolveScheduleEventSearches(form);
+        assertThat(resolved).isPresent();
+        assertThat(((TermsQueryBuilder) resolved.get().get(originalFrom14)).values()).containsExactlyInAnyOrder("mid_3", "mid_4");
+    }
+
+    @Test
+    public void resolveTooMany() throws IOException {
+        target.setMaxResolvedScheduleEventMids(1);
+        final ScheduleEventSearch rerunOnNed1 = ScheduleEventSearch.builder()
+            .rerun(true)
+            .channel(Channel.NED1)
+            .build();
+        final MediaForm form = MediaForm.builder()
+            .scheduleEvents(rerunOnNed1)
+            .build();
+
+        assertThat(target.resolveScheduleEventSearches(form)).isEmpty();
+
+        // falls back to post filtering
+        final MediaSearchResult result = target.find(null, form, 0, 10);
+        assertThat(result.getItems().stream().map(SearchResultItem::getResult).map(MediaObject::getMid)).containsExactlyInAnyOrder("mid_2", "mid_4");
+    }
+
+    @Test
+    public void resolveWithoutIndex() throws IOException {
+        target.setScheduleEventsIndexName("no_such_index");
+        final ScheduleEventSearch originalOnNed1 = ScheduleEventSearch.builder()
+            .original()
+            .channel(Channel.NED1)
+            .build();
+        final MediaForm form = MediaForm.builder()
+            .scheduleEvents(originalOnNed1)
+            .build();
+
+        assertThat(target.resolveScheduleEventSearches(form)).isEmpty();
+
+        // falls back to post filtering
+        final MediaSearchResult result = target.find(null, form, 0, 10);
+        assertThat(result.getItems().stream().map(SearchResultItem::getResult).map(MediaObject::getMid)).containsExactly("mid_1");
+    }
+
+    private static ScheduleEvent event(Channel channel, int hour, boolean rerun) {
+        return ScheduleEvent.builder()
+            .channel(channel)
+            .start(instant(hour))
+            .rerun(rerun)
+            .build();
+    }
+
+    private static Instant instant(int hour) {
+        return LocalDateTime.of(2019, 7, 30, hour, 0).atZone(ZONE_ID).toInstant();
+    }
+
+    @SafeVarargs
+    private <MO extends MediaObject, B extends MediaBuilder<B, MO>> void index(B... builders) {
+        for (B builder : builders) {
+            builder.workflow(Workflow.PUBLISHED);
+            final MO object = builder.build();
+            indexHelpers.get(APIMEDIA).index(object.getMid(), object);
+            for (ScheduleEvent event : object.getScheduleEvents()) {
+                indexHelpers.get(APISCHEDULEEVENTS).index(
+                    object.getMid() + "-" + event.getChannel() + "-" + event.getStartInstant().toEpochMilli(),
+                    new ApiScheduleEvent(event, (Program) object)
+                );
+            }
+        }
+        refresh();
+    }
+}
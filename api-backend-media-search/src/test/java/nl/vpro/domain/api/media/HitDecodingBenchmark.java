@@ -0,0 +1,66 @@
+package nl.vpro.domain.api.media;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import nl.vpro.domain.api.AbstractESRepository;
+import nl.vpro.domain.media.MediaObject;
+import nl.vpro.domain.media.MediaTestDataBuilder;
+import nl.vpro.jackson2.Jackson2Mapper;
+
+/**
+ * Compares the old way of decoding search hits (copy the bytes, parse to a tree, bind the tree) with {@link AbstractESRepository#readSource(BytesReference, Class)}, which binds directly from the source bytes.
+ * <p>
+ * Run with the main method, or e.g. {@code -prof gc} to also see the allocation per hit.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HitDecodingBenchmark {
+
+    private static final Jackson2Mapper LENIENT = Jackson2Mapper.getLenientInstance();
+
+    private BytesReference source;
+
+    @Setup
+    public void setup() throws IOException {
+        MediaObject program = MediaTestDataBuilder.program()
+            .withEverything()
+            .build();
+        source = new BytesArray(Jackson2Mapper.getInstance().writeValueAsBytes(program));
+    }
+
+    @Benchmark
+    public MediaObject treeThenBind() throws IOException {
+        BytesRef copy = source.toBytesRef();
+        return LENIENT
+            .readerFor(MediaObject.class)
+            .readValue(LENIENT.readTree(copy.bytes));
+    }
+
+    @Benchmark
+    public MediaObject singlePass() throws IOException {
+        return AbstractESRepository.readSource(source, MediaObject.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(HitDecodingBenchmark.class.getSimpleName())
+            .addProfiler("gc")
+            .build()).run();
+    }
+}
@@ -0,0 +1,91 @@
+package nl.vpro.domain.api.media;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import nl.vpro.domain.api.FacetOrder;
+import nl.vpro.elasticsearch.highlevel.HighLevelClientFactory;
+
+import static nl.vpro.domain.api.media.MediaFormBuilder.form;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares building a search request for a form without the {@link AbstractESMediaRepository#getQueryCacheSize() query cache} (compiling it every time), with building it from a hit in the cache. Both serialize the request afterward, like the client does, so the gain is relative to the complete building of the request.
+ * <p>
+ * Run with the main method, or e.g. {@code -prof gc} to also see the allocations.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryCacheBenchmark {
+
+    private ESMediaRepository uncached;
+    private ESMediaRepository cached;
+    private MediaForm form;
+
+    @Setup
+    public void setup() throws IOException {
+        uncached = repository(0);
+        cached = repository(1000);
+        form = form()
+            .text("tegenlicht")
+            .broadcasters("VPRO", "KRO")
+            .broadcasterFacet(new MediaFacet(null, FacetOrder.COUNT_DESC, null))
+            .genreFacet()
+            .asc(MediaSortField.sortDate)
+            .highlight(true)
+            .build();
+        // fill the cache
+        cached.mediaSearchRequest(null, form, null, QueryBuilders.boolQuery(), 0L, 10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        uncached.close();
+        cached.close();
+    }
+
+    @Benchmark
+    public BytesReference compile() throws IOException {
+        return build(uncached);
+    }
+
+    @Benchmark
+    public BytesReference cacheHit() throws IOException {
+        return build(cached);
+    }
+
+    private BytesReference build(ESMediaRepository repository) throws IOException {
+        final AbstractESMediaRepository.SearchRequestWrapper request = repository.mediaSearchRequest(null, form, null, QueryBuilders.boolQuery(), 0L, 10);
+        return XContentHelper.toXContent(request.getRequest().source(), XContentType.JSON, false);
+    }
+
+    private static ESMediaRepository repository(long queryCacheSize) {
+        final ESMediaRepository repository = new ESMediaRepository(mock(HighLevelClientFactory.class), "", new MediaScoreManagerImpl());
+        repository.setIndexName("apimedia");
+        repository.setQueryCacheSize(queryCacheSize);
+        return repository;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(QueryCacheBenchmark.class.getSimpleName())
+            .addProfiler("gc")
+            .build()).run();
+    }
+}
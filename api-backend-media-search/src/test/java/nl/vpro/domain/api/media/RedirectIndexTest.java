@@ -0,0 +1,64 @@
+package nl.vpro.domain.api.media;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedirectIndexTest {
+
+    @Test
+    public void lookup() {
+        RedirectIndex index = RedirectIndex.of(Map.of("MID_1", "MID_0", "MID_3", "MID_2"));
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get("MID_1")).isEqualTo("MID_0");
+        assertThat(index.get("MID_3")).isEqualTo("MID_2");
+        assertThat(index.get("MID_0")).isNull();
+        assertThat(index.get("MID_2")).isNull();
+        assertThat(index.asMap()).containsExactly(Map.entry("MID_1", "MID_0"), Map.entry("MID_3", "MID_2"));
+    }
+
+    @Test
+    public void chains() {
+        RedirectIndex index = RedirectIndex.of(Map.of("A", "B", "B", "C"));
+        assertThat(index.get("A")).isEqualTo("C");
+
+        RedirectIndex cycle = RedirectIndex.of(Map.of("A", "B", "B", "A"));
+        assertThat(cycle.get("A")).isIn("A", "B");
+    }
+
+    @Test
+    public void merge() {
+        final RedirectIndex index = RedirectIndex.of(Map.of("B", "X", "D", "X", "F", "X"));
+
+        final Map<String, String> changes = new HashMap<>();
+        changes.put("A", "Y"); // new, before all
+        changes.put("D", null); // removed
+        changes.put("F", "Z"); // changed
+        changes.put("G", "Y"); // new, after all
+        changes.put("H", null); // removed, but wasn't there
+        final RedirectIndex merged = index.merge(changes);
+
+        assertThat(merged).isNotSameAs(index);
+        assertThat(merged.asMap()).containsExactly(
+            Map.entry("A", "Y"),
+            Map.entry("B", "X"),
+            Map.entry("F", "Z"),
+            Map.entry("G", "Y")
+        );
+        // the original is untouched
+        assertThat(index.asMap()).containsOnlyKeys("B", "D", "F");
+    }
+
+    @Test
+    public void mergeWithoutChanges() {
+        final RedirectIndex index = RedirectIndex.of(Map.of("B", "X"));
+        final Map<String, String> changes = new HashMap<>();
+        changes.put("B", "X");
+        changes.put("C", null);
+        assertThat(index.merge(changes)).isSameAs(index);
+        assertThat(index.merge(Map.of())).isSameAs(index);
+    }
+}
@@ -0,0 +1,76 @@
+package nl.vpro.domain.api.schedule;
+
+import java.time.Duration;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CridIndexTest {
+
+    @Test
+    public void cachesAbsenceAndPresence() {
+        final CridIndex index = new CridIndex(10, Duration.ofMinutes(1));
+        index.put("crid://a", "MID_1");
+        index.put("crid://b", null);
+
+        assertThat(index.getIfPresent("crid://a")).contains("MID_1");
+        assertThat(index.getIfPresent("crid://b")).isEmpty();
+        assertThat(index.getIfPresent("crid://c")).isNull();
+
+        final List<String> unknown = new ArrayList<>();
+        final Map<String, Optional<String>> known = index.getAllPresent(List.of("crid://a", "crid://b", "crid://c"), unknown);
+        assertThat(known).containsOnlyKeys("crid://a", "crid://b");
+        assertThat(unknown).containsExactly("crid://c");
+    }
+
+    @Test
+    public void invalidate() {
+        final CridIndex index = new CridIndex(10, Duration.ofMinutes(1));
+        index.put("crid://a", "MID_1");
+        index.put("crid://a2", "MID_1");
+        index.put("crid://b", "MID_2");
+        index.put("crid://c", null);
+
+        // MID_1 was published, and now somebody has crid://c
+        index.invalidate(Set.of("crid://c"), Set.of("MID_1"));
+
+        assertThat(index.getIfPresent("crid://a")).isNull();
+        assertThat(index.getIfPresent("crid://a2")).isNull();
+        assertThat(index.getIfPresent("crid://c")).isNull();
+        assertThat(index.getIfPresent("crid://b")).contains("MID_2");
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.midCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidateAfterReplace() {
+        final CridIndex index = new CridIndex(10, Duration.ofMinutes(1));
+        index.put("crid://a", "MID_1");
+        index.put("crid://a", "MID_1");
+        index.put("crid://b", "MID_1");
+        index.put("crid://b", "MID_2");
+
+        index.invalidate(Set.of(), Set.of("MID_1"));
+        assertThat(index.getIfPresent("crid://a")).isNull();
+        assertThat(index.getIfPresent("crid://b")).contains("MID_2");
+
+        index.invalidate(Set.of(), Set.of("MID_2"));
+        assertThat(index.getIfPresent("crid://b")).isNull();
+        assertThat(index.midCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void evictionForgetsMids() {
+        final CridIndex index = new CridIndex(10, Duration.ofMinutes(1));
+        for (int i = 0; i < 1000; i++) {
+            index.put("crid://" + i, "MID_" + i);
+        }
+        assertThat(index.size()).isLessThanOrEqualTo(10);
+        assertThat(index.midCount()).isEqualTo(index.size());
+
+        index.invalidateAll();
+        assertThat(index.midCount()).isEqualTo(0);
+    }
+}
@@ -17,10 +17,12 @@ import nl.vpro.domain.api.media.*;
 import nl.vpro.domain.media.*;
 import nl.vpro.domain.media.support.Workflow;
 import nl.vpro.domain.user.Broadcaster;
+import nl.vpro.media.domain.es.Common;
 
 import static nl.vpro.domain.media.MediaBuilder.broadcast;
 import static nl.vpro.domain.media.MediaBuilder.movie;
 import static nl.vpro.media.domain.es.ApiMediaIndex.APIMEDIA;
+import static nl.vpro.media.domain.es.ApiScheduleEventsIndex.APISCHEDULEEVENTS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -32,6 +34,7 @@ public class ESScheduleRepositoryTest extends AbstractMediaESRepositoryContainer
     @Override
     protected void firstRun() {
         createIndexIfNecessary(APIMEDIA);
+        createIndexIfNecessary(APISCHEDULEEVENTS);
     }
 
     @BeforeEach
@@ -44,6 +47,7 @@ public class ESScheduleRepositoryTest extends AbstractMediaESRepositoryContainer
         assert indexName != null;
         media.setIndexName(indexName);
         repository.setIndexName(indexName);
+        repository.setScheduleEventsIndexName(indexHelpers.get(APISCHEDULEEVENTS).getIndexName());
         repository.setScore(false);
         clearIndices();
     }
@@ -116,6 +120,60 @@ public class ESScheduleRepositoryTest extends AbstractMediaESRepositoryContainer
         assertThat(result).hasSize(1);
     }
 
+    @Test
+    public void listSchedulesOnScheduleEventsIndex() {
+        indexScheduleEvents(index(
+            broadcast().mid("DONNA_1")
+                .scheduleEvents(
+                    event(Channel.BBC1, "2015-06-19T10:00:00"),
+                    event(Channel.BBC1, "2015-06-18T10:00:00")
+                ),
+            broadcast().mid("DONNA_2")
+                .scheduleEvents(
+                    event(Channel.BBC2, "2015-06-19T10:00:00")
+                )
+        ));
+        repository.setUseScheduleEventsIndex(true);
+
+        ScheduleResult result = repository.listSchedules(
+            Channel.BBC1,
+            date("2015-06-19T00:00:00"),
+            date("2015-06-20T00:00:00"), Order.ASC, 0L, 10);
+        assertThat(result).hasSize(1);
+        assertThat(result.getItems().get(0).getMidRef()).isEqualTo("DONNA_1");
+        // the schedule events index can give exact totals
+        assertThat(result.getTotal()).isEqualTo(1);
+        assertThat(result.getTotalQualifier()).isEqualTo(Result.TotalQualifier.EQUAL_TO);
+        assertThat(repository.isScheduleEventsIndexMissing()).isFalse();
+    }
+
+    @Test
+    public void listSchedulesScheduleEventsIndexMissing() {
+        index(broadcast().mid("DONNA_1")
+            .scheduleEvents(
+                event(Channel.BBC1, "2015-06-19T10:00:00"),
+                event(Channel.BBC1, "2015-06-18T10:00:00")
+            ));
+        repository.setScheduleEventsIndexName("test-does-not-exist-" + NOW);
+        repository.setUseScheduleEventsIndex(true);
+
+        ScheduleResult result = repository.listSchedules(
+            Channel.BBC1,
+            date("2015-06-19T00:00:00"),
+            date("2015-06-20T00:00:00"), Order.ASC, 0L, 10);
+        assertThat(result).hasSize(1);
+        assertThat(result.getItems().get(0).getMidRef()).isEqualTo("DONNA_1");
+        assertThat(repository.isScheduleEventsIndexMissing()).isTrue();
+
+        // not tried again until the recheck, but still falls back
+        result = repository.listSchedules((Instant) null, null, Order.ASC, 0L, 10);
+        assertThat(result).hasSize(2);
+        assertThat(repository.isScheduleEventsIndexMissing()).isTrue();
+
+        repository.setScheduleEventsIndexRecheck("PT0S");
+        assertThat(repository.isScheduleEventsIndexMissing()).isFalse();
+    }
+
     @Test
     public void nowForChannel() {
         Instant now = LocalDateTime.of(2020, 4, 15, 20, 40).atZone(Schedule.ZONE_ID).toInstant();
@@ -396,6 +454,208 @@ public class ESScheduleRepositoryTest extends AbstractMediaESRepositoryContainer
 
     }
 
+    @Test
+    void listSchedulesChannelGuideDayCached() {
+        final Clock clock = Common.CLOCK;
+        try {
+            Common.CLOCK = Clock.fixed(date("2021-10-23T12:00:00"), Schedule.ZONE_ID);
+            repository.setGuideDayCacheEnabled(true);
+            repository.setGuideDayCachePastDays(0);
+            repository.setGuideDayCacheFutureDays(0);
+            index(broadcast().mid("p2")
+                .scheduleEvents(
+                    event(Channel.NED3, "2021-10-23T12:00:00")
+                ));
+            final LocalDate testDate = LocalDate.of(2021, 10, 23);
+
+            // not cached yet, but the channel will be
+            assertThat(repository.listSchedules(Channel.NED3, testDate, Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef)).containsExactly("p2");
+            repository.refreshCaches();
+
+            index(broadcast().mid("p4")
+                .scheduleEvents(
+                    event(Channel.NED3, "2021-10-24T02:00:00")
+                ));
+            // served from the cache, which doesn't know p4 yet
+            assertThat(repository.listSchedules(Channel.NED3, testDate, Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef)).containsExactly("p2");
+            assertThat(repository.listSchedules(Channel.NED3,
+                ScheduleService.guideDayStart(testDate).toInstant(),
+                ScheduleService.guideDayStop(testDate).toInstant(), Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef)).containsExactly("p2");
+        } finally {
+            Common.CLOCK = clock;
+        }
+    }
+
+    @Test
+    void listSchedulesChannelGuideDayCachedLikeUncached() {
+        final Clock clock = Common.CLOCK;
+        try {
+            Common.CLOCK = Clock.fixed(date("2021-10-23T12:00:00"), Schedule.ZONE_ID);
+            index(
+                broadcast().mid("p2")
+                    .scheduleEvents(
+                        event(Channel.NED3, "2021-10-23T12:00:00")
+                    ),
+                broadcast().mid("p4")
+                    .scheduleEvents(
+                        event(Channel.NED3, "2021-10-24T02:00:00")
+                    ),
+                broadcast().mid("p5") // on the border of the next day
+                    .scheduleEvents(
+                        event(Channel.NED3, "2021-10-24T06:00:00")
+                    ),
+                broadcast().mid("p6") // on the border of the previous day
+                    .scheduleEvents(
+                        event(Channel.NED3, "2021-10-23T06:00:00")
+                    )
+            );
+            final LocalDate testDate = LocalDate.of(2021, 10, 23);
+            final Instant start = ScheduleService.guideDayStart(testDate).toInstant();
+            final Instant stop = ScheduleService.guideDayStop(testDate).toInstant();
+            final List<String> byGuideDay = repository.listSchedules(Channel.NED3, testDate, Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef).toList();
+            final List<String> byRange = repository.listSchedules(Channel.NED3, start, stop, Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef).toList();
+
+            repository.setGuideDayCacheEnabled(true);
+            repository.setGuideDayCachePastDays(0);
+            repository.setGuideDayCacheFutureDays(0);
+            repository.listSchedules(Channel.NED3, testDate, Order.ASC, 0, 10);
+            repository.refreshCaches();
+            index(broadcast().mid("p7")
+                .scheduleEvents(
+                    event(Channel.NED3, "2021-10-23T13:00:00")
+                ));
+
+            // served from the cache (which doesn't know p7), but the same as without it
+            assertThat(repository.listSchedules(Channel.NED3, testDate, Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef)).containsExactlyElementsOf(byGuideDay);
+            assertThat(repository.listSchedules(Channel.NED3, start, stop, Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef)).containsExactlyElementsOf(byRange);
+        } finally {
+            Common.CLOCK = clock;
+        }
+    }
+
+    @Test
+    void guideDayCacheLoadFails() {
+        final Clock clock = Common.CLOCK;
+        final String indexName = repository.getIndexName();
+        try {
+            Common.CLOCK = Clock.fixed(date("2021-10-23T12:00:00"), Schedule.ZONE_ID);
+            repository.setGuideDayCacheEnabled(true);
+            repository.setGuideDayCachePastDays(0);
+            repository.setGuideDayCacheFutureDays(0);
+            index(broadcast().mid("p2")
+                .scheduleEvents(
+                    event(Channel.NED3, "2021-10-23T12:00:00")
+                ));
+            final LocalDate testDate = LocalDate.of(2021, 10, 23);
+            assertThat(repository.listSchedules(Channel.NED3, testDate, Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef)).containsExactly("p2");
+
+            repository.setIndexName("does_not_exist");
+            repository.refreshCaches();
+            repository.setIndexName(indexName);
+
+            index(broadcast().mid("p4")
+                .scheduleEvents(
+                    event(Channel.NED3, "2021-10-24T02:00:00")
+                ));
+            // nothing (or something incomplete) was cached
+            assertThat(repository.listSchedules(Channel.NED3, testDate, Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef)).containsExactly("p2", "p4");
+
+            // and the next refresh tries again
+            repository.refreshCaches();
+            index(broadcast().mid("p7")
+                .scheduleEvents(
+                    event(Channel.NED3, "2021-10-23T13:00:00")
+                ));
+            assertThat(repository.listSchedules(Channel.NED3, testDate, Order.ASC, 0, 10).stream().map(ScheduleEvent::getMidRef)).containsExactly("p2", "p4");
+        } finally {
+            repository.setIndexName(indexName);
+            Common.CLOCK = clock;
+        }
+    }
+
+    @Test
+    void nowNextIndexOnlyForNowAndNext() {
+        final Clock clock = Common.CLOCK;
+        try {
+            Common.CLOCK = Clock.fixed(date("2021-10-23T12:00:00"), Schedule.ZONE_ID);
+            repository.setNowNextIndexEnabled(true);
+            index(broadcast().mid("p1")
+                .scheduleEvents(
+                    event(Channel.NED3, "2021-10-23T11:00:00")
+                ));
+            repository.refreshCaches();
+
+            index(broadcast().mid("p2")
+                .scheduleEvents(
+                    event(Channel.NED3, "2021-10-23T11:30:00")
+                ));
+            final Instant now = date("2021-10-23T12:00:00");
+
+            // 'now' is served from the index, which doesn't know p2 yet
+            final ScheduleResult current = repository.listSchedules(Channel.NED3, null, now, Order.DESC, 0L, 1);
+            assertThat(current.stream().map(ScheduleEvent::getMidRef)).containsExactly("p1");
+
+            // other lists are not, they need an exact total
+            final ScheduleResult list = repository.listSchedules(Channel.NED3, null, now, Order.DESC, 0L, 10);
+            assertThat(list.stream().map(ScheduleEvent::getMidRef)).containsExactly("p2", "p1");
+            assertThat(list.getTotal()).isEqualTo(2);
+        } finally {
+            Common.CLOCK = clock;
+        }
+    }
+
+    /**
+     * With the arguments ScheduleRestServiceImpl uses for now and next of channels and broadcasters
+     */
+    @Test
+    void nowNextIndexForRestServiceArguments() {
+        final Clock clock = Common.CLOCK;
+        try {
+            Common.CLOCK = Clock.fixed(date("2021-10-23T12:00:00"), Schedule.ZONE_ID);
+            repository.setNowNextIndexEnabled(true);
+            index(
+                broadcast().mid("p1")
+                    .broadcasters("VPRO")
+                    .scheduleEvents(
+                        event(Channel.NED3, "2021-10-23T11:00:00")
+                    ),
+                broadcast().mid("p3")
+                    .broadcasters("VPRO")
+                    .scheduleEvents(
+                        event(Channel.NED3, "2021-10-23T13:00:00")
+                    )
+            );
+            repository.refreshCaches();
+
+            // the index doesn't know these yet, so if it is used, it will answer p1 and p3
+            index(
+                broadcast().mid("p2")
+                    .broadcasters("VPRO")
+                    .scheduleEvents(
+                        event(Channel.NED3, "2021-10-23T11:30:00")
+                    ),
+                broadcast().mid("p4")
+                    .broadcasters("VPRO")
+                    .scheduleEvents(
+                        event(Channel.NED3, "2021-10-23T12:30:00")
+                    )
+            );
+            final Instant now = date("2021-10-23T12:01:00");
+            assertThat(repository.listSchedules(Channel.NED3, now.minus(Duration.ofDays(1)), now, Order.DESC, 0L, 1).stream().map(ScheduleEvent::getMidRef)).containsExactly("p1");
+            assertThat(repository.listSchedules(Channel.NED3, now, now.plus(Duration.ofDays(7)), Order.ASC, 0L, 1).stream().map(ScheduleEvent::getMidRef)).containsExactly("p3");
+
+            final ScheduleResult broadcasterNow = repository.listSchedulesForBroadcaster("VPRO", now.minus(Duration.ofDays(1)), now, Order.DESC, 0L, 100);
+            assertThat(broadcasterNow.stream().map(ScheduleEvent::getMidRef)).containsExactly("p1");
+            assertThat(broadcasterNow.getTotal()).isEqualTo(1);
+            assertThat(repository.listSchedulesForBroadcaster("VPRO", now, now.plus(Duration.ofDays(7)), Order.ASC, 0L, 1).stream().map(ScheduleEvent::getMidRef)).containsExactly("p3");
+
+            // not mustBeRunning: the start is before the window
+            assertThat(repository.listSchedules(Channel.NED3, now.minus(Duration.ofDays(7)), now, Order.DESC, 0L, 1).stream().map(ScheduleEvent::getMidRef)).containsExactly("p2");
+        } finally {
+            Common.CLOCK = clock;
+        }
+    }
+
     @Test
     void listSchedulesChannelGuideDay() {
         index(
@@ -491,4 +751,16 @@ public class ESScheduleRepositoryTest extends AbstractMediaESRepositoryContainer
 
     }
 
+    private void indexScheduleEvents(MediaObject... objects) {
+        for (MediaObject o : objects) {
+            for (ScheduleEvent event : o.getScheduleEvents()) {
+                indexHelpers.get(APISCHEDULEEVENTS).index(
+                    o.getMid() + "-" + event.getChannel() + "-" + event.getStartInstant().toEpochMilli(),
+                    new ApiScheduleEvent(event, (Program) o)
+                );
+            }
+        }
+        refresh();
+    }
+
 }
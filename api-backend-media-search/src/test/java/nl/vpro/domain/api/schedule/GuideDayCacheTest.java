@@ -0,0 +1,71 @@
+package nl.vpro.domain.api.schedule;
+
+import java.time.*;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.domain.api.Order;
+import nl.vpro.domain.api.media.ApiScheduleEvent;
+import nl.vpro.domain.api.media.ScheduleResult;
+import nl.vpro.domain.media.*;
+
+import static nl.vpro.domain.media.MediaBuilder.broadcast;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GuideDayCacheTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 17);
+
+    private static final GuideDayCache.Key BBC1 = new GuideDayCache.Key(Channel.BBC1, DAY);
+    private static final GuideDayCache.Key BBC2 = new GuideDayCache.Key(Channel.BBC2, DAY);
+
+    @Test
+    public void putAndPage() {
+        final GuideDayCache cache = new GuideDayCache();
+        cache.put(BBC1, List.of(event("MID_3", "12:00"), event("MID_1", "08:00"), event("MID_2", "10:00")));
+
+        final List<ApiScheduleEvent> schedule = cache.get(BBC1).orElseThrow();
+        assertThat(schedule).extracting(ApiScheduleEvent::getMidRef).containsExactly("MID_1", "MID_2", "MID_3");
+        assertThat(cache.get(BBC2)).isEmpty();
+
+        final ScheduleResult asc = GuideDayCache.result(schedule, Order.ASC, 1, 1);
+        assertThat(asc.getItems()).extracting(ApiScheduleEvent::getMidRef).containsExactly("MID_2");
+        assertThat(asc.getTotal()).isEqualTo(3);
+
+        final ScheduleResult desc = GuideDayCache.result(schedule, Order.DESC, 0, 2);
+        assertThat(desc.getItems()).extracting(ApiScheduleEvent::getMidRef).containsExactly("MID_3", "MID_2");
+
+        assertThat(GuideDayCache.result(schedule, Order.ASC, 5, 10).getItems()).isEmpty();
+        assertThat(GuideDayCache.result(schedule, Order.ASC, 0, null).getItems()).hasSize(3);
+    }
+
+    @Test
+    public void keysFor() {
+        final GuideDayCache cache = new GuideDayCache();
+        cache.put(BBC1, List.of(event("MID_1", "08:00"), event("MID_2", "10:00")));
+        cache.put(BBC2, List.of(event("MID_2", "09:00")));
+
+        assertThat(cache.keysFor(List.of("MID_2"))).containsExactlyInAnyOrder(BBC1, BBC2);
+        assertThat(cache.keysFor(List.of("MID_1", "MID_3"))).containsExactly(BBC1);
+
+        // MID_1 moved away from BBC1
+        cache.put(BBC1, List.of(event("MID_2", "10:00")));
+        assertThat(cache.keysFor(List.of("MID_1"))).isEmpty();
+
+        cache.remove(BBC2);
+        assertThat(cache.keysFor(List.of("MID_2"))).isEqualTo(Set.of(BBC1));
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    private static ApiScheduleEvent event(String mid, String time) {
+        final ScheduleEvent event = ScheduleEvent.builder()
+            .channel(Channel.BBC1)
+            .start(LocalDateTime.of(DAY, LocalTime.parse(time)).atZone(Schedule.ZONE_ID).toInstant())
+            .duration(Duration.ofHours(1))
+            .build();
+        final Program program = broadcast().mid(mid).scheduleEvents(event).build();
+        return new ApiScheduleEvent(program.getScheduleEvents().first(), program);
+    }
+}
@@ -0,0 +1,101 @@
+package nl.vpro.domain.api.schedule;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.domain.api.Order;
+import nl.vpro.domain.api.media.ApiScheduleEvent;
+import nl.vpro.domain.media.*;
+
+import static nl.vpro.domain.media.MediaBuilder.broadcast;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NowNextIndexTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T12:00:00Z");
+
+    private final NowNextIndex index = NowNextIndex.of(NOW.minus(Duration.ofDays(1)), NOW.plus(Duration.ofDays(1)), List.of(
+        event("MID_1", Channel.NED1, -120),
+        event("MID_2", Channel.NED1, -30),
+        event("MID_3", Channel.NED1, 30),
+        event("MID_4", Channel.NED2, -30),
+        event("MID_5", Channel.NED1, 60 * 48) // outside the window
+    ));
+
+    @Test
+    public void now() {
+        assertThat(mids(index.first(NowNextIndex.channelKey(Channel.NED1), null, NOW, Order.DESC, 1, e -> true))).containsExactly("MID_2");
+        assertThat(mids(index.first(NowNextIndex.channelKey(Channel.NED1), null, NOW, Order.DESC, 2, e -> true))).containsExactly("MID_2", "MID_1");
+        // same start, sorted on channel
+        assertThat(mids(index.first(NowNextIndex.broadcasterKey("VPRO"), null, NOW, Order.DESC, 1, e -> true))).containsExactly("MID_2");
+        assertThat(mids(index.first(NowNextIndex.ancestorKey("SERIES_1"), null, NOW, Order.DESC, 1, e -> e.getChannel() == Channel.NED2))).containsExactly("MID_4");
+    }
+
+    @Test
+    public void next() {
+        assertThat(mids(index.first(NowNextIndex.channelKey(Channel.NED1), NOW, null, Order.ASC, 1, e -> true))).containsExactly("MID_3");
+        assertThat(mids(index.first(NowNextIndex.channelKey(Channel.NED1), NOW, NOW.plus(Duration.ofMinutes(10)), Order.ASC, 1, e -> true))).isEmpty();
+    }
+
+    @Test
+    public void outsideWindow() {
+        // nothing found, and it may be before the window
+        assertThat(index.first(NowNextIndex.channelKey(Channel.NED3), null, NOW, Order.DESC, 1, e -> true)).isNull();
+        // but not if the range is inside the window
+        assertThat(index.first(NowNextIndex.channelKey(Channel.NED3), NOW.minus(Duration.ofHours(1)), NOW, Order.DESC, 1, e -> true)).isEmpty();
+        // there may be a next one after the window
+        assertThat(index.first(NowNextIndex.channelKey(Channel.NED1), NOW.plus(Duration.ofHours(1)), null, Order.ASC, 1, e -> true)).isNull();
+        // the range ends after the window
+        assertThat(index.first(NowNextIndex.channelKey(Channel.NED1), null, NOW.plus(Duration.ofDays(2)), Order.DESC, 1, e -> true)).isNull();
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void count() {
+        assertThat(index.count(NowNextIndex.channelKey(Channel.NED1), NOW.minus(Duration.ofDays(1)), NOW, e -> true)).isEqualTo(2);
+        assertThat(index.count(NowNextIndex.broadcasterKey("VPRO"), NOW.minus(Duration.ofHours(1)), NOW.plus(Duration.ofHours(1)), e -> true)).isEqualTo(3);
+        assertThat(index.count(NowNextIndex.channelKey(Channel.NED3), NOW, NOW.plus(Duration.ofHours(1)), e -> true)).isZero();
+        // not completely in the window
+        assertThat(index.count(NowNextIndex.channelKey(Channel.NED1), NOW.minus(Duration.ofDays(2)), NOW, e -> true)).isNull();
+        assertThat(index.count(NowNextIndex.channelKey(Channel.NED1), NOW, NOW.plus(Duration.ofDays(2)), e -> true)).isNull();
+    }
+
+    @Test
+    public void isNowOrNext() {
+        final Instant now = NOW.plus(Duration.ofMinutes(1));
+        // the shapes of ScheduleRestServiceImpl's channel and broadcaster now and next
+        assertThat(ESScheduleRepository.isNowOrNext(now.minus(Duration.ofDays(1)), now, Order.DESC, 0, 1, index)).isTrue();
+        assertThat(ESScheduleRepository.isNowOrNext(now.minus(Duration.ofDays(1)), now, Order.DESC, 0, 100, index)).isTrue();
+        assertThat(ESScheduleRepository.isNowOrNext(now, now.plus(Duration.ofHours(12)), Order.ASC, 0, 1, index)).isTrue();
+        // of the ancestor ones
+        assertThat(ESScheduleRepository.isNowOrNext(null, now, Order.DESC, 0, 1, index)).isTrue();
+        assertThat(ESScheduleRepository.isNowOrNext(now, null, Order.ASC, 0, 1, index)).isTrue();
+
+        // lists which need an exact total, which can't be given
+        assertThat(ESScheduleRepository.isNowOrNext(null, now, Order.DESC, 0, 10, index)).isFalse();
+        assertThat(ESScheduleRepository.isNowOrNext(now.minus(Duration.ofDays(7)), now, Order.DESC, 0, 100, index)).isFalse();
+        assertThat(ESScheduleRepository.isNowOrNext(now.minus(Duration.ofDays(1)), now, Order.DESC, 1, 1, index)).isFalse();
+    }
+
+    private static List<String> mids(List<ApiScheduleEvent> events) {
+        return events.stream().map(ApiScheduleEvent::getMidRef).toList();
+    }
+
+    private static ApiScheduleEvent event(String mid, Channel channel, int minutes) {
+        final ScheduleEvent event = ScheduleEvent.builder()
+            .channel(channel)
+            .start(NOW.plus(Duration.ofMinutes(minutes)))
+            .duration(Duration.ofMinutes(25))
+            .build();
+        final Program program = broadcast()
+            .mid(mid)
+            .broadcasters("VPRO")
+            .descendantOf("SERIES_1")
+            .scheduleEvents(event)
+            .build();
+        return new ApiScheduleEvent(program.getScheduleEvents().first(), program);
+    }
+}
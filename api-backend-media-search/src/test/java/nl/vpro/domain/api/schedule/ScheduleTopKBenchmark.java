@@ -0,0 +1,116 @@
+package nl.vpro.domain.api.schedule;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import nl.vpro.domain.api.media.ApiScheduleEvent;
+import nl.vpro.domain.media.*;
+
+import static nl.vpro.domain.media.MediaBuilder.broadcast;
+
+/**
+ * Compares collecting all schedule events of a week on 20 channels, sorting them and taking a sub list (how {@link ESScheduleRepository} used to do it), with {@link TopScheduleEvents}, which only keeps {@code offset + max} of them and stops as soon as the events arrive in start order and no better ones can follow.
+ * <p>
+ * Run with the main method, or e.g. {@code -prof gc} to also see the allocations.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleTopKBenchmark {
+
+    private static final Instant START = Instant.parse("2026-10-12T04:00:00Z");
+    private static final int CHANNELS = 20;
+    private static final int DAYS = 7;
+    private static final Duration SLOT = Duration.ofMinutes(30);
+
+    @Param({"10", "100"})
+    public int max;
+
+    @Param({"0", "200"})
+    public long offset;
+
+    /**
+     * In start order, like they arrive from elasticsearch
+     */
+    private List<ApiScheduleEvent> events;
+
+    @Setup
+    public void setup() {
+        final Channel[] channels = Arrays.copyOf(Channel.values(), CHANNELS);
+        final long slots = Duration.ofDays(DAYS).dividedBy(SLOT);
+        events = new ArrayList<>();
+        for (long slot = 0; slot < slots; slot++) {
+            for (Channel channel : channels) {
+                final ScheduleEvent event = ScheduleEvent.builder()
+                    .channel(channel)
+                    .start(START.plus(SLOT.multipliedBy(slot)))
+                    .duration(SLOT)
+                    .build();
+                final Program program = broadcast()
+                    .mid("MID_" + channel.name() + "_" + slot)
+                    .scheduleEvents(event)
+                    .build();
+                events.add(new ApiScheduleEvent(program.getScheduleEvents().first(), program));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ApiScheduleEvent> collectAndSort() {
+        final List<ApiScheduleEvent> results = new ArrayList<>();
+        long skipped = 0;
+        for (ApiScheduleEvent event : events) {
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                results.add(event);
+            }
+        }
+        Collections.sort(results);
+        return results.size() > max ? results.subList(0, max) : results;
+    }
+
+    @Benchmark
+    public List<ApiScheduleEvent> topK() {
+        final TopScheduleEvents top = new TopScheduleEvents(false, offset, max);
+        for (ApiScheduleEvent event : events) {
+            top.add(event);
+            if (top.isComplete(event.getStartInstant())) {
+                break;
+            }
+        }
+        return top.result();
+    }
+
+    /**
+     * Without early termination, e.g. when the events don't arrive in order.
+     */
+    @Benchmark
+    public List<ApiScheduleEvent> topKAll() {
+        final TopScheduleEvents top = new TopScheduleEvents(false, offset, max);
+        for (ApiScheduleEvent event : events) {
+            top.add(event);
+        }
+        return top.result();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ScheduleTopKBenchmark.class.getSimpleName())
+            .addProfiler("gc")
+            .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package nl.vpro.domain.api.schedule;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.domain.api.media.ApiScheduleEvent;
+import nl.vpro.domain.media.*;
+
+import static nl.vpro.domain.media.MediaBuilder.broadcast;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TopScheduleEventsTest {
+
+    private static final Instant START = Instant.parse("2026-10-17T06:00:00Z");
+
+    @Test
+    public void ascending() {
+        final TopScheduleEvents top = new TopScheduleEvents(false, 2, 3);
+        final List<ApiScheduleEvent> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            events.add(event("MID_" + i, i));
+        }
+        Collections.shuffle(events, new Random(1));
+        events.forEach(top::add);
+
+        assertThat(mids(top.result())).containsExactly("MID_2", "MID_3", "MID_4");
+        assertThat(top.getCount()).isEqualTo(20);
+    }
+
+    @Test
+    public void descending() {
+        final TopScheduleEvents top = new TopScheduleEvents(true, 0, 2);
+        for (int i = 0; i < 10; i++) {
+            top.add(event("MID_" + i, i));
+        }
+        assertThat(mids(top.result())).containsExactly("MID_9", "MID_8");
+    }
+
+    @Test
+    public void unbounded() {
+        final TopScheduleEvents top = new TopScheduleEvents(false, 1, null);
+        top.add(event("MID_2", 2));
+        top.add(event("MID_0", 0));
+        top.add(event("MID_1", 1));
+        assertThat(mids(top.result())).containsExactly("MID_1", "MID_2");
+        assertThat(top.isComplete(START.plus(Duration.ofDays(1)))).isFalse();
+    }
+
+    @Test
+    public void offsetBeyondResult() {
+        final TopScheduleEvents top = new TopScheduleEvents(false, 5, 10);
+        top.add(event("MID_0", 0));
+        assertThat(top.result()).isEmpty();
+    }
+
+    @Test
+    public void isComplete() {
+        final TopScheduleEvents asc = new TopScheduleEvents(false, 0, 2);
+        asc.add(event("MID_0", 0));
+        assertThat(asc.isComplete(hour(5))).isFalse();
+        asc.add(event("MID_1", 1));
+        // an event may still follow that starts at the same time as the worst one
+        assertThat(asc.isComplete(hour(1))).isFalse();
+        assertThat(asc.isComplete(hour(2))).isTrue();
+        assertThat(asc.isComplete(null)).isFalse();
+
+        final TopScheduleEvents desc = new TopScheduleEvents(true, 0, 1);
+        desc.add(event("MID_5", 5));
+        assertThat(desc.isComplete(hour(5))).isFalse();
+        assertThat(desc.isComplete(hour(4))).isTrue();
+
+        assertThat(new TopScheduleEvents(false, 0, 0).isComplete(hour(0))).isTrue();
+    }
+
+    private static Instant hour(int hours) {
+        return START.plus(Duration.ofHours(hours));
+    }
+
+    private static List<String> mids(List<ApiScheduleEvent> events) {
+        return events.stream().map(ApiScheduleEvent::getMidRef).toList();
+    }
+
+    private static ApiScheduleEvent event(String mid, int hours) {
+        final ScheduleEvent event = ScheduleEvent.builder()
+            .channel(Channel.NED1)
+            .start(hour(hours))
+            .duration(Duration.ofMinutes(50))
+            .build();
+        final Program program = broadcast().mid(mid).scheduleEvents(event).build();
+        return new ApiScheduleEvent(program.getScheduleEvents().first(), program);
+    }
+}
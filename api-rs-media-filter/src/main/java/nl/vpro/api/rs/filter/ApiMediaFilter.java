@@ -107,6 +107,23 @@ public class ApiMediaFilter {
         }
     }
 
+    /**
+     * Parses the properties like {@link #set(String)} does, but without setting the filter. This can be used to know beforehand which properties will be needed at all.
+     * @return The (lowercase, singular) names of the properties that will be rendered, or {@code null} if all of them are.
+     * @since 8.14
+     */
+    public static Set<String> retainedProperties(String properties) {
+        final ApiMediaFilter filter = new ApiMediaFilter();
+        filter.filter(properties, unrecognized -> {});
+        if (! filter.filtering || filter.retainAll) {
+            return null;
+        }
+        return filter.properties.keySet()
+            .stream()
+            .map(String::toLowerCase)
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
     public static void check(String properties) {
         try {
             set(properties);
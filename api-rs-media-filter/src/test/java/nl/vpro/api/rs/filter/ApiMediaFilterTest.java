@@ -170,6 +170,17 @@ public class ApiMediaFilterTest {
     }
 
 
+    @Test
+    public void testRetainedProperties() {
+        assertThat(ApiMediaFilter.retainedProperties("all")).isNull();
+        assertThat(ApiMediaFilter.retainedProperties("")).isNull();
+        assertThat(ApiMediaFilter.retainedProperties("none")).containsExactlyInAnyOrder("title", "broadcaster");
+        assertThat(ApiMediaFilter.retainedProperties("segments:2,persons,memberOf"))
+            .containsExactlyInAnyOrder("title", "broadcaster", "segment", "credit", "memberof");
+        // doesn't touch the actual filter
+        assertThat(ApiMediaFilter.get().limitOrDefault("segment")).isEqualTo(FilterProperties.ALL);
+    }
+
     @Test
     public void testFilterUnknownProperty() {
         assertThatExceptionOfType(IllegalArgumentException.class)
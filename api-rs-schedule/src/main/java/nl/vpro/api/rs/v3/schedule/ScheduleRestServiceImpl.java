@@ -110,7 +110,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
             start = guideDayStart(guideDay);
             stop = guideDayStop(guideDay);
         }
-        ScheduleResult result = scheduleService.list(start, stop, order, offset, max);
+        final ScheduleResult result;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            result = scheduleService.list(start, stop, order, offset, max);
+        }
 
         ApiMediaFilter.set(properties);
 
@@ -135,7 +138,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
     ) {
         max = handleTooManyResults(offset, max, maxResults);
 
-        ScheduleSearchResult result = scheduleService.find(form, parseOrder(sort), profile, offset, max);
+        final ScheduleSearchResult result;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            result = scheduleService.find(form, parseOrder(sort), profile, offset, max);
+        }
 
         ApiMediaFilter.set(properties);
 
@@ -171,7 +177,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
             stop = guideDayStop(guideDay);
         }
 
-        ScheduleResult result = scheduleService.listForAncestor(mediaId, start, stop, order, offset, max);
+        final ScheduleResult result;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            result = scheduleService.listForAncestor(mediaId, start, stop, order, offset, max);
+        }
 
         ApiMediaFilter.set(properties);
 
@@ -193,7 +202,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
         if (now == null) {
             now = Instant.now();
         }
-        List<? extends ApiScheduleEvent> scheduleEvents = scheduleService.listForAncestor(mediaId, null, now, Order.DESC, 0L, 1).getItems();
+        final List<? extends ApiScheduleEvent> scheduleEvents;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            scheduleEvents = scheduleService.listForAncestor(mediaId, null, now, Order.DESC, 0L, 1).getItems();
+        }
 
         if (scheduleEvents.isEmpty()) {
             throw Exceptions.notFound("No current event for ancestor " + mediaId);
@@ -226,7 +238,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
         if (now == null) {
             now = Instant.now();
         }
-        List<? extends ApiScheduleEvent> scheduleEvents = scheduleService.listForAncestor(mediaId, now, null, Order.ASC, 0L, 1).getItems();
+        final List<? extends ApiScheduleEvent> scheduleEvents;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            scheduleEvents = scheduleService.listForAncestor(mediaId, now, null, Order.ASC, 0L, 1).getItems();
+        }
 
         if (scheduleEvents.isEmpty()) {
             throw Exceptions.notFound("No next event for ancestor " + mediaId);
@@ -265,7 +280,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
             start = guideDayStart(guideDay);
             stop = guideDayStop(guideDay);
         }
-        ScheduleResult result = scheduleService.listForBroadcaster(broadcaster, start, stop, order, offset, max);
+        final ScheduleResult result;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            result = scheduleService.listForBroadcaster(broadcaster, start, stop, order, offset, max);
+        }
 
         ApiMediaFilter.set(properties);
 
@@ -291,11 +309,14 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
             now = Instant.now();
         }
         Instant start = mustBeRunning ? now.minus(Duration.ofDays(1)) : now.minus(scheduleEventWindow);
-        List<? extends ApiScheduleEvent> scheduleEvents = scheduleService.listForBroadcaster(
-            broadcaster,
-            start,
-            now,
-            Order.DESC, 0L, 100).getItems();
+        final List<? extends ApiScheduleEvent> scheduleEvents;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            scheduleEvents = scheduleService.listForBroadcaster(
+                broadcaster,
+                start,
+                now,
+                Order.DESC, 0L, 100).getItems();
+        }
 
         if (scheduleEvents.isEmpty()) {
             throw Exceptions.notFound("No current event for broadcaster " + broadcaster);
@@ -330,7 +351,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
             now = Instant.now();
         }
         Instant to = now.plus(Duration.ofDays(7));
-        final List<? extends ApiScheduleEvent> scheduleEvents = scheduleService.listForBroadcaster(broadcaster, now, to, Order.ASC, 0L, 1).getItems();
+        final List<? extends ApiScheduleEvent> scheduleEvents;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            scheduleEvents = scheduleService.listForBroadcaster(broadcaster, now, to, Order.ASC, 0L, 1).getItems();
+        }
 
         if (scheduleEvents.isEmpty()) {
             throw Exceptions.notFound("No next event for broadcaster " + broadcaster);
@@ -371,7 +395,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
             stop = guideDayStop(guideDay);
         }
         ApiMediaFilter.removeFilter();
-        ScheduleResult result = scheduleService.list(chan, start, stop, order, offset, max);
+        final ScheduleResult result;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            result = scheduleService.list(chan, start, stop, order, offset, max);
+        }
 
         ApiMediaFilter.set(properties);
 
@@ -399,7 +426,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
         Instant start = mustBeRunning ? now.minus(Duration.ofDays(1)) : now.minus(scheduleEventWindow);
 
         Channel chan = getChannel(channel);
-        List<? extends ApiScheduleEvent> scheduleEvents = scheduleService.list(chan, start, now, Order.DESC, 0L, 1).getItems();
+        final List<? extends ApiScheduleEvent> scheduleEvents;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            scheduleEvents = scheduleService.list(chan, start, now, Order.DESC, 0L, 1).getItems();
+        }
 
         if (scheduleEvents.isEmpty()) {
             throw Exceptions.notFound("No current event on channel " + chan);
@@ -435,7 +465,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
         }
         Instant to = now.plus(scheduleEventWindow);
         Channel chan = getChannel(channel);
-        List<? extends ApiScheduleEvent> scheduleEvents = scheduleService.list(chan, now, to, Order.ASC, 0L, 1).getItems();
+        final List<? extends ApiScheduleEvent> scheduleEvents;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            scheduleEvents = scheduleService.list(chan, now, to, Order.ASC, 0L, 1).getItems();
+        }
 
         if (scheduleEvents.isEmpty()) {
             throw Exceptions.notFound("No next event on channel " + chan);
@@ -476,7 +509,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
             start = guideDayStart(guideDay);
             stop = guideDayStop(guideDay);
         }
-        ScheduleResult result = scheduleService.list(new Net(net), start, stop, order, offset, max);
+        final ScheduleResult result;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            result = scheduleService.list(new Net(net), start, stop, order, offset, max);
+        }
 
         ApiMediaFilter.set(properties);
 
@@ -503,7 +539,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
             now = Instant.now();
         }
         Instant start = mustBeRunning ? now.minus(Duration.ofDays(1)) : now.minus(scheduleEventWindow);
-        List<? extends ApiScheduleEvent> scheduleEvents = scheduleService.list(new Net(net), start, now, Order.DESC, 0L, 1).getItems();
+        final List<? extends ApiScheduleEvent> scheduleEvents;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            scheduleEvents = scheduleService.list(new Net(net), start, now, Order.DESC, 0L, 1).getItems();
+        }
 
         if (scheduleEvents.isEmpty()) {
             throw Exceptions.notFound("No current event on net " + net);
@@ -538,7 +577,10 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
             now = Instant.now();
         }
         Instant to = now.plus(scheduleEventWindow);
-        List<? extends ApiScheduleEvent> scheduleEvents = scheduleService.list(new Net(net), now, to, Order.ASC, 0L, 1).getItems();
+        final List<? extends ApiScheduleEvent> scheduleEvents;
+        try (MediaSourceFilter.Scope ignored = retain(properties)) {
+            scheduleEvents = scheduleService.list(new Net(net), now, to, Order.ASC, 0L, 1).getItems();
+        }
 
         if (scheduleEvents.isEmpty()) {
             throw Exceptions.notFound("No next event on net " + net);
@@ -551,6 +593,13 @@ public class ScheduleRestServiceImpl implements ScheduleRestService {
         return scheduleEvent;
     }
 
+    /**
+     * Only the properties which will be rendered have to be fetched from elasticsearch
+     */
+    private static MediaSourceFilter.Scope retain(String properties) {
+        return MediaSourceFilter.retain(ApiMediaFilter.retainedProperties(properties));
+    }
+
     private static Channel getChannel(String channel) {
         return Channel.valuesOf(Collections.singletonList(channel)).get(0);
     }
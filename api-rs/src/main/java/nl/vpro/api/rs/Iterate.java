@@ -6,7 +6,7 @@ import java.io.*;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Iterator;
-import java.util.concurrent.Future;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -41,6 +41,26 @@ public class Iterate {
             .setStreamReadConstraints(StreamReadConstraints.builder().maxStringLength(50_000_000).build());
         log.info("Set max string length of {} to 50_000_000", Jackson2Mapper.getLenientInstance().getFactory());
     }
+
+    /**
+     * The maximal number of iterators that are {@link #streamingJson(ExceptionUtils.ThrowingFunction, JsonConsumer, int, Consumer[]) read ahead} at the same time. More are just not read ahead.
+     * @since 8.14
+     */
+    static final int MAX_READ_AHEADS = 20;
+
+    /**
+     * Reads the iterators in {@link #streamingJson(ExceptionUtils.ThrowingFunction, JsonConsumer, int, Consumer[])} if read ahead is requested. The threads block on full buffers, so this pool is not shared, and every iterator read ahead occupies one of its threads.
+     */
+    private static final ExecutorService READ_AHEAD_EXECUTOR = new ThreadPoolExecutor(
+        0, MAX_READ_AHEADS,
+        60, TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        r -> {
+            final Thread thread = new Thread(r, Iterate.class.getSimpleName() + "-read-ahead");
+            thread.setDaemon(true);
+            return thread;
+        });
+
     /**
      * @param creator  Supplies an iterator of objects, which will be used to make json objects.
      *                 The JsonGenerator argument can be ignored, but it can also be used to write opening json
@@ -54,7 +74,28 @@ public class Iterate {
         final ExceptionUtils.ThrowingFunction<JsonGenerator, CloseableIterator<T>, E> creator,
         final JsonConsumer<T> streamer,
         final Consumer<Response.ResponseBuilder>... responseBuilderConsumer) throws Exception {
+        return streamingJson(creator, streamer, 0, responseBuilderConsumer);
+    }
 
+    /**
+     * As {@link #streamingJson(ExceptionUtils.ThrowingFunction, JsonConsumer, Consumer[])}, but the iterator can be read ahead. It is then consumed (so e.g. the next batches are fetched and unmarshalled) by another thread than the one writing the json, and the two are connected by a buffer of at most {@code readAhead} objects.
+     * <p>
+     * Since the iterator is consumed by another thread then, this may only be used if it does not write to the {@link JsonGenerator} itself (e.g. via {@link #keepAlive(JsonGenerator)}).
+     * <p>
+     * If already {@link #MAX_READ_AHEADS} iterators are read ahead, the iterator is not read ahead.
+     *
+     * @param readAhead The number of objects to read ahead. If {@code 0}, the iterator is consumed by the thread writing the json.
+     * @since 8.14
+     */
+    @SafeVarargs
+    public static <T, E extends Exception> Response streamingJson(
+        final ExceptionUtils.ThrowingFunction<JsonGenerator, CloseableIterator<T>, E> creator,
+        final JsonConsumer<T> streamer,
+        final int readAhead,
+        final Consumer<Response.ResponseBuilder>... responseBuilderConsumer) throws Exception {
+        if (readAhead < 0) {
+            throw new IllegalArgumentException("Read ahead must not be negative: " + readAhead);
+        }
 
         final PipedOutputStream pipedOutputStream = new PipedOutputStream();
         final PipedInputStream pipedInputStream = new PipedInputStream();
@@ -65,7 +106,8 @@ public class Iterate {
 
         final CloseableIterator<T> iterator;
         try {
-            iterator = creator.applyWithException(jg);
+            final CloseableIterator<T> created = creator.applyWithException(jg);
+            iterator = readAhead > 0 ? readAhead(created, readAhead, READ_AHEAD_EXECUTOR) : created;
         } catch (Exception e) {
             CloseableIterator.closeQuietly(jg);
             throw e;
@@ -153,6 +195,18 @@ public class Iterate {
     }
 
 
+    static <T> CloseableIterator<T> readAhead(
+        @NonNull CloseableIterator<T> iterator,
+        int readAhead,
+        @NonNull ExecutorService executor) {
+        try {
+            return new ReadAheadIterator<>(iterator, readAhead, executor);
+        } catch (RejectedExecutionException e) {
+            log.info("Not reading ahead {}, since too many iterators are read ahead already", iterator);
+            return iterator;
+        }
+    }
+
     @FunctionalInterface
     public interface JsonConsumer<T> {
         void accept(CloseableIterator<T> stream, JsonGenerator jg) throws Exception;
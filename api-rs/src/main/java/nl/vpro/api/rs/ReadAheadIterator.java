@@ -0,0 +1,155 @@
+package nl.vpro.api.rs;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import nl.vpro.util.CloseableIterator;
+
+/**
+ * Consumes a (slow) iterator in a separate thread, so that the next items are already fetched and unmarshalled while the current ones are serialized. At most {@code bufferSize} items are read ahead.
+ * <p>
+ * The wrapped iterator is closed by the reading thread, when it is exhausted (before that is signalled to the consumer), or when this is closed.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@Log4j2
+public class ReadAheadIterator<T> implements CloseableIterator<T> {
+
+    private static final Object END = new Object();
+
+    private final CloseableIterator<T> wrapped;
+    private final BlockingQueue<Object> buffer;
+    private final Future<?> reader;
+
+    private volatile boolean closed = false;
+
+    private Object next;
+
+    /**
+     * @param executor The thread reading {@code wrapped} will block if the buffer is full, so this should not be shared with bounded pools that are needed for other things.
+     */
+    public ReadAheadIterator(
+        @NonNull CloseableIterator<T> wrapped,
+        int bufferSize,
+        @NonNull ExecutorService executor) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer size must be positive");
+        }
+        this.wrapped = wrapped;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        final SecurityContext context = SecurityContextHolder.getContext();
+        this.reader = executor.submit(() -> {
+            SecurityContextHolder.setContext(context);
+            try {
+                read();
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            if (closed) {
+                return false;
+            }
+            try {
+                next = buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                return false;
+            }
+            if (next instanceof Failure failure) {
+                next = END;
+                close();
+                if (failure.exception instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new IllegalStateException(failure.exception.getMessage(), failure.exception);
+            }
+        }
+        return next != END;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (! hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Item<T> item = (Item<T>) next;
+        next = null;
+        return item.value;
+    }
+
+    @Override
+    public void close() {
+        if (! closed) {
+            closed = true;
+            buffer.clear();
+            if (reader.cancel(true)) {
+                log.debug("Canceled {}", reader);
+            }
+        }
+    }
+
+    private void read() {
+        Object last = END;
+        try (CloseableIterator<T> iterator = wrapped) {
+            while (! closed && iterator.hasNext()) {
+                if (! put(new Item<>(iterator.next()))) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("{}: {} {}", wrapped, e.getClass().getName(), e.getMessage());
+            last = new Failure(e);
+        }
+        // only after the wrapped iterator is closed, so when the consumer is ready, its resources are released too
+        try {
+            put(last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // best effort, if closed, nobody is waiting any more
+            buffer.offer(last);
+        }
+    }
+
+    /**
+     * Blocks until there is room in the buffer, or this is closed
+     * @return whether the object was added
+     */
+    private boolean put(Object o) throws InterruptedException {
+        while (! closed) {
+            if (buffer.offer(o, 100, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ReadAheadIterator{" + wrapped + "}";
+    }
+
+    /**
+     * Wraps the items in the buffer, since they may be {@code null}
+     */
+    private record Item<T>(T value) {
+    }
+
+    private record Failure(Exception exception) {
+    }
+}
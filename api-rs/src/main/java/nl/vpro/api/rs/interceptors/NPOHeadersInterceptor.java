@@ -31,6 +31,12 @@ import nl.vpro.poms.shared.Headers;
 @Slf4j
 public class NPOHeadersInterceptor implements ContainerResponseFilter, ContainerRequestFilter {
 
+    /**
+     * See <a href="https://www.w3.org/TR/server-timing/">Server Timing</a>
+     * @since 8.14
+     */
+    static final String SERVER_TIMING = "Server-Timing";
+
     private static Predicate<String> aEqualsB(String a) {
         return b -> Objects.equals(a, b);
     }
@@ -70,7 +76,12 @@ public class NPOHeadersInterceptor implements ContainerResponseFilter, Container
 
             ExtraHeaders.markUsed();
             ExtraHeaders.get().forEach(p -> {
-                response.getHeaders().putSingle(p.getKey(), p.getValue());
+                if (SERVER_TIMING.equals(p.getKey())) {
+                    // every repository call adds its own timings, they should all be kept
+                    response.getHeaders().add(p.getKey(), p.getValue());
+                } else {
+                    response.getHeaders().putSingle(p.getKey(), p.getValue());
+                }
             });
             Object entity = response.getEntity();
             if (entity instanceof Result<?> result) {
@@ -0,0 +1,99 @@
+package nl.vpro.api.rs;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import nl.vpro.jackson2.Jackson2Mapper;
+import nl.vpro.util.CloseableIterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class IterateTest {
+
+    @Test
+    public void streamingJson() throws Exception {
+        final Source source = new Source(100);
+
+        assertThat(stream(source, 10)).containsExactlyElementsOf(IntStream.range(0, 100).boxed().toList());
+        assertThat(source.readBy).containsOnly(Iterate.class.getSimpleName() + "-read-ahead");
+    }
+
+    @Test
+    public void streamingJsonWithoutReadAhead() throws Exception {
+        final Source source = new Source(100);
+
+        assertThat(stream(source, 0)).containsExactlyElementsOf(IntStream.range(0, 100).boxed().toList());
+        assertThat(source.readBy).doesNotContain(Iterate.class.getSimpleName() + "-read-ahead");
+    }
+
+    @Test
+    public void negative() {
+        assertThatThrownBy(() -> stream(new Source(1), -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void tooManyReadAheads() throws Exception {
+        final ExecutorService executor = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new SynchronousQueue<>());
+        try (CloseableIterator<Integer> first = Iterate.readAhead(new Source(100), 1, executor)) {
+            assertThat(first).isInstanceOf(ReadAheadIterator.class);
+
+            final Source second = new Source(100);
+            assertThat(Iterate.readAhead(second, 1, executor)).isSameAs(second);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Integer> stream(Source source, int readAhead) throws Exception {
+        final Response response = Iterate.streamingJson(
+            jg -> source,
+            (i, jg) -> Iterate.iterate(i, jg, "items", "test"),
+            readAhead
+        );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        final List<Integer> result = new ArrayList<>();
+        for (JsonNode item : Jackson2Mapper.getInstance().readTree(out.toByteArray()).get("items")) {
+            result.add(item.intValue());
+        }
+        return result;
+    }
+
+    private static class Source implements CloseableIterator<Integer> {
+        final Iterator<Integer> wrapped;
+        final Set<String> readBy = Collections.synchronizedSet(new HashSet<>());
+
+        Source(int size) {
+            this.wrapped = IntStream.range(0, size).boxed().iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return wrapped.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+            readBy.add(Thread.currentThread().getName());
+            return wrapped.next();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package nl.vpro.api.rs;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.util.CloseableIterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReadAheadIteratorTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void readAll() {
+        final List<Integer> result = new ArrayList<>();
+        final Source source = new Source(IntStream.range(0, 1000).boxed().iterator(), -1);
+        try (ReadAheadIterator<Integer> i = new ReadAheadIterator<>(source, 10, executor)) {
+            i.forEachRemaining(result::add);
+        }
+        assertThat(result).containsExactlyElementsOf(IntStream.range(0, 1000).boxed().toList());
+        assertThat(source.closed).isTrue();
+    }
+
+    @Test
+    public void failing() {
+        final Source source = new Source(IntStream.range(0, 100).boxed().iterator(), 50);
+        final List<Integer> result = new ArrayList<>();
+        try (ReadAheadIterator<Integer> i = new ReadAheadIterator<>(source, 10, executor)) {
+            assertThatThrownBy(() -> i.forEachRemaining(result::add))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("failed at 50");
+        }
+        assertThat(result).hasSize(50);
+        assertThat(source.closed).isTrue();
+    }
+
+    @Test
+    public void closeEarly() {
+        final Source source = new Source(IntStream.range(0, 1000).boxed().iterator(), -1);
+        final ReadAheadIterator<Integer> i = new ReadAheadIterator<>(source, 1, executor);
+        assertThat(i.next()).isEqualTo(0);
+        i.close();
+        assertThat(i.hasNext()).isFalse();
+    }
+
+    private static class Source implements CloseableIterator<Integer> {
+        final Iterator<Integer> wrapped;
+        final int failAt;
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        int count = 0;
+
+        Source(Iterator<Integer> wrapped, int failAt) {
+            this.wrapped = wrapped;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return wrapped.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+            if (count == failAt) {
+                throw new IllegalStateException("failed at " + count);
+            }
+            count++;
+            return wrapped.next();
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package nl.vpro.domain.api;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import nl.vpro.jackson2.Jackson2Mapper;
+
+/**
+ * Coalesces identical concurrent calls. The first caller for a certain key actually executes, callers arriving with the same key while that one is still running just wait for it, and receive the same result (or exception).
+ * <p>
+ * Nothing is kept after the call finished, so this is no cache. It merely makes sure that a burst of identical requests (which all miss the cache at the same time) results in only one request to the backend.
+ * <p>
+ * Waiting callers wait at most {@link #getTimeout()}, so they don't hang forever if the executing call does.
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+@Log4j2
+public class SingleFlight {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * How long callers wait at most for an identical call that is already running. If that is exceeded, they fail with an {@link IllegalStateException}.
+     */
+    @Getter
+    @Setter
+    private volatile Duration timeout = Duration.ofSeconds(30);
+
+    @SuppressWarnings("unchecked")
+    public <V, E extends Exception> V execute(@NonNull String key, @NonNull ThrowingSupplier<V, E> supplier) throws E {
+        calls.increment();
+        final CompletableFuture<Object> mine = new CompletableFuture<>();
+        final CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            log.debug("Coalesced {}", key);
+            return (V) await(key, existing);
+        }
+        try {
+            final V result = supplier.get();
+            mine.complete(result);
+            return result;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Builds a canonical key for the given arguments. Objects are serialized to json, so forms that are equal but not the same instance result in the same key.
+     */
+    public static String key(@NonNull String method, Object... arguments) {
+        final StringBuilder builder = new StringBuilder(method);
+        for (Object argument : arguments) {
+            builder.append('|');
+            if (argument == null || argument instanceof CharSequence || argument instanceof Number || argument instanceof Boolean) {
+                builder.append(argument);
+            } else {
+                try {
+                    builder.append(Jackson2Mapper.getLenientInstance().writeValueAsString(argument));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the total number of calls to {@link #execute(String, ThrowingSupplier)}
+     */
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the number of calls that did not execute themselves, but waited on an identical call that was already running.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object await(String key, CompletableFuture<Object> future) {
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        } catch (TimeoutException te) {
+            throw new IllegalStateException("Identical call " + key + " did not finish within " + timeout, te);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ie);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ThrowingSupplier<V, E extends Exception> {
+        V get() throws E;
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{calls=" + getCallCount() + ", coalesced=" + getCoalescedCount() + ", inFlight=" + getInFlightCount() + "}";
+    }
+}
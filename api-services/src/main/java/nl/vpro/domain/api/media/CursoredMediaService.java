@@ -0,0 +1,20 @@
+package nl.vpro.domain.api.media;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import nl.vpro.domain.api.*;
+import nl.vpro.domain.api.profile.exception.ProfileNotFoundException;
+
+/**
+ * Cursor based versions of {@link MediaService#list(Order, Long, Integer)} and {@link MediaService#find(String, MediaForm, Long, Integer)}
+ *
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ * @see CursoredMediaSearchRepository
+ */
+public interface CursoredMediaService {
+
+    CursoredResult<MediaResult> listWithCursor(Order order, @Nullable String cursor, @Nullable Integer max);
+
+    CursoredResult<MediaSearchResult> findWithCursor(@Nullable String profile, @Nullable MediaForm form, @Nullable String cursor, @Nullable Integer max) throws ProfileNotFoundException;
+}
@@ -4,11 +4,16 @@
  */
 package nl.vpro.domain.api.media;
 
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -18,7 +23,10 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import org.meeuw.functional.Predicates;
 import org.meeuw.functional.ReasonedPredicate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
@@ -32,6 +40,7 @@ import nl.vpro.domain.media.MediaObject;
 import nl.vpro.domain.media.MediaType;
 import nl.vpro.util.CloseableIterator;
 import nl.vpro.util.FilteringIterator;
+import nl.vpro.util.TimeUtils;
 
 import static nl.vpro.domain.Roles.HAS_API_CHANGES_ROLE;
 import static nl.vpro.domain.Roles.HAS_API_ROLE;
@@ -42,18 +51,41 @@ import static nl.vpro.domain.Roles.HAS_API_ROLE;
  */
 @Service
 @Log4j2
-public class MediaServiceImpl implements MediaService {
+@ManagedResource(objectName = "nl.vpro.api:name=MediaService")
+public class MediaServiceImpl implements MediaService, CursoredMediaService {
 
     private final ProfileService profileService;
 
     private final MediaSearchRepository mediaSearchRepository;
 
+    private final CursoredMediaSearchRepository offsetCursoredRepository;
+
     private final QuerySearchRepository querySearchRepository;
 
     private final TopSpinRepository topSpinRepository;
 
     private final SinceToTimeStampService sinceToTimeStampService;
 
+    /**
+     * The recommended objects of topspin are loaded in batches of this size, which are fired in parallel (if the repository supports it)
+     */
+    @Getter
+    private int topspinLoadBatchSize = 20;
+
+    /**
+     * How long to wait at most for all batches of recommended objects of topspin
+     */
+    @Getter
+    @Setter
+    private Duration topspinLoadTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Identical concurrent calls to {@link #find(String, MediaForm, Long, Integer)} and {@link #findByMid(boolean, String)} all miss the cache at the same time. This makes them share one request to the repository.
+     */
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    private volatile boolean coalesce = true;
+
     @Autowired
     public MediaServiceImpl(
         ProfileService profileService,
@@ -65,6 +97,7 @@ public class MediaServiceImpl implements MediaService {
     ) {
         this.profileService = profileService;
         this.mediaSearchRepository = mediaSearchRepository;
+        this.offsetCursoredRepository = new OffsetCursoredMediaSearchRepository(mediaSearchRepository);
         this.querySearchRepository = querySearchRepository;
         this.topSpinRepository = topSpinRepository;
         this.sinceToTimeStampService = sinceToTimeStampService;
@@ -137,7 +170,13 @@ public class MediaServiceImpl implements MediaService {
     @PreAuthorize(HAS_API_ROLE)
     @Cacheable("MediaRestService.findByMid")
     public <T extends MediaObject> T findByMid(boolean loadDeleted, String mid) {
-        return mediaSearchRepository.findByMid(loadDeleted, mid);
+        if (! coalesce) {
+            return mediaSearchRepository.findByMid(loadDeleted, mid);
+        }
+        return singleFlight.execute(
+            SingleFlight.key("findByMid", loadDeleted, mid),
+            () -> mediaSearchRepository.findByMid(loadDeleted, mid)
+        );
     }
 
 
@@ -162,6 +201,12 @@ public class MediaServiceImpl implements MediaService {
         return mediaSearchRepository.list(order, offset, max);
     }
 
+    @Override
+    @PreAuthorize(HAS_API_ROLE)
+    public CursoredResult<MediaResult> listWithCursor(Order order, @Nullable String cursor, @Nullable Integer max) {
+        return cursoredRepository().listWithCursor(order, cursor, max);
+    }
+
     @Override
     @PreAuthorize(HAS_API_ROLE)
     public CloseableIterator<MediaObject> iterate(String profile, MediaForm form, Long offset, Integer max, FilteringIterator.KeepAlive keepAlive) throws ProfileNotFoundException {
@@ -172,7 +217,20 @@ public class MediaServiceImpl implements MediaService {
     @PreAuthorize(HAS_API_ROLE)
     @Cacheable("MediaRestService.find")
     public MediaSearchResult find(String profile, MediaForm form, Long offset, Integer max) throws ProfileNotFoundException {
-        return mediaSearchRepository.find(getProfile(profile), form, offset, max);
+        final ProfileDefinition<MediaObject> profileDefinition = getProfile(profile);
+        if (! coalesce) {
+            return mediaSearchRepository.find(profileDefinition, form, offset, max);
+        }
+        return singleFlight.execute(
+            SingleFlight.key("find", profile, form, offset, max),
+            () -> mediaSearchRepository.find(profileDefinition, form, offset, max)
+        );
+    }
+
+    @Override
+    @PreAuthorize(HAS_API_ROLE)
+    public CursoredResult<MediaSearchResult> findWithCursor(@Nullable String profile, @Nullable MediaForm form, @Nullable String cursor, @Nullable Integer max) throws ProfileNotFoundException {
+        return cursoredRepository().findWithCursor(getProfile(profile), form, cursor, max);
     }
 
     @Override
@@ -230,7 +288,7 @@ public class MediaServiceImpl implements MediaService {
     public MediaSearchResult findRelatedInTopspin(MediaObject media, String profile, MediaForm form, Integer max, String partyId, String clazz) throws ProfileNotFoundException {
         Recommendations recommendations = topSpinRepository.getForMid(media.getMid(), partyId, clazz);
 
-        List<MediaObject> mediaObjects = loadAll(
+        List<MediaObject> mediaObjects = loadAllInParallel(
             recommendations.getRecommendations().stream()
                 .map(Recommendation::getMidRef)
                 .collect(Collectors.toList()));
@@ -272,6 +330,101 @@ public class MediaServiceImpl implements MediaService {
 
     }
 
+    /**
+     * Like {@link #loadAll(List)}, but if the repository supports it the ids are split up in batches which are loaded concurrently.
+     */
+    private List<MediaObject> loadAllInParallel(List<String> ids) {
+        if (mediaSearchRepository instanceof AsyncMediaSearchRepository async && ids.size() > topspinLoadBatchSize) {
+            final List<CompletableFuture<List<MediaObject>>> futures = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i += topspinLoadBatchSize) {
+                futures.add(async.loadAllAsync(false, ids.subList(i, Math.min(ids.size(), i + topspinLoadBatchSize))));
+            }
+            final List<MediaObject> result = new ArrayList<>(ids.size());
+            final long deadline = System.nanoTime() + topspinLoadTimeout.toNanos();
+            try {
+                for (CompletableFuture<List<MediaObject>> future : futures) {
+                    result.addAll(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+                }
+            } catch (ExecutionException ee) {
+                futures.forEach(f -> f.cancel(true));
+                if (ee.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new IllegalStateException(ee.getCause());
+            } catch (TimeoutException te) {
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Loading " + ids.size() + " objects took longer than " + topspinLoadTimeout, te);
+            } catch (InterruptedException ie) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ie);
+            }
+            return result;
+        }
+        return loadAll(ids);
+    }
+
+    @ManagedAttribute(description = "Number of calls to find/findByMid that were answered by an identical call that was already running")
+    public long getCoalescedCount() {
+        return singleFlight.getCoalescedCount();
+    }
+
+    @ManagedAttribute
+    public long getSingleFlightCallCount() {
+        return singleFlight.getCallCount();
+    }
+
+    @ManagedAttribute
+    @Value("${topspin.loadBatchSize:20}")
+    public void setTopspinLoadBatchSize(int topspinLoadBatchSize) {
+        if (topspinLoadBatchSize <= 0) {
+            throw new IllegalArgumentException("The topspin load batch size must be positive");
+        }
+        this.topspinLoadBatchSize = topspinLoadBatchSize;
+    }
+
+    @ManagedAttribute
+    public String getTopspinLoadTimeoutAsString() {
+        return String.valueOf(topspinLoadTimeout);
+    }
+
+    @ManagedAttribute
+    @Value("${topspin.loadTimeout:10s}")
+    public void setTopspinLoadTimeoutAsString(String topspinLoadTimeout) {
+        this.topspinLoadTimeout = TimeUtils.parseDuration(topspinLoadTimeout).orElse(this.topspinLoadTimeout);
+    }
+
+    @ManagedAttribute
+    public String getCoalescingTimeoutAsString() {
+        return String.valueOf(singleFlight.getTimeout());
+    }
+
+    @ManagedAttribute
+    @Value("${media.coalescing.timeout:30s}")
+    public void setCoalescingTimeoutAsString(String timeout) {
+        singleFlight.setTimeout(TimeUtils.parseDuration(timeout).orElse(singleFlight.getTimeout()));
+    }
+
+    @ManagedAttribute
+    public boolean isCoalescing() {
+        return coalesce;
+    }
+
+    @ManagedAttribute
+    public void setCoalescing(boolean coalesce) {
+        this.coalesce = coalesce;
+    }
+
+    /**
+     * If the repository doesn't support cursors itself, the cursor falls back to the offset of the next page.
+     */
+    private CursoredMediaSearchRepository cursoredRepository() {
+        if (mediaSearchRepository instanceof CursoredMediaSearchRepository cursored) {
+            return cursored;
+        }
+        return offsetCursoredRepository;
+    }
+
     @Nullable
     private ProfileDefinition<MediaObject> getProfile(String profile) throws ProfileNotFoundException {
         if (profile == null || profile.isEmpty() // handy for scripting (profile=$2 and so on...)
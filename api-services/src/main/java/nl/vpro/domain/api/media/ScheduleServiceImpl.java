@@ -43,35 +43,35 @@ public class ScheduleServiceImpl implements ScheduleService {
 
     @Override
     @PreAuthorize(Roles.HAS_API_ROLE)
-    @Cacheable("ScheduleService.list")
+    @Cacheable(value = "ScheduleService.list", key = MediaSourceFilter.CACHE_KEY)
     public ScheduleResult list(Instant start, Instant stop, Order order, long offset, Integer max) {
         return searchRepository.listSchedules(start, stop, order, offset, max);
     }
 
     @Override
     @PreAuthorize(Roles.HAS_API_ROLE)
-    @Cacheable("ScheduleService.listChannel")
+    @Cacheable(value = "ScheduleService.listChannel", key = MediaSourceFilter.CACHE_KEY)
     public ScheduleResult list(Channel channel, Instant start, Instant stop, Order order, long offset, Integer max) {
         return searchRepository.listSchedules(channel, start, stop, order, offset, max);
     }
 
     @Override
     @PreAuthorize(Roles.HAS_API_ROLE)
-    @Cacheable("ScheduleService.listNet")
+    @Cacheable(value = "ScheduleService.listNet", key = MediaSourceFilter.CACHE_KEY)
     public ScheduleResult list(Net net, Instant start, Instant stop, Order order, long offset, Integer max) {
         return searchRepository.listSchedules(net, start, stop, order, offset, max);
     }
 
     @Override
     @PreAuthorize(Roles.HAS_API_ROLE)
-    @Cacheable("ScheduleService.listForBroadcaster")
+    @Cacheable(value = "ScheduleService.listForBroadcaster", key = MediaSourceFilter.CACHE_KEY)
     public ScheduleResult listForBroadcaster(String broadcaster, Instant start, Instant stop, Order order, long offset, Integer max) {
         return searchRepository.listSchedulesForBroadcaster(broadcaster, start, stop, order, offset, max);
     }
 
     @Override
     @PreAuthorize(Roles.HAS_API_ROLE)
-    @Cacheable("ScheduleService.listForAncestor")
+    @Cacheable(value = "ScheduleService.listForAncestor", key = MediaSourceFilter.CACHE_KEY)
     public ScheduleResult listForAncestor(String mediaId, Instant start, Instant stop, Order order, long offset, Integer max) {
         return searchRepository.listSchedulesForAncestor(mediaId, start, stop, order, offset, max);
     }
@@ -79,7 +79,7 @@ public class ScheduleServiceImpl implements ScheduleService {
 
     @Override
     @PreAuthorize(Roles.HAS_API_ROLE)
-    @Cacheable("ScheduleService.find")
+    @Cacheable(value = "ScheduleService.find", key = MediaSourceFilter.CACHE_KEY)
     public ScheduleSearchResult find(ScheduleForm form, Order sort, String profile, long offset, Integer max) {
         ProfileDefinition<MediaObject> profileDefinition = profileRepository.getMediaProfileDefinition(profile);
         return searchRepository.findSchedules(profileDefinition, form, sort, offset, max);
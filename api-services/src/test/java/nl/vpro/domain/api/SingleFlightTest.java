@@ -0,0 +1,99 @@
+package nl.vpro.domain.api;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import nl.vpro.domain.api.media.MediaForm;
+import nl.vpro.domain.api.media.MediaFormBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    public void coalesce() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executions = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                    executions.incrementAndGet();
+                    release.await();
+                    return "result";
+                })));
+            }
+            while (singleFlight.getCoalescedCount() < 4) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("result");
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(singleFlight.getCallCount()).isEqualTo(5);
+        assertThat(singleFlight.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void timeout() throws Exception {
+        singleFlight.setTimeout(Duration.ofMillis(10));
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                release.await();
+                return "result";
+            }));
+            while (singleFlight.getInFlightCount() == 0) {
+                Thread.sleep(5);
+            }
+            assertThatThrownBy(() -> singleFlight.execute("key", () -> "mine"))
+                .isInstanceOf(IllegalStateException.class);
+            release.countDown();
+            assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("result");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void notCoalescedAfterwards() {
+        assertThat(singleFlight.<String, RuntimeException>execute("key", () -> "a")).isEqualTo("a");
+        assertThat(singleFlight.<String, RuntimeException>execute("key", () -> "b")).isEqualTo("b");
+        assertThat(singleFlight.getCoalescedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void exception() {
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("foo");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void key() {
+        MediaForm form1 = MediaFormBuilder.form().text("bla").build();
+        MediaForm form2 = MediaFormBuilder.form().text("bla").build();
+        MediaForm form3 = MediaFormBuilder.form().text("foo").build();
+        assertThat(SingleFlight.key("find", "vpro", form1, 0L, 10))
+            .isEqualTo(SingleFlight.key("find", "vpro", form2, 0L, 10));
+        assertThat(SingleFlight.key("find", "vpro", form1, 0L, 10))
+            .isNotEqualTo(SingleFlight.key("find", "vpro", form3, 0L, 10))
+            .isNotEqualTo(SingleFlight.key("find", "vpro", form1, 10L, 10))
+            .isNotEqualTo(SingleFlight.key("find", null, form1, 0L, 10));
+    }
+}
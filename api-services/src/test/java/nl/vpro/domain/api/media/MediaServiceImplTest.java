@@ -5,11 +5,15 @@
 package nl.vpro.domain.api.media;
 
 import java.time.Instant;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import nl.vpro.domain.api.CursoredResult;
+import nl.vpro.domain.api.Order;
+import nl.vpro.domain.api.Result;
 import nl.vpro.domain.api.profile.*;
 import nl.vpro.domain.api.profile.exception.ProfileNotFoundException;
 import nl.vpro.domain.api.suggest.QuerySearchRepository;
@@ -19,6 +23,7 @@ import nl.vpro.domain.media.MediaObject;
 import nl.vpro.domain.media.MediaTestDataBuilder;
 import nl.vpro.util.FilteringIterator;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -150,4 +155,24 @@ public class MediaServiceImplTest {
         ).isInstanceOf(ProfileNotFoundException.class);
 
     }
+
+    @Test
+    public void testListWithCursorFallsBackToOffset() {
+        when(mediaSearchRepository.list(Order.ASC, 0L, 1)).thenReturn(new MediaResult(List.of(media), 0L, 1, Result.Total.equalsTo(2)));
+        when(mediaSearchRepository.list(Order.ASC, 1L, 1)).thenReturn(new MediaResult(List.of(media), 1L, 1, Result.Total.equalsTo(2)));
+
+        CursoredResult<MediaResult> first = target.listWithCursor(Order.ASC, null, 1);
+        assertThat(first.getNextCursor()).isEqualTo("1");
+
+        CursoredResult<MediaResult> second = target.listWithCursor(Order.ASC, first.getNextCursor(), 1);
+        assertThat(second.getResult().getItems()).containsExactly(media);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void testListWithInvalidCursor() {
+        assertThatThrownBy(() ->
+            target.listWithCursor(Order.ASC, "foo", 1)
+        ).isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -0,0 +1,76 @@
+package nl.vpro.domain.api.media;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import nl.vpro.domain.api.profile.ProfileService;
+import nl.vpro.domain.api.profile.exception.ProfileNotFoundException;
+import nl.vpro.domain.api.topspin.Recommendation;
+import nl.vpro.domain.api.topspin.Recommendations;
+import nl.vpro.domain.media.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 8.14
+ */
+public class TopspinParallelLoadTest {
+
+    final MediaSearchRepository mediaRepository = Mockito.mock(MediaSearchRepository.class, Mockito.withSettings().extraInterfaces(AsyncMediaSearchRepository.class));
+
+    final AsyncMediaSearchRepository async = (AsyncMediaSearchRepository) mediaRepository;
+
+    final TopSpinRepository topSpinRepository = Mockito.mock(TopSpinRepository.class);
+
+    final MediaServiceImpl target = new MediaServiceImpl(Mockito.mock(ProfileService.class), mediaRepository, null, new SinceToTimeStampServiceImpl(), topSpinRepository);
+
+    final Program program = MediaBuilder.program(ProgramType.BROADCAST).mid("mid0").build();
+
+    final List<MediaObject> objects = List.of(
+        MediaBuilder.program(ProgramType.BROADCAST).mid("mid1").build(),
+        MediaBuilder.program(ProgramType.BROADCAST).mid("mid2").build(),
+        MediaBuilder.program(ProgramType.BROADCAST).mid("mid3").build()
+    );
+
+    @BeforeEach
+    public void setup() {
+        Recommendations recommendations = new Recommendations();
+        recommendations.setRecommendations(List.of(
+            new Recommendation("mid1"),
+            new Recommendation("mid2"),
+            new Recommendation("mid3")
+        ));
+        when(topSpinRepository.getForMid("mid0", null, null)).thenReturn(recommendations);
+        target.setTopspinLoadBatchSize(2);
+    }
+
+    @Test
+    public void loadInParallel() throws ProfileNotFoundException {
+        when(async.loadAllAsync(false, List.of("mid1", "mid2"))).thenReturn(CompletableFuture.completedFuture(objects.subList(0, 2)));
+        when(async.loadAllAsync(false, List.of("mid3"))).thenReturn(CompletableFuture.completedFuture(objects.subList(2, 3)));
+
+        MediaSearchResult result = target.findRelatedInTopspin(program, null, null, 3, null, null);
+
+        assertThat(result.getItems().stream().map(i -> i.getResult().getMid())).containsExactly("mid1", "mid2", "mid3");
+    }
+
+    @Test
+    public void loadInParallelTimesOut() {
+        final CompletableFuture<List<MediaObject>> never = new CompletableFuture<>();
+        when(async.loadAllAsync(false, List.of("mid1", "mid2"))).thenReturn(CompletableFuture.completedFuture(objects.subList(0, 2)));
+        when(async.loadAllAsync(false, List.of("mid3"))).thenReturn(never);
+        target.setTopspinLoadTimeout(Duration.ofMillis(10));
+
+        assertThatThrownBy(() -> target.findRelatedInTopspin(program, null, null, 3, null, null))
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(never).isCancelled();
+    }
+}